@@ -0,0 +1,31 @@
+package frc.robot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-cycle {@link NavX#recomputeHeading(boolean, double)}. On a desktop the NavX is the simulation
+ * device (the same as in the unit tests), so this measures the wrapper and heading math, not SPI transfers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NavXBenchmark {
+
+    private NavX navx;
+
+    @Setup
+    public void setup() {
+        navx = NavX.getInstance();
+    }
+
+    @Benchmark
+    public double recomputeHeading() {
+        navx.recomputeHeading(false, 0.0);
+        return navx.getHeadingRadians();
+    }
+}
@@ -0,0 +1,47 @@
+package frc.robot.commands;
+
+import org.a05annex.util.geo2d.KochanekBartelsSpline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link KochanekBartelsSpline.PathFollower#getPointAt(double)}, which
+ * {@link AutonomousPathCommand} calls every cycle, stepping along a competition path at the 20ms
+ * command cycle. When the end of the path is reached a new follower is started at the beginning.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathFollowerBenchmark {
+
+    @Param({"./src/main/deploy/paths/2022_4ball.json"})
+    public String pathName;
+
+    private final KochanekBartelsSpline spline = new KochanekBartelsSpline();
+    private KochanekBartelsSpline.PathFollower pathFollower;
+    private double pathTime;
+
+    @Setup
+    public void setup() {
+        if (!spline.loadPath(pathName)) {
+            throw new IllegalStateException("Could not load path: " + pathName);
+        }
+        pathFollower = spline.getPathFollower();
+        pathTime = 0.0;
+    }
+
+    @Benchmark
+    public KochanekBartelsSpline.PathPoint getPointAt() {
+        KochanekBartelsSpline.PathPoint pathPoint = pathFollower.getPointAt(pathTime);
+        pathTime += 0.02;
+        if (pathPoint == null) {
+            pathFollower = spline.getPathFollower();
+            pathTime = 0.0;
+        }
+        return pathPoint;
+    }
+}
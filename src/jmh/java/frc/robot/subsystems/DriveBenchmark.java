@@ -0,0 +1,60 @@
+package frc.robot.subsystems;
+
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-cycle swerve drive work. {@link DriveSubsystem} owns real hardware and cannot be
+ * constructed off the robot, so {@link #setModulesForChassisMotion()} does exactly what
+ * {@code DriveSubsystem.setModulesForChassisMotion()} does: solve the {@link SwerveKinematics} and set the
+ * direction and speed of 4 modules with mocked hardware.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DriveBenchmark {
+
+    private final SwerveKinematics kinematics =
+            new SwerveKinematics(Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
+    private Mk4NeoModule rf;
+    private Mk4NeoModule lf;
+    private Mk4NeoModule lr;
+    private Mk4NeoModule rr;
+
+    // the simulated stick position, swept a little every cycle so the modules are always changing direction
+    private double t = 0.0;
+
+    @Setup
+    public void setup() {
+        rf = MockedModules.mockedModule();
+        lf = MockedModules.mockedModule();
+        lr = MockedModules.mockedModule();
+        rr = MockedModules.mockedModule();
+    }
+
+    @Benchmark
+    public void setModulesForChassisMotion() {
+        t += 0.02;
+        kinematics.solve(Math.sin(t), Math.cos(t), 0.5 * Math.sin(0.5 * t));
+        rf.setDirectionAndSpeed(kinematics.getDirection(SwerveKinematics.RF),
+                kinematics.getSpeed(SwerveKinematics.RF));
+        lf.setDirectionAndSpeed(kinematics.getDirection(SwerveKinematics.LF),
+                kinematics.getSpeed(SwerveKinematics.LF));
+        lr.setDirectionAndSpeed(kinematics.getDirection(SwerveKinematics.LR),
+                kinematics.getSpeed(SwerveKinematics.LR));
+        rr.setDirectionAndSpeed(kinematics.getDirection(SwerveKinematics.RR),
+                kinematics.getSpeed(SwerveKinematics.RR));
+    }
+
+    @Benchmark
+    public double solveKinematics() {
+        t += 0.02;
+        kinematics.solve(Math.sin(t), Math.cos(t), 0.5 * Math.sin(0.5 * t));
+        return kinematics.getSpeed(SwerveKinematics.RF);
+    }
+}
@@ -0,0 +1,52 @@
+package frc.robot.subsystems;
+
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the limelight shooter calibration lookup that {@link LimelightSubsystem} does every scheduler cycle.
+ * The {@link LimelightSubsystem} accessors that shooting commands call every cycle return the result of this
+ * lookup for the newest frame and robot velocity. The target is moved through the calibration range so every
+ * calibration interval is used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LimelightBenchmark {
+
+    private ShooterCalibrationTable table;
+    private final ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+    private double tyClose;
+    private double tyFar;
+    private double ty;
+
+    @Setup
+    public void setup() {
+        Constants.LimelightCalibrationPoint[] points = Constants.LIMELIGHT_CALIBRATION_POINTS;
+        table = new ShooterCalibrationTable(points);
+        tyClose = points[0].ty;
+        tyFar = points[points.length - 1].ty;
+        ty = tyClose;
+    }
+
+    // Move the target a little each call. This is done per invocation, so it is part of the measured time,
+    // it is a small, fixed, cost.
+    private void nextFrame() {
+        ty -= 0.01;
+        if (ty < tyFar) {
+            ty = tyClose;
+        }
+    }
+
+    @Benchmark
+    public double lookup() {
+        nextFrame();
+        table.lookup(ty, speeds);
+        return speeds.getFrontSpeed();
+    }
+}
@@ -0,0 +1,48 @@
+package frc.robot.subsystems;
+
+import org.a05annex.util.AngleD;
+import org.a05annex.util.AngleUnit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Mk4NeoModule#setDirection(double)} on a module with mocked hardware. The target direction
+ * sweeps all the way around every few hundred calls, so the forward/backward and 180 degree wrap logic
+ * are all exercised.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Mk4NeoModuleBenchmark {
+
+    private Mk4NeoModule module;
+    private final AngleD direction = new AngleD(AngleD.ZERO);
+    private double radians = 0.0;
+
+    @Setup
+    public void setup() {
+        module = MockedModules.mockedModule();
+    }
+
+    private double nextRadians() {
+        radians += 0.03;
+        if (radians > Math.PI) {
+            radians -= 2.0 * Math.PI;
+        }
+        return radians;
+    }
+
+    @Benchmark
+    public void setDirection() {
+        module.setDirection(nextRadians());
+    }
+
+    @Benchmark
+    public void setDirectionAngle() {
+        module.setDirection(direction.setValue(AngleUnit.RADIANS, nextRadians()));
+    }
+}
@@ -0,0 +1,35 @@
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.sensors.CANCoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Builds {@link Mk4NeoModule}s with mocked motor controllers, motor encoders, motor PID and CANcoder, the
+ * same way {@code TestMk4NeoModule} does. The mocks are stub-only so they do not record every call made
+ * during a benchmark - recording would be measured as allocation that does not happen on the robot.
+ */
+final class MockedModules {
+
+    private MockedModules() {
+    }
+
+    /**
+     * @return An initialized module with mocked hardware.
+     */
+    static Mk4NeoModule mockedModule() {
+        CANSparkMax driveMotor = mock(CANSparkMax.class, withSettings().stubOnly());
+        CANSparkMax spinMotor = mock(CANSparkMax.class, withSettings().stubOnly());
+        CANCoder calibrationEncoder = mock(CANCoder.class, withSettings().stubOnly());
+        RelativeEncoder driveEncoder = mock(RelativeEncoder.class, withSettings().stubOnly());
+        SparkMaxPIDController drivePID = mock(SparkMaxPIDController.class, withSettings().stubOnly());
+        RelativeEncoder spinEncoder = mock(RelativeEncoder.class, withSettings().stubOnly());
+        SparkMaxPIDController spinPID = mock(SparkMaxPIDController.class, withSettings().stubOnly());
+        when(calibrationEncoder.getAbsolutePosition()).thenReturn(Math.PI / 2.0);
+        return new Mk4NeoModule(driveMotor, driveEncoder, drivePID, spinMotor, spinEncoder, spinPID,
+                calibrationEncoder, -(Math.PI / 2.0));
+    }
+}
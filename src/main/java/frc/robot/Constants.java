@@ -69,6 +69,14 @@ public final class Constants {
         }
     }
 
+    // The shooter calibration is loaded from this file in the deploy directory, and reloaded when it changes. The
+    // points below are only used if the file cannot be loaded.
+    public static final String SHOOTER_CALIBRATION_FILE = "shooter_calibration.json";
+
+    // The shooter flywheel feedforward models are written to this file in the deploy directory by the flywheel
+    // characterization, and loaded at startup. If it cannot be loaded the Talon kF is used.
+    public static final String FLYWHEEL_MODEL_FILE = "flywheel_model.json";
+
     public static final LimelightCalibrationPoint[] LIMELIGHT_CALIBRATION_POINTS = {
         new LimelightCalibrationPoint(1.9, 0.5, -0.55, 4.20),
         new LimelightCalibrationPoint(-0.9, 0.55, -0.55, 4.20),
@@ -85,6 +93,21 @@ public final class Constants {
     public static final double TARGET_RADIUS = 0.61; // meters
     public static final double LIMELIGHT_HEIGHT = 0.99; // meters
     public static final double LIMELIGHT_ANGLE = 64.0; // degrees
+    // The hub is at the center of the field, which is the origin of the field coordinates. The limelight looks
+    // out the back (shooter end) of the robot.
+    public static final double HUB_X = 0.0; // meters
+    public static final double HUB_Y = 0.0; // meters
+    public static final double LIMELIGHT_DIRECTION = Math.PI; // radians, relative to the front of the robot
+    // The limelight image capture latency, which is added to the pipeline latency it reports
+    public static final double LIMELIGHT_CAPTURE_LATENCY = 11.0; // milliseconds
+    // The time of flight of a stationary shot, base + (per meter * range), for shooting on the move
+    public static final double SHOT_TIME_OF_FLIGHT_BASE = 0.6; // seconds
+    public static final double SHOT_TIME_OF_FLIGHT_PER_METER = 0.12; // seconds/meter
+    // Shooting on the move leads the target by the robot velocity. The times of flight above are estimates, so
+    // this is off (the robot velocity is ignored) until they are measured.
+    public static final boolean SHOOT_ON_THE_MOVE = false;
+    // The time constant of the low-pass filter on the chassis velocity used for shooting on the move
+    public static final double SHOT_VELOCITY_TIME_CONSTANT = 0.1; // seconds
 
     // for prototype, length and width from center of the wheels, in m (note chassis is 30" square,
     // the bolt pattern is 29" square, wheels are 2.75" in from the bolt pattern or centered on the
@@ -112,6 +135,10 @@ public final class Constants {
 
     // kP for keeping drive at the same orientation
     public static double DRIVE_ORIENTATION_kP = 0.3;
+    // kP for correcting the robot position to the path position in autonomous, (meters/sec)/meter. This is 0
+    // (no correction) until it is tuned: run a path with increasing kP (e.g. 0.5, 1.0, 2.0) and watch the fused
+    // pose against the path - use the largest kP that pulls the robot onto the path without oscillating.
+    public static double DRIVE_POSITION_kP = 0.0;
 
     // Digital input switchboard
     private static final DigitalInput switch0 = new DigitalInput(4);
@@ -0,0 +1,142 @@
+package frc.robot;
+
+/**
+ * Watches the NavX every drive cycle and decides whether its heading can be trusted. The NavX is unhealthy when:
+ * <ul>
+ *     <li>it is disconnected;</li>
+ *     <li>its update count has not changed for {@link #STALE_TIME} (a glitch on the MXP bus, or a NavX reset);
+ *     </li>
+ *     <li>the heading change it reports for a cycle differs from the chassis rotation measured by the wheels by
+ *     more than {@link #JUMP_TOLERANCE} - a discontinuity no real robot motion could produce.</li>
+ * </ul>
+ * Once unhealthy, the NavX must be healthy for {@link #RECOVERY_TIME} before it is trusted again, so a NavX that
+ * is flickering in and out does not toggle the heading source every cycle.
+ * <p>
+ * The counters are cumulative since the robot was started and are intended for telemetry.
+ */
+public class GyroHealthMonitor {
+
+    /** The time without a new NavX update before the NavX is considered stale, in seconds (20 updates at
+     * 200Hz).
+     */
+    private static final double STALE_TIME = 0.1;
+    /** The largest difference between the NavX and wheel rotation in one cycle that is not a jump, in radians.
+     * Wheel slip during hard driving is a few hundredths of a radian per cycle at most.
+     */
+    private static final double JUMP_TOLERANCE = 0.15;
+    /** The time the NavX must be continuously healthy before it is trusted again, in seconds.
+     */
+    private static final double RECOVERY_TIME = 0.5;
+    /** The weight of a new measurement in the update rate filter.
+     */
+    private static final double UPDATE_RATE_FILTER = 0.1;
+
+    private boolean m_healthy = true;
+    private double m_lastTime = Double.NaN;
+    private double m_lastUpdateCount = 0.0;
+    private double m_lastUpdateTime = 0.0;
+    private double m_healthySince = Double.NaN;
+    private boolean m_stale = false;
+    private double m_updateRate = 0.0;
+
+    private int m_staleCount = 0;
+    private int m_jumpCount = 0;
+    private int m_fallbackCount = 0;
+
+    /**
+     * Check the health of the NavX for this cycle.
+     *
+     * @param time             (double) The FPGA timestamp, in seconds.
+     * @param updateCount      (double) The NavX update count.
+     * @param connected        (boolean) {@code true} if the NavX reports it is connected.
+     * @param gyroRotation     (double) The change in the NavX heading since the last cycle, in radians.
+     * @param odometryRotation (double) The chassis rotation measured by the wheels since the last cycle, in
+     *                         radians.
+     * @return {@code true} if the NavX heading can be trusted, {@code false} if it cannot.
+     */
+    public boolean update(double time, double updateCount, boolean connected,
+                          double gyroRotation, double odometryRotation) {
+        if (Double.isNaN(m_lastTime)) {
+            m_lastUpdateCount = updateCount;
+            m_lastUpdateTime = time;
+            m_healthySince = time;
+        } else if (updateCount != m_lastUpdateCount) {
+            double deltaTime = time - m_lastUpdateTime;
+            if (deltaTime > 0.0) {
+                double rate = (updateCount - m_lastUpdateCount) / deltaTime;
+                m_updateRate += (rate - m_updateRate) * UPDATE_RATE_FILTER;
+            }
+            m_lastUpdateCount = updateCount;
+            m_lastUpdateTime = time;
+        }
+        m_lastTime = time;
+
+        boolean stale = !connected || (time - m_lastUpdateTime > STALE_TIME);
+        if (stale && !m_stale) {
+            m_staleCount++;
+        }
+        m_stale = stale;
+        boolean jump = Math.abs(gyroRotation - odometryRotation) > JUMP_TOLERANCE;
+        if (jump) {
+            m_jumpCount++;
+        }
+
+        if (stale || jump) {
+            m_healthySince = Double.NaN;
+            if (m_healthy) {
+                m_fallbackCount++;
+                m_healthy = false;
+            }
+        } else {
+            if (Double.isNaN(m_healthySince)) {
+                m_healthySince = time;
+            }
+            if (!m_healthy && (time - m_healthySince >= RECOVERY_TIME)) {
+                m_healthy = true;
+            }
+        }
+        return m_healthy;
+    }
+
+    /**
+     * @return {@code true} if the NavX heading could be trusted at the last {@link #update}.
+     */
+    public boolean isHealthy() {
+        return m_healthy;
+    }
+
+    /**
+     * @return The time since the last NavX update, as of the last {@link #update}, in seconds.
+     */
+    public double getSampleAge() {
+        return Double.isNaN(m_lastTime) ? 0.0 : m_lastTime - m_lastUpdateTime;
+    }
+
+    /**
+     * @return The filtered NavX update rate, in updates/sec.
+     */
+    public double getUpdateRate() {
+        return m_updateRate;
+    }
+
+    /**
+     * @return The number of times the NavX has gone stale.
+     */
+    public int getStaleCount() {
+        return m_staleCount;
+    }
+
+    /**
+     * @return The number of cycles the NavX heading jumped.
+     */
+    public int getJumpCount() {
+        return m_jumpCount;
+    }
+
+    /**
+     * @return The number of times the heading fell back from the NavX to the wheels.
+     */
+    public int getFallbackCount() {
+        return m_fallbackCount;
+    }
+}
@@ -1,7 +1,11 @@
 package frc.robot;
 
+import com.kauailabs.navx.AHRSProtocol;
 import com.kauailabs.navx.frc.AHRS;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import org.a05annex.util.AngleConstantD;
 import org.a05annex.util.AngleD;
 import org.a05annex.util.AngleUnit;
@@ -15,26 +19,88 @@ import org.a05annex.util.AngleUnit;
  * Originally this class was written to support NavX on a conventional drive that had PID direction loops
  * concerned with matching actual heading to expected heading. Right now we are a little unclear how that
  * relates to the A05annex 2021 season swerve drive.
+ *
+ * The heading is recomputed on the drive odometry thread and read by the command thread, so the methods that
+ * read or change the heading state are {@code synchronized}. The yaw itself is not polled, every NavX update
+ * is delivered by the AHRS data callback into a {@link YawHistory} with its timestamp, so the heading is the
+ * newest sample, and the heading at a time in the past can be looked up with {@link #getHeadingRadiansAt(double)}.
+ *
+ * The NavX takes several seconds to calibrate after power-up, and if it is not there at all it never finishes,
+ * so the robot does not wait for it. The NavX starts {@link State#INITIALIZING}, and a background thread waits
+ * for calibration to finish, when the NavX becomes {@link State#READY}. If that takes longer than
+ * {@link #INIT_TIMEOUT} the NavX is {@link State#DEGRADED} (it will still become ready if it finishes later).
+ * Until the NavX is ready the heading does not change - heading consumers should check
+ * {@link #isHeadingValid()}.
+ *
+ * Once the NavX is ready, a {@link GyroHealthMonitor} checks it every cycle. If the NavX stops updating, or its
+ * heading jumps, the heading is carried forward with the chassis rotation measured by the wheels (see
+ * {@link HeadingSource#ODOMETRY}) until the NavX is healthy again, so a brief glitch does not leave field
+ * relative driving spinning.
  */
 public class NavX {
 
+    /**
+     * The state of the NavX.
+     */
+    public enum State {
+        /** Waiting for the NavX to connect and calibrate, the heading is not being updated. */
+        INITIALIZING,
+        /** The NavX is calibrated, the heading is being updated. */
+        READY,
+        /** The NavX did not connect and calibrate in {@link #INIT_TIMEOUT}, the heading is not being updated. */
+        DEGRADED
+    }
+
+    /**
+     * Where the heading is coming from.
+     */
+    public enum HeadingSource {
+        /** The heading is from the NavX. */
+        NAVX,
+        /** The NavX is unhealthy, the heading is carried forward from the last good NavX heading by the chassis
+         * rotation measured by the wheels. */
+        ODOMETRY,
+        /** The NavX has never been ready, there is no heading. */
+        NONE
+    }
+
+    /** The time the NavX is given to connect and calibrate before it is considered degraded, in seconds.
+     */
+    private static final double INIT_TIMEOUT = 20.0;
+    /** How often the initialization thread checks whether the NavX is calibrated, in milliseconds.
+     */
+    private static final long INIT_POLL_MS = 100;
+
     //==================================================================================================================
     // NOTE: the NavX software expresses all the navigation angles in degrees, so we maintain angles internal
     // to this class in degrees. And do the conversions to radians when this class is queried for values.
     private final AHRS m_ahrs;
+    /** The rate the NavX sends updates, matching the drive odometry thread rate.
+     */
+    private static final byte UPDATE_RATE_HZ = (byte) 200;
+    /** The number of yaw samples kept, a little over 1 second at the update rate.
+     */
+    private static final int YAW_HISTORY_CAPACITY = 256;
+    /** If there has been no NavX sample from the callback for this long, in seconds, the yaw is polled.
+     */
+    private static final double STALE_SAMPLE_TIME = 0.05;
     /** The heading we are trying to track with the robot.
      */
     private final AngleD m_expectedHeading = new AngleD(AngleD.ZERO);
     private double m_updateCt = -1;
 
-    /** The raw heading, not corrected for the spins, read directly from the NavX, in the range
-     * -180 to +180 degrees. Used for determining whether the boundary between -180 and 180 has been crossed.
+    /** The yaw samples from the NavX, unwrapped so the spins are included. Filled by the AHRS data callback
+     * at the NavX update rate.
      */
-    private final AngleD m_headingRawLast = new AngleD(AngleD.ZERO);
+    private final YawHistory m_yawHistory = new YawHistory(YAW_HISTORY_CAPACITY);
 
-    /** The number of complete revolutions the robot has made.
+    /** Decides every cycle whether the NavX heading can be trusted.
+     */
+    private final GyroHealthMonitor m_health = new GyroHealthMonitor();
+    /** The continuous yaw at the last {@link #recomputeHeading(boolean, double)}, in radians.
      */
-    private int m_headingRevs = 0;
+    private double m_lastYaw = 0.0;
+    private volatile HeadingSource m_headingSource = HeadingSource.NONE;
 
     /** The actual heading of the robot from -infinity to infinity, so the spins are included in this
      *  heading.
@@ -42,6 +108,10 @@ public class NavX {
     private final AngleD m_heading = new AngleD(AngleD.ZERO);
     private boolean m_setExpectedToCurrent = false;
 
+    /** The NavX state captured in the last {@link #recomputeHeading(boolean, double)}, see
+     * {@link #readSnapshot(Snapshot)}. */
+    private final Snapshot m_snapshot = new Snapshot();
+
     // --------------------------------------------------
     // Reference values - these are the values at initialization of the NavX recording the position of the robot
     // on the field in terms of the readings of the NavX and the field heading of the robot at initialization. We
@@ -56,6 +126,10 @@ public class NavX {
      * The NavX reported yaw at the time the NavX in initialized.
      */
     private final AngleD m_refYaw = new AngleD(AngleD.ZERO);
+    /**
+     * The continuous yaw (from the {@link YawHistory}) at the time the NavX in initialized, in radians.
+     */
+    private double m_refContinuousYaw = 0.0;
     /**
      * The NavX reported roll at the time the NavX in initialized.
      */
@@ -64,25 +138,109 @@ public class NavX {
      * The actual field heading of the robot at the time the NavX in initialized.
      */
     private final AngleD m_refHeading = new AngleD(AngleD.ZERO);
+    /**
+     * The FPGA timestamp of the newest yaw sample when the heading was last referenced (initialized, or restarted
+     * after the NavX recovered). The yaw history before this was referenced differently, so headings are not
+     * looked up before it.
+     */
+    private double m_refTime = Double.NEGATIVE_INFINITY;
+
+    private volatile State m_state = State.INITIALIZING;
 
     /**
-     *
+     * Create the NavX and start the initialization thread. This does not wait for the NavX.
      */
     private NavX() {
-        // So, if there is no navx, there is no error - it just keeps trying to connect forever, so this
-        // needs to be on a thread that can be killed if it doesn't connect in time ......
-        // TODO: figure out the threading, error handling, and redundancy.
-        m_ahrs = new AHRS(SPI.Port.kMXP);
+        // So, if there is no navx, there is no error - it just keeps trying to connect forever, so the wait
+        // for calibration is on a thread that reports the NavX as degraded if it doesn't connect in time.
+        m_ahrs = new AHRS(SPI.Port.kMXP, UPDATE_RATE_HZ);
         m_ahrs.reset();
-        while (m_ahrs.isCalibrating()) {
+        m_ahrs.registerCallback(this::yawReceived, null);
+        Thread initThread = new Thread(this::waitForCalibration, "NavX init");
+        initThread.setDaemon(true);
+        initThread.start();
+    }
+
+    /**
+     * The initialization thread - wait for the NavX to connect and calibrate, then set the heading reference so
+     * the heading continues from whatever it was set to while the NavX was initializing.
+     */
+    private void waitForCalibration() {
+        long start = System.nanoTime();
+        while (!m_ahrs.isConnected() || m_ahrs.isCalibrating()) {
+            if ((m_state == State.INITIALIZING) && ((System.nanoTime() - start) * 1.0e-9 > INIT_TIMEOUT)) {
+                m_state = State.DEGRADED;
+                DriverStation.reportWarning("NavX not calibrated after " + INIT_TIMEOUT +
+                        " seconds, running without heading.", false);
+            }
             try {
-                Thread.sleep(100);
+                Thread.sleep(INIT_POLL_MS);
             } catch (InterruptedException e) {
-                break;
+                return;
             }
         }
-        m_updateCt = m_ahrs.getUpdateCount();
-        initializeHeadingAndNav();
+        synchronized (this) {
+            m_updateCt = m_ahrs.getUpdateCount();
+            initializeHeadingAndNav(m_heading.cloneAngleD());
+            m_state = State.READY;
+        }
+    }
+
+    /**
+     * The AHRS data callback, called on the NavX IO thread for every update from the NavX.
+     *
+     * @param systemTimestamp (long) The roboRIO time the update was received, in milliseconds - not used, the
+     *                        FPGA time is used so the samples share a timebase with the odometry.
+     * @param sensorTimestamp (long) The NavX time the update was measured, in milliseconds.
+     * @param sensorData      (AHRSProtocol.AHRSUpdateBase) The update.
+     * @param context         (Object) Not used.
+     */
+    private void yawReceived(long systemTimestamp, long sensorTimestamp, AHRSProtocol.AHRSUpdateBase sensorData,
+                             Object context) {
+        m_yawHistory.add(sensorData.yaw, sensorTimestamp * 0.001, Timer.getFPGATimestamp());
+    }
+
+    /**
+     * @return The newest continuous yaw in radians. If no update has arrived through the callback for
+     * {@link #STALE_SAMPLE_TIME}, the yaw is polled from the NavX.
+     */
+    private double getContinuousYaw() {
+        double now = Timer.getFPGATimestamp();
+        if (!(now - m_yawHistory.getNewestTime() < STALE_SAMPLE_TIME)) {
+            m_yawHistory.add(m_ahrs.getYaw(), m_ahrs.getLastSensorTimestamp() * 0.001, now);
+        }
+        return m_yawHistory.getNewestYaw();
+    }
+
+    /**
+     * @return The state of the NavX.
+     */
+    public State getState() {
+        return m_state;
+    }
+
+    /**
+     * @return Where the heading is currently coming from.
+     */
+    public HeadingSource getHeadingSource() {
+        return m_headingSource;
+    }
+
+    /**
+     * @return {@code true} if there is a heading (from the NavX, or carried forward by the wheels while the NavX
+     * is unhealthy), {@code false} if the NavX has never been ready and heading consumers should not use the
+     * heading.
+     */
+    public boolean isHeadingValid() {
+        return m_headingSource != HeadingSource.NONE;
+    }
+
+    /**
+     * @return {@code true} if the NavX is calibrated and the heading is being updated, {@code false} if the
+     * heading is not reliable.
+     */
+    public boolean isReady() {
+        return m_state == State.READY;
     }
 
     /**
@@ -99,16 +257,19 @@ public class NavX {
      *
      * @param heading (AngleConstantD) The current field heading of the robot.
      */
-    public void initializeHeadingAndNav(AngleConstantD heading) {
+    public synchronized void initializeHeadingAndNav(AngleConstantD heading) {
         // In the past we have always initialized with the front of the robot facing down field, so the
         // heading was 0.0 at initialization. In this case we are
         m_refPitch.setDegrees(m_ahrs.getPitch());
         m_refYaw.setDegrees(m_ahrs.getYaw());
         m_refRoll.setDegrees(m_ahrs.getRoll());
+        m_refContinuousYaw = getContinuousYaw();
+        m_refTime = m_yawHistory.getNewestTime();
+        m_lastYaw = m_refContinuousYaw;
         m_refHeading.setValue(heading);
-        m_headingRawLast.setValue(AngleD.ZERO);
+        m_heading.setValue(m_refHeading);
         m_expectedHeading.setValue(m_refHeading);
-        m_headingRevs = 0;
+        captureSnapshot();
     }
 
     /**
@@ -116,16 +277,20 @@ public class NavX {
      *
      * @param delta The change to the expected heading.
      */
-    public void incrementExpectedHeading(AngleD delta) {
+    public synchronized void incrementExpectedHeading(AngleD delta) {
         m_expectedHeading.add(delta);
-
+        // the snapshot has changed, so it is a new version, see captureSnapshot()
+        m_snapshot.m_version++;
+        m_snapshot.m_expectedHeading = m_expectedHeading.getRadians();
     }
 
     /**
      * Set the expected heading to the current heading.
      */
-    public void setExpectedHeadingToCurrent() {
+    public synchronized void setExpectedHeadingToCurrent() {
         m_expectedHeading.setValue(m_heading);
+        m_snapshot.m_version++;
+        m_snapshot.m_expectedHeading = m_expectedHeading.getRadians();
     }
 
     /**
@@ -143,32 +308,80 @@ public class NavX {
      *                             field-relative driving or autonomous when the program is setting a target
      *                             heading and the robot is the expected to move along, or turn towards, the
      *                             expected heading; or when robot-relative driving without any turn.
+     * @param odometryRotation     (double) The chassis rotation measured by the wheels since the last call, in
+     *                             radians, clockwise positive. Used to check the NavX, and as the heading change
+     *                             when the NavX is unhealthy.
      */
-    public void recomputeHeading(boolean setExpectedToCurrent) {
+    public synchronized void recomputeHeading(boolean setExpectedToCurrent, double odometryRotation) {
         m_setExpectedToCurrent = setExpectedToCurrent;
-        AngleD heading_raw = new AngleD(AngleUnit.DEGREES, m_ahrs.getYaw());
-        // This is the logic for detecting and correcting for the IMU discontinuity at +180degrees and -180degrees.
-        if (m_headingRawLast.isLessThan(AngleD.NEG_PI_OVER_2) && heading_raw.isGreaterThan(AngleD.ZERO)) {
-            // The previous raw IMU heading was negative and close to the discontinuity, and it is now positive. We
-            // have gone through the discontinuity so we decrement the heading revolutions by 1 (we completed a
-            // negative revolution). NOTE: the initial check protects from the case that the heading is near 0 and
-            // goes continuously through 0, which is not the completion of a revolution.
-            m_headingRevs--;
-        } else if (m_headingRawLast.isGreaterThan(AngleD.PI_OVER_2) && heading_raw.isLessThan(AngleD.ZERO)) {
-            // The previous raw IMU heading was positive and close to the discontinuity, and it is now negative. We
-            // have gone through the discontinuity so we increment the heading revolutions by 1 (we completed
-            // positive revolution). NOTE: the initial check protects from the case that the heading is near 0 and
-            // goes continuously through 0, which is not the completion of a revolution.
-            m_headingRevs++;
+        // If the NavX is not ready it is not reporting a meaningful yaw, hold the heading where it is.
+        if (m_state == State.READY) {
+            // The discontinuity at +180degrees and -180degrees is handled as each sample is added to the yaw
+            // history, so the continuous yaw already includes the spins.
+            double yaw = getContinuousYaw();
+            boolean healthy = m_health.update(Timer.getFPGATimestamp(), m_ahrs.getUpdateCount(),
+                    m_ahrs.isConnected(), yaw - m_lastYaw, odometryRotation);
+            m_lastYaw = yaw;
+            if (healthy) {
+                if (m_headingSource == HeadingSource.ODOMETRY) {
+                    // the NavX is back, restart the NavX heading from where the wheels carried the heading
+                    m_refContinuousYaw = yaw;
+                    m_refTime = m_yawHistory.getNewestTime();
+                    m_refHeading.setValue(m_heading);
+                }
+                m_heading.setRadians(yaw - m_refContinuousYaw).add(m_refHeading);
+                m_headingSource = HeadingSource.NAVX;
+            } else {
+                m_heading.setRadians(m_heading.getRadians() + odometryRotation);
+                m_headingSource = HeadingSource.ODOMETRY;
+            }
         }
-        m_headingRawLast.setValue(heading_raw);
-
-        m_heading.setRadians(m_headingRevs * AngleD.TWO_PI.getRadians())
-                .add(heading_raw).subtract(m_refYaw).add(m_refHeading);
 
         if (setExpectedToCurrent) {
             m_expectedHeading.setValue(m_heading);
         }
+        captureSnapshot();
+    }
+
+    /**
+     * Capture the NavX state for this cycle into {@link #m_snapshot}. This is the only place pitch, roll and the
+     * update count are read from the NavX.
+     */
+    private void captureSnapshot() {
+        Snapshot s = m_snapshot;
+        double updateCt = m_ahrs.getUpdateCount();
+        s.m_version++;
+        s.m_time = Timer.getFPGATimestamp();
+        s.m_updateCount = updateCt;
+        // there is a problem communicating with the NavX if it has not updated since it was initialized - the
+        // results we would get from NavX queries are unreliable. If the NavX has gone unhealthy since, the
+        // heading is still valid, but it is coming from the wheels.
+        s.m_valid = (m_state == State.READY) && (updateCt > m_updateCt) && isHeadingValid();
+        s.m_rawPitch = Math.toRadians(m_ahrs.getPitch());
+        s.m_rawRoll = Math.toRadians(m_ahrs.getRoll());
+        s.m_rawYaw = Math.toRadians(m_ahrs.getYaw());
+        s.m_pitch = s.m_rawPitch - m_refPitch.getRadians();
+        s.m_roll = s.m_rawRoll - m_refRoll.getRadians();
+        s.m_yaw = s.m_rawYaw - m_refYaw.getRadians();
+        s.m_rate = s.m_valid ? m_yawHistory.getNewestRate() : 0.0;
+        s.m_heading = m_heading.getRadians();
+        s.m_expectedHeading = m_expectedHeading.getRadians();
+        s.m_isExpectedTrackingCurrent = m_setExpectedToCurrent;
+    }
+
+    /**
+     * Copy the NavX state captured in the last {@link #recomputeHeading(boolean, double)} (which the drive odometry
+     * does every cycle) into a snapshot owned by the caller. Nothing is read from the NavX and nothing is allocated,
+     * so this is what code that runs every command cycle should use rather than {@link #getHeadingInfo()} or
+     * {@link #getNavInfo()}.
+     *
+     * @param snapshot (Snapshot, not null) The snapshot that will be set to the current NavX state.
+     * @return The version of the snapshot - this changes every time the state is recomputed, so a reader can
+     * tell if it has already seen this state.
+     */
+    public synchronized long readSnapshot(Snapshot snapshot) {
+        snapshot.set(m_snapshot);
+        return snapshot.m_version;
     }
 
     /**
@@ -176,43 +389,216 @@ public class NavX {
      *
      * @return A copy of the robot chassis heading.
      */
-    public AngleD getHeading() {
+    public synchronized AngleD getHeading() {
         return m_heading.cloneAngleD();
     }
 
     /**
-     * @return Returns the heading info, returns {@code null} if there is a problem with the NavX.
+     * Returns the robot chassis heading in radians. Use this rather than {@link #getHeading()} in code that
+     * runs every command cycle, it does not allocate a copy of the heading.
+     *
+     * @return The robot chassis heading in radians.
      */
-    public HeadingInfo getHeadingInfo() {
-        if (null == m_ahrs) {
-            return null;
+    public synchronized double getHeadingRadians() {
+        return m_heading.getRadians();
+    }
+
+    /**
+     * Returns the robot chassis heading at a time in the past, interpolated between the NavX samples. Use this
+     * to find the heading when a delayed measurement (like a camera frame) was made.
+     *
+     * @param time (double) The FPGA timestamp, in seconds.
+     * @return The robot chassis heading at {@code time} in radians. If the heading is not from the NavX, or the
+     * time is older than the yaw history or than the last time the heading was referenced, this is the current
+     * heading.
+     */
+    public synchronized double getHeadingRadiansAt(double time) {
+        double yaw = m_yawHistory.getYawAt(time);
+        if ((m_headingSource != HeadingSource.NAVX) || Double.isNaN(yaw) || (time < m_refTime)) {
+            return m_heading.getRadians();
         }
-        double updateCt = m_ahrs.getUpdateCount();
-        if (updateCt <= m_updateCt) {
-            // there is a problem communication with the NavX - the results we would get from NavX queries
-            // are unreliable.
+        return yaw - m_refContinuousYaw + m_refHeading.getRadians();
+    }
+
+    /**
+     * @return The rate the robot chassis is turning from the newest NavX sample, in radians/sec, clockwise
+     * positive. 0.0 if the NavX is not ready.
+     */
+    public double getHeadingRate() {
+        return (m_state == State.READY) ? m_yawHistory.getNewestRate() : 0.0;
+    }
+
+    /**
+     * @return Returns the heading info, returns {@code null} if there is a problem with the NavX or it is
+     * not ready.
+     */
+    public synchronized HeadingInfo getHeadingInfo() {
+        if (!m_snapshot.m_valid) {
             return null;
         }
-        return new HeadingInfo(m_heading, m_expectedHeading, m_setExpectedToCurrent);
+        return new HeadingInfo(new AngleD(AngleUnit.RADIANS, m_snapshot.m_heading),
+                new AngleD(AngleUnit.RADIANS, m_snapshot.m_expectedHeading), m_snapshot.m_isExpectedTrackingCurrent);
     }
 
     /**
-     * @return Returns the navigation info, returns {@code null} if there is a problem with the NavX.
+     * @return Returns the navigation info, returns {@code null} if there is a problem with the NavX or it is
+     * not ready.
      */
-    public NavInfo getNavInfo() {
-        if (null == m_ahrs) {
+    public synchronized NavInfo getNavInfo() {
+        if (!m_snapshot.m_valid) {
             return null;
         }
         // The subtraction of the ref values adjusts for the construction bias of not having the NavX perfectly
         // mounted, or there being some bias in the NavX - i.e. the ref represents the value first reported when
         // the reference position is set, see initializeHeadingAndNav().
         return new NavInfo(
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getPitch() - m_refPitch.getDegrees()),
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getYaw() - m_refYaw.getDegrees()),
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getRoll() - m_refRoll.getDegrees()),
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getPitch()),
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getYaw()),
-                new AngleConstantD(AngleUnit.DEGREES, m_ahrs.getRoll()));
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_pitch),
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_yaw),
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_roll),
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_rawPitch),
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_rawYaw),
+                new AngleConstantD(AngleUnit.RADIANS, m_snapshot.m_rawRoll));
+    }
+
+    /**
+     * The NavX state for one drive cycle, see {@link NavX#readSnapshot(Snapshot)}. Readers keep their own
+     * instance and refresh it once per cycle, so every consumer in that cycle sees the same values. All the
+     * angles are in radians.
+     */
+    public static class Snapshot {
+        private long m_version = 0;
+        private double m_time = 0.0;
+        private double m_updateCount = 0.0;
+        private boolean m_valid = false;
+        private double m_pitch = 0.0;
+        private double m_roll = 0.0;
+        private double m_yaw = 0.0;
+        private double m_rawPitch = 0.0;
+        private double m_rawRoll = 0.0;
+        private double m_rawYaw = 0.0;
+        private double m_rate = 0.0;
+        private double m_heading = 0.0;
+        private double m_expectedHeading = 0.0;
+        private boolean m_isExpectedTrackingCurrent = false;
+
+        private void set(Snapshot other) {
+            m_version = other.m_version;
+            m_time = other.m_time;
+            m_updateCount = other.m_updateCount;
+            m_valid = other.m_valid;
+            m_pitch = other.m_pitch;
+            m_roll = other.m_roll;
+            m_yaw = other.m_yaw;
+            m_rawPitch = other.m_rawPitch;
+            m_rawRoll = other.m_rawRoll;
+            m_rawYaw = other.m_rawYaw;
+            m_rate = other.m_rate;
+            m_heading = other.m_heading;
+            m_expectedHeading = other.m_expectedHeading;
+            m_isExpectedTrackingCurrent = other.m_isExpectedTrackingCurrent;
+        }
+
+        /**
+         * @return The version of this snapshot, incremented every time the NavX state is recomputed.
+         */
+        public long getVersion() {
+            return m_version;
+        }
+
+        /**
+         * @return The FPGA timestamp when this snapshot was captured, in seconds.
+         */
+        public double getTime() {
+            return m_time;
+        }
+
+        /**
+         * @return The NavX update count when this snapshot was captured.
+         */
+        public double getUpdateCount() {
+            return m_updateCount;
+        }
+
+        /**
+         * @return {@code true} if the NavX is ready and updating and the heading is valid (though it may be
+         * carried forward by the wheels, see {@link NavX#getHeadingSource()}), {@code false} if the values in
+         * this snapshot should not be trusted (this is when {@link NavX#getHeadingInfo()} would return
+         * {@code null}).
+         */
+        public boolean isValid() {
+            return m_valid;
+        }
+
+        /**
+         * @return The pitch since the NavX was initialized, negative is leaning forward.
+         */
+        public double getPitch() {
+            return m_pitch;
+        }
+
+        /**
+         * @return The roll since the NavX was initialized, positive is leaning to the left.
+         */
+        public double getRoll() {
+            return m_roll;
+        }
+
+        /**
+         * @return The yaw since the NavX was initialized, clockwise positive, not including spins.
+         */
+        public double getYaw() {
+            return m_yaw;
+        }
+
+        public double getRawPitch() {
+            return m_rawPitch;
+        }
+
+        public double getRawRoll() {
+            return m_rawRoll;
+        }
+
+        public double getRawYaw() {
+            return m_rawYaw;
+        }
+
+        /**
+         * @return The rate the robot is turning, in radians/sec, clockwise positive.
+         */
+        public double getRate() {
+            return m_rate;
+        }
+
+        /**
+         * @return The robot chassis heading, including spins.
+         */
+        public double getHeading() {
+            return m_heading;
+        }
+
+        /**
+         * @return The heading we are trying to track with the robot.
+         */
+        public double getExpectedHeading() {
+            return m_expectedHeading;
+        }
+
+        public boolean isExpectedTrackingCurrent() {
+            return m_isExpectedTrackingCurrent;
+        }
+    }
+
+    /**
+     * Report the NavX health to the dashboard.
+     */
+    public synchronized void printHealth() {
+        SmartDashboard.putString("NavX state", m_state.name());
+        SmartDashboard.putString("heading source", m_headingSource.name());
+        SmartDashboard.putNumber("NavX sample age", m_health.getSampleAge());
+        SmartDashboard.putNumber("NavX update rate", m_health.getUpdateRate());
+        SmartDashboard.putNumber("NavX stale", m_health.getStaleCount());
+        SmartDashboard.putNumber("NavX jumps", m_health.getJumpCount());
+        SmartDashboard.putNumber("NavX fallbacks", m_health.getFallbackCount());
     }
 
     public static class HeadingInfo {
@@ -69,6 +69,15 @@ public class Robot extends A05Robot
         limelightSubsystem.printCanShootBool();
         limelightSubsystem.printShooterPowers();
         limelightSubsystem.printLimelightBump();
+
+        // NavX health and heading source
+        NavX.getInstance().printHealth();
+
+        // flywheel spin-up, shot and recovery statistics
+        ShooterSubsystem.getInstance().printShotAnalytics();
+
+        // Spark Max CAN setpoint frames, and Talon set() calls, sent vs. suppressed as redundant
+        SetpointCache.printStatistics();
     }
     
     
@@ -44,6 +44,7 @@ public class RobotContainer
     CollectorHoldCommand m_collectorCommand;
     FeederCommand m_feederCommand;
     LiftStickCommand m_liftStickCommand;
+    ShooterPrespinCommand m_shooterPrespinCommand;
     AutonomousPathCommand m_autoCommand;
 
     // declare NavX, used for resetting initial heading
@@ -81,12 +82,14 @@ public class RobotContainer
         m_collectorCommand = new CollectorHoldCommand(m_xboxRightBumper, m_xboxStart);
         m_feederCommand = new FeederCommand(m_xboxLeftStickPress, m_xboxRightStickPress);
         m_liftStickCommand = new LiftStickCommand(m_hangXbox); // uses both sticks
+        m_shooterPrespinCommand = new ShooterPrespinCommand(); // flywheels ready before a shooting command
 
         // set default commands
         m_driveSubsystem.setDefaultCommand(m_driveCommand);
         m_collectorSubsystem.setDefaultCommand(m_collectorCommand);
         m_feederSubsystem.setDefaultCommand(m_feederCommand);
         m_liftSubsystem.setDefaultCommand(m_liftStickCommand);
+        m_shooterSubsystem.setDefaultCommand(m_shooterPrespinCommand);
 
         // autonomous
         Constants.AutonomousPath.setAutonomousToId(Constants.readAutoID());
@@ -97,6 +100,9 @@ public class RobotContainer
                     m_collectorSubsystem, m_feederSubsystem, m_liftSubsystem);
         }
 
+        // flywheel characterization, run from the dashboard in the pit, not during a match
+        SmartDashboard.putData("characterize shooter", new ShooterCharacterizeCommand());
+
         // Configure the button bindings
         configureButtonBindings();
     }
@@ -117,7 +123,7 @@ public class RobotContainer
 
         // Other bindings for the drive controller
         m_xboxX.whenPressed(new CollectorJerkCommand());
-        m_xboxBack.whenPressed(new InstantCommand(m_navx::initializeHeadingAndNav)); // Reset the NavX field relativity
+        m_xboxBack.whenPressed(new InstantCommand(m_driveSubsystem::resetHeading)); // Reset the field relativity
 
         // Limelight bump controls
         m_hangY.whenPressed(new InstantCommand(m_limelightSubsystem::bumpUpLimelight));
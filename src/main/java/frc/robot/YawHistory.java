@@ -0,0 +1,156 @@
+package frc.robot;
+
+/**
+ * A fixed capacity history of timestamped NavX yaw samples. The NavX reports yaw in the range -180 to +180
+ * degrees; every sample added here is unwrapped into a continuous yaw (it includes the spins, so it goes from
+ * -infinity to infinity) by comparing it to the previous sample. Samples are added at the NavX update rate
+ * (by the AHRS data callback), so a crossing of the +-180 degree discontinuity is never missed because the
+ * robot code was slow to ask for the heading.
+ * <p>
+ * The samples are kept in parallel primitive arrays used as a ring buffer, so neither adding a sample nor
+ * looking one up allocates. See {@link frc.robot.subsystems.PoseHistory}, which this mirrors.
+ * <p>
+ * Samples are added by the NavX IO thread and read by the odometry and command threads, so the methods are
+ * {@code synchronized}.
+ */
+public class YawHistory {
+
+    private final int m_mask;
+
+    // the samples, indexed by the ring buffer position
+    private final double[] m_time;
+    private final double[] m_yaw;
+    private final double[] m_rate;
+
+    // the position the next sample is written to, and the number of samples in the history
+    private int m_next = 0;
+    private int m_count = 0;
+
+    // the last raw sample, for unwrapping and the rate
+    private double m_lastRawYaw = 0.0;
+    private double m_lastSensorTime = 0.0;
+
+    /**
+     * Instantiate a yaw history.
+     *
+     * @param capacity (int) The number of samples kept. This is rounded up to a power of 2.
+     */
+    public YawHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        m_mask = size - 1;
+        m_time = new double[size];
+        m_yaw = new double[size];
+        m_rate = new double[size];
+    }
+
+    /**
+     * @return The number of samples this history can hold.
+     */
+    public int getCapacity() {
+        return m_mask + 1;
+    }
+
+    /**
+     * @return The number of samples currently in the history.
+     */
+    public synchronized int size() {
+        return m_count;
+    }
+
+    /**
+     * Add a NavX yaw sample. A sample that is not newer than the last sample added is ignored.
+     *
+     * @param rawYawDegrees (double) The yaw reported by the NavX, -180 to +180 degrees, clockwise positive.
+     * @param sensorTime    (double) The NavX timestamp of the sample, in seconds. Only differences between
+     *                      sensor timestamps are used, to compute the yaw rate.
+     * @param time          (double) The FPGA timestamp of the sample, in seconds.
+     */
+    public synchronized void add(double rawYawDegrees, double sensorTime, double time) {
+        if (m_count == 0) {
+            m_time[m_next] = time;
+            m_yaw[m_next] = Math.toRadians(rawYawDegrees);
+            m_rate[m_next] = 0.0;
+        } else {
+            int last = (m_next - 1) & m_mask;
+            if (time <= m_time[last]) {
+                return;
+            }
+            // the change since the last sample is the short way around, which is right as long as the robot
+            // turns less than 180 degrees between samples
+            double deltaYaw = Math.toRadians(Math.IEEEremainder(rawYawDegrees - m_lastRawYaw, 360.0));
+            double deltaSensorTime = sensorTime - m_lastSensorTime;
+            m_time[m_next] = time;
+            m_yaw[m_next] = m_yaw[last] + deltaYaw;
+            m_rate[m_next] = (deltaSensorTime > 0.0) ? deltaYaw / deltaSensorTime : m_rate[last];
+        }
+        m_lastRawYaw = rawYawDegrees;
+        m_lastSensorTime = sensorTime;
+        m_next = (m_next + 1) & m_mask;
+        if (m_count <= m_mask) {
+            m_count++;
+        }
+    }
+
+    /**
+     * @return The newest continuous yaw in radians, clockwise positive. 0.0 if the history is empty.
+     */
+    public synchronized double getNewestYaw() {
+        return (m_count == 0) ? 0.0 : m_yaw[(m_next - 1) & m_mask];
+    }
+
+    /**
+     * @return The newest yaw rate in radians/sec, clockwise positive. 0.0 if the history is empty.
+     */
+    public synchronized double getNewestRate() {
+        return (m_count == 0) ? 0.0 : m_rate[(m_next - 1) & m_mask];
+    }
+
+    /**
+     * @return The FPGA timestamp of the newest sample in seconds, {@link Double#NaN} if the history is empty.
+     */
+    public synchronized double getNewestTime() {
+        return (m_count == 0) ? Double.NaN : m_time[(m_next - 1) & m_mask];
+    }
+
+    /**
+     * Get the continuous yaw at a time in the past, interpolated between the samples in the history. If the
+     * time is newer than the newest sample, the newest yaw is returned.
+     *
+     * @param time (double) The FPGA timestamp, in seconds.
+     * @return The continuous yaw in radians, {@link Double#NaN} if the history is empty or {@code time} is
+     * older than the oldest sample in the history.
+     */
+    public synchronized double getYawAt(double time) {
+        if ((m_count == 0) || (time < m_time[index(0)])) {
+            return Double.NaN;
+        }
+        int newest = index(m_count - 1);
+        if (time >= m_time[newest]) {
+            return m_yaw[newest];
+        }
+        // binary search for the last sample at or before the time, there is always one after it because
+        // time is older than the newest sample.
+        int low = 0;
+        int high = m_count - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (m_time[index(mid)] <= time) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        int before = index(low);
+        int after = index(high);
+        double f = (time - m_time[before]) / (m_time[after] - m_time[before]);
+        return m_yaw[before] + ((m_yaw[after] - m_yaw[before]) * f);
+    }
+
+    /**
+     * @param age (int) The position in the history, 0 is the oldest sample.
+     * @return The ring buffer index of that position.
+     */
+    private int index(int age) {
+        return (m_next - m_count + age) & m_mask;
+    }
+}
@@ -7,6 +7,7 @@ import edu.wpi.first.wpilibj2.command.Subsystem;
 import frc.robot.Constants;
 import frc.robot.NavX;
 import frc.robot.subsystems.ISwerveDrive;
+import org.a05annex.util.AngleD;
 import org.a05annex.util.geo2d.KochanekBartelsSpline;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,6 +35,11 @@ public class AutonomousPathCommand extends CommandBase {
     private long stopAndRunStartTime = 0;
     protected long stopAndRunDuration = 0;
     private Command stopAndRunCommand = null;
+    // After a stop-and-run the modules are pointed for the next path point in the following command cycle, and
+    // the path does not resume until they are aligned. The path time does not run while aligning.
+    private boolean prepareOnNextCycle = false;
+    private boolean aligning = false;
+    private long alignStartTime = 0;
 
     /**
      * Instantiate the {@code AutonomousPathCommand}.
@@ -56,27 +62,31 @@ public class AutonomousPathCommand extends CommandBase {
     public void initialize() {
         pathFollower = spline.getPathFollower();
         startTime = System.currentTimeMillis();
+        stopAndRunDuration = 0;
+        prepareOnNextCycle = false;
+        aligning = false;
         isFinished = false;
         initializeRobotForPath();
     }
     /**
      * Initialize the robot to run this path. This initialization consists specifically of
      * <ul>
-     * <li>making sure the NavX is aware of robot heading prior to starting along the path</li>
+     * <li>making sure the drive (and the NavX) know the robot position and heading prior to starting along
+     * the path</li>
      * <li>assuring The serve modules are rotated to the correct orientation for the first
      * expected Forward, strafe, and rotate components that will be set for the path (eliminating
-     * drift while the robot is trying to get all the modules to the correct orientation.</li>
+     * drift while the robot is trying to get all the modules to the correct orientation. This is started
+     * here, and {@link #execute()} holds the start of the path until the modules are aligned.</li>
      * </ul>
      */
     public void initializeRobotForPath() {
         pathPoint = pathFollower.getPointAt(0.0);
         if (pathPoint != null) {
-            NavX.getInstance().initializeHeadingAndNav(pathPoint.fieldHeading);
-            double forward = pathPoint.speedForward / Constants.MAX_METERS_PER_SEC;
-            double strafe = pathPoint.speedStrafe / Constants.MAX_METERS_PER_SEC;
-            double rotation = (pathPoint.speedRotation / Constants.MAX_RADIANS_PER_SEC);
-            swerveDrive.prepareForDriveComponents(forward, strafe, rotation);
+            swerveDrive.setFieldPosition(pathPoint.fieldPt.getX(), pathPoint.fieldPt.getY(),
+                    new AngleD(pathPoint.fieldHeading));
+            prepareForPathPoint();
             startTime = System.currentTimeMillis();
+            alignStartTime = startTime;
             if ((null != pathPoint.action) && (null != pathPoint.action.command) &&
                     (KochanekBartelsSpline.RobotActionType.STOP_AND_RUN_COMMAND == pathPoint.action.actionType)) {
                 if (null != (stopAndRunCommand = instantiateActionCommand(pathPoint.action.command))) {
@@ -89,6 +99,17 @@ public class AutonomousPathCommand extends CommandBase {
 
     }
 
+    /**
+     * Orient the modules for the current path point, and start waiting for them to align.
+     */
+    private void prepareForPathPoint() {
+        double forward = pathPoint.speedForward / Constants.MAX_METERS_PER_SEC;
+        double strafe = pathPoint.speedStrafe / Constants.MAX_METERS_PER_SEC;
+        double rotation = (pathPoint.speedRotation / Constants.MAX_RADIANS_PER_SEC);
+        swerveDrive.prepareForDriveComponents(forward, strafe, rotation);
+        aligning = true;
+    }
+
     /**
      * Instantiate the action command.
      * @param commandClassName The command class name, assumed to be in the {@code frc.robot.commands}
@@ -124,7 +145,22 @@ public class AutonomousPathCommand extends CommandBase {
             // There is an active stop-and-run command. Take the next stepbbin that command.
             stopAndRunCommand.execute();
 
+        } else if (prepareOnNextCycle) {
+            // The heading was set when the stop-and-run finished last command cycle, now orient the modules
+            // for the path.
+            prepareOnNextCycle = false;
+            prepareForPathPoint();
+
+        } else if (aligning && !swerveDrive.isAligned()) {
+            // The modules are still turning to the path directions - nothing to do but wait for them.
+            return;
+
         } else {
+            if (aligning) {
+                // the modules are aligned, the time spent aligning is not path time.
+                aligning = false;
+                stopAndRunDuration += System.currentTimeMillis() - alignStartTime;
+            }
             // get the path time: path time is a time along the path as though there were no stop-and-run
             // commands. The duration of any stop-and-run commands is tracked and subtracted to get the
             // actual path time.
@@ -169,11 +205,23 @@ public class AutonomousPathCommand extends CommandBase {
                 // speeds are not in the right direction. So here we have a heading PID error correction to
                 //try and keep us on path.
 //                double errorRotation = 0.0;  // when calibrating rotation rate.
-                double errorRotation = (lastPathPoint.fieldHeading.getRadians() -
-                        NavX.getInstance().getHeading().getRadians()) * Constants.DRIVE_ORIENTATION_kP;
+                // If there is no heading it is not being updated, so there is no heading correction.
+                NavX navx = NavX.getInstance();
+                double errorRotation = navx.isHeadingValid() ? (lastPathPoint.fieldHeading.getRadians() -
+                        navx.getHeadingRadians()) * Constants.DRIVE_ORIENTATION_kP : 0.0;
                 double rotation = (pathPoint.speedRotation / Constants.MAX_RADIANS_PER_SEC) + errorRotation;
+                // Similarly, the path speeds do nothing to correct for where the robot actually is, so here we
+                // have a position error correction that moves the robot towards the path position. The field
+                // error is rotated to the robot to get the forward and strafe corrections.
+                double heading = navx.getHeadingRadians();
+                double sinHeading = Math.sin(heading);
+                double cosHeading = Math.cos(heading);
+                double errorX = (pathPoint.fieldPt.getX() - swerveDrive.getFieldX()) * Constants.DRIVE_POSITION_kP;
+                double errorY = (pathPoint.fieldPt.getY() - swerveDrive.getFieldY()) * Constants.DRIVE_POSITION_kP;
+                forward += ((errorX * sinHeading) + (errorY * cosHeading)) / Constants.MAX_METERS_PER_SEC;
+                strafe += ((errorX * cosHeading) - (errorY * sinHeading)) / Constants.MAX_METERS_PER_SEC;
                 swerveDrive.swerveDriveComponents(forward, strafe, rotation);
-                NavX.getInstance().setExpectedHeadingToCurrent();
+                navx.setExpectedHeadingToCurrent();
 
                 lastPathPoint = pathPoint;
             }
@@ -208,17 +256,13 @@ public class AutonomousPathCommand extends CommandBase {
                 stopAndRunCommand = null;
                 stopAndRunStartTime = 0;
                 // I'm going to assume that if we stop to do something it may involve rotation to aim
-                // for shooting, but, probably does not involve any translation.
+                // for shooting, but, probably does not involve any translation. The modules are oriented for
+                // the path in the next command cycle, and the path resumes when they are aligned - so the
+                // scheduler thread never sleeps waiting for them.
                 swerveDrive.setHeading(pathPoint.fieldHeading);
-                try {
-                    Thread.sleep(15);
-                    double forward = pathPoint.speedForward / Constants.MAX_METERS_PER_SEC;
-                    double strafe = pathPoint.speedStrafe / Constants.MAX_METERS_PER_SEC;
-                    double rotation = (pathPoint.speedRotation / Constants.MAX_RADIANS_PER_SEC);
-                    swerveDrive.prepareForDriveComponents(forward, strafe, rotation);
-                } catch (InterruptedException e) {
-                    return isFinished;
-                }
+                prepareOnNextCycle = true;
+                aligning = false;
+                alignStartTime = now;
             }
         }
         return isFinished;
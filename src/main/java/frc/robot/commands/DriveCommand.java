@@ -8,7 +8,6 @@ import frc.robot.NavX;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.LimelightSubsystem;
 import org.a05annex.util.AngleD;
-import org.a05annex.util.AngleUnit;
 import org.a05annex.util.Utl;
 
 
@@ -25,6 +24,11 @@ public class DriveCommand extends CommandBase {
     private double m_lastStickY = 0.0;
     private double m_lastStickRotate = 0.0;
 
+    // the field direction of the stick, preallocated because it is recomputed every command cycle
+    private final AngleD m_direction = new AngleD(AngleD.ZERO);
+    // the NavX state for this command cycle, preallocated for the same reason
+    private final NavX.Snapshot m_navxSnapshot = new NavX.Snapshot();
+
     // maximum change in joystick value per 20ms for speed and rotation
     public static double DRIVE_MAX_SPEED_INC = 0.075;
     public static double DRIVE_MAX_ROTATE_INC = 0.075;
@@ -118,12 +122,11 @@ public class DriveCommand extends CommandBase {
             // using the limelight targeting
             if (speed == 0) {
                 // not moving, just setHeading and return
-                m_driveSubsystem.setHeading(m_driveSubsystem.getFieldHeading().add(
-                        m_limelightSubsystem.getTargetError()));
+                m_driveSubsystem.setHeading(m_limelightSubsystem.getTargetHeadingRadians());
                 return;
             } else {
                 // moving, PID to target
-                rotation = m_limelightSubsystem.getTargetError().getRadians() * Constants.TARGET_kP;
+                rotation = m_limelightSubsystem.getTargetErrorRadians() * Constants.TARGET_kP;
             }
         } else {
             // not targeting, use driver rotation
@@ -133,10 +136,10 @@ public class DriveCommand extends CommandBase {
             // are we rotating?
             if (stickRotate < ROTATE_DEADBAND) {
                 // no rotate, keep current heading or 0 if no NavX
-                NavX.HeadingInfo headingInfo = m_navx.getHeadingInfo();
-                if (headingInfo != null) {
-                    rotation = new AngleD(headingInfo.expectedHeading).subtract(new AngleD(headingInfo.heading))
-                            .getRadians() * Constants.DRIVE_ORIENTATION_kP;
+                m_navx.readSnapshot(m_navxSnapshot);
+                if (m_navxSnapshot.isValid()) {
+                    rotation = (m_navxSnapshot.getExpectedHeading() - m_navxSnapshot.getHeading())
+                            * Constants.DRIVE_ORIENTATION_kP;
                     // clip and add speed multiplier
                     rotation = Utl.clip(rotation, -0.5, 0.5) * speed;
                 } else {
@@ -155,9 +158,9 @@ public class DriveCommand extends CommandBase {
         }
 
         // find direction, if speed is close to 0 rotation will be zeroed
-        AngleD direction = new AngleD(AngleUnit.RADIANS, Math.atan2(stickX, stickY));
+        m_direction.atan2(stickX, stickY);
 
-        m_driveSubsystem.swerveDriveFieldRelative(direction, speed, rotation);
+        m_driveSubsystem.swerveDriveFieldRelative(m_direction, speed, rotation);
     }
 
     @Override
@@ -11,6 +11,10 @@ public class LiftStickCommand extends CommandBase {
     private final XboxController m_xbox;
     private final double HANG_DEADBAND = 0.05;
 
+    // the positions to hold the hangers at when the sticks are in neutral, NaN when the stick is being used
+    private double m_leftHoldPosition = Double.NaN;
+    private double m_rightHoldPosition = Double.NaN;
+
     /**
      * Default command for LiftSubsystem. Right stick controls the right hanger, and left stick controls the
      * left hanger. Runs using percent power. If stick is in neutral position, uses PID to hold the hanger at the
@@ -27,6 +31,8 @@ public class LiftStickCommand extends CommandBase {
     @Override
     public void initialize() {
         m_liftSubsystem.zeroEncoders();
+        m_leftHoldPosition = Double.NaN;
+        m_rightHoldPosition = Double.NaN;
     }
 
     @Override
@@ -34,15 +40,25 @@ public class LiftStickCommand extends CommandBase {
         double xboxRight = -m_xbox.getRightY();
         double xboxLeft = -m_xbox.getLeftY();
 
+        // When a stick returns to neutral, remember where the hanger is and hold it there. Re-reading the
+        // position every cycle would just chase the hanger as it sags, and send a new setpoint every cycle.
         if (xboxRight > -HANG_DEADBAND && xboxRight < HANG_DEADBAND) {
-            m_liftSubsystem.setRightPosition(m_liftSubsystem.getRightPosition());
+            if (Double.isNaN(m_rightHoldPosition)) {
+                m_rightHoldPosition = m_liftSubsystem.getRightPosition();
+            }
+            m_liftSubsystem.setRightPosition(m_rightHoldPosition);
         } else {
+            m_rightHoldPosition = Double.NaN;
             m_liftSubsystem.setRightPower(xboxRight);
         }
 
         if (xboxLeft > -HANG_DEADBAND && xboxLeft < HANG_DEADBAND) {
-            m_liftSubsystem.setLeftPosition(m_liftSubsystem.getLeftPosition());
+            if (Double.isNaN(m_leftHoldPosition)) {
+                m_leftHoldPosition = m_liftSubsystem.getLeftPosition();
+            }
+            m_liftSubsystem.setLeftPosition(m_leftHoldPosition);
         } else {
+            m_leftHoldPosition = Double.NaN;
             m_liftSubsystem.setLeftPower(xboxLeft);
         }
     }
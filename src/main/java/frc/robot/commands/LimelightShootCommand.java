@@ -2,7 +2,6 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants;
-import frc.robot.Constants.LimelightCalibrationPoint;
 import frc.robot.subsystems.FeederSubsystem;
 import frc.robot.subsystems.LimelightSubsystem;
 import frc.robot.subsystems.ShooterSubsystem;
@@ -13,11 +12,20 @@ public class LimelightShootCommand extends CommandBase {
     private final FeederSubsystem m_feederSubsystem = FeederSubsystem.getInstance();
     private final LimelightSubsystem m_limelightSubsystem = LimelightSubsystem.getInstance();
     private int m_cyclesElapsed = 0;
-    private LimelightCalibrationPoint m_shooterSpeeds = null;
+    // the shooter speeds, updated every cycle the limelight can shoot so they follow the robot if it is moving
+    private double m_frontSpeed = 0.0;
+    private double m_rearSpeed = 0.0;
+    // feeding starts when the flywheels are ready, the command is done when the flywheel velocity dip shows the
+    // ball has been shot
+    private boolean m_feeding = false;
+    private int m_startShotCount = 0;
     private boolean m_done = false;
 
     /**
      * Shoots one ball at speed given by the Limelight. If no target or outside shootable range, does not run.
+     * The ball is fed as soon as the flywheels are up to speed (or after {@link ShooterSubsystem#REV_CYCLES} if
+     * they never are), and the command ends when the ball has been shot (or after
+     * {@link ShooterSubsystem#WAIT_CYCLES} if the shot is not detected).
      */
     public LimelightShootCommand() {
         // each subsystem used by the command must be passed into the
@@ -29,9 +37,10 @@ public class LimelightShootCommand extends CommandBase {
     @Override
     public void initialize() {
         m_cyclesElapsed = 0;
+        m_feeding = false;
+        m_startShotCount = m_shooterSubsystem.getShotCount();
         m_done = false;
-        m_shooterSpeeds = m_limelightSubsystem.getShooterSpeeds();
-        if (m_shooterSpeeds == null) {
+        if (m_limelightSubsystem.canShoot() != LimelightSubsystem.CAN_SHOOT.YES) {
             m_done = true;
         }
     }
@@ -39,15 +48,27 @@ public class LimelightShootCommand extends CommandBase {
     @Override
     public void execute() {
         if (!m_done) {
-            // set shooter speeds
-            m_shooterSubsystem.setFrontShooter(m_shooterSpeeds.frontSpeed);
-            m_shooterSubsystem.setRearShooter(m_shooterSpeeds.rearSpeed);
+            // set shooter speeds, keep the last speeds if the target is lost
+            if (m_limelightSubsystem.canShoot() == LimelightSubsystem.CAN_SHOOT.YES) {
+                m_frontSpeed = m_limelightSubsystem.getFrontShooterSpeed();
+                m_rearSpeed = m_limelightSubsystem.getRearShooterSpeed();
+            }
+            m_shooterSubsystem.setFrontShooter(m_frontSpeed);
+            m_shooterSubsystem.setRearShooter(m_rearSpeed);
 
             // wait for shooter to rev up
-            if (m_cyclesElapsed >= ShooterSubsystem.REV_CYCLES) {
+            if (!m_feeding && (m_shooterSubsystem.isReady() || (m_cyclesElapsed >= ShooterSubsystem.REV_CYCLES))) {
+                m_feeding = true;
+            }
+            if (m_feeding) {
                 m_feederSubsystem.setPower(FeederSubsystem.FEEDER_POWER);
             }
 
+            // done when the ball has gone through the flywheels
+            if (m_shooterSubsystem.getShotCount() > m_startShotCount) {
+                m_done = true;
+            }
+
             m_cyclesElapsed++;
         }
     }
@@ -59,8 +80,8 @@ public class LimelightShootCommand extends CommandBase {
 
     @Override
     public void end(boolean interrupted) {
-        m_shooterSubsystem.setFrontShooter(0.0);
-        m_shooterSubsystem.setRearShooter(0.0);
+        // the flywheels are left spinning, the shooter default command (ShooterPrespinCommand) decides whether
+        // to keep them spinning
         m_feederSubsystem.setPower(0.0);
     }
 }
@@ -0,0 +1,92 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.FlywheelModel;
+import frc.robot.subsystems.ShooterSubsystem;
+
+
+public class ShooterCharacterizeCommand extends CommandBase {
+    private final ShooterSubsystem m_shooterSubsystem = ShooterSubsystem.getInstance();
+
+    // the voltage sweep, each voltage is held for STEP_TIME so the flywheels accelerate and then settle, and only
+    // the samples after SETTLE_TIME into each step are fitted
+    private static final double[] STEP_VOLTAGES = {2.0, 4.0, 6.0, 8.0, 10.0};
+    private static final double STEP_TIME = 2.0; // seconds
+    private static final double SETTLE_TIME = 1.0; // seconds
+    private static final int MAX_SAMPLES = 300; // 50 samples a second for 5 settled seconds, plus some spare
+
+    // the samples, preallocated - velocity is signed like the setpoint, so it is the negative of the encoder
+    private final double[] m_frontVoltage = new double[MAX_SAMPLES];
+    private final double[] m_frontVelocity = new double[MAX_SAMPLES];
+    private final double[] m_rearVoltage = new double[MAX_SAMPLES];
+    private final double[] m_rearVelocity = new double[MAX_SAMPLES];
+    private int m_count = 0;
+    private double m_startTime = 0.0;
+    private int m_step = 0;
+    private double m_voltage = 0.0;
+
+    /**
+     * Characterize the shooter flywheels - step both flywheels through a voltage sweep, fit a
+     * {@link FlywheelModel} to each, and save the models so the flywheel velocity control uses them. The front
+     * flywheel gets the positive voltages, and the rear flywheel the negative voltages, the shooting directions.
+     * The models are fitted to the settled speed at each voltage, and only if the sweep runs to completion.
+     */
+    public ShooterCharacterizeCommand() {
+        // each subsystem used by the command must be passed into the
+        // addRequirements() method (which takes a vararg of Subsystem)
+        addRequirements(m_shooterSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        m_count = 0;
+        m_step = 0;
+        m_voltage = 0.0;
+        m_startTime = Timer.getFPGATimestamp();
+    }
+
+    @Override
+    public void execute() {
+        double elapsed = Timer.getFPGATimestamp() - m_startTime;
+        m_step = (int) (elapsed / STEP_TIME);
+        if (isFinished()) {
+            return;
+        }
+        if ((elapsed - (m_step * STEP_TIME) >= SETTLE_TIME) && (m_count < MAX_SAMPLES)) {
+            // the velocities measured this cycle are from the voltage set last cycle, which is this step's
+            m_frontVoltage[m_count] = m_voltage;
+            m_frontVelocity[m_count] = -m_shooterSubsystem.getFrontShooterVelocity();
+            m_rearVoltage[m_count] = -m_voltage;
+            m_rearVelocity[m_count] = -m_shooterSubsystem.getRearShooterVelocity();
+            m_count++;
+        }
+        m_voltage = STEP_VOLTAGES[m_step];
+        m_shooterSubsystem.setShooterVoltage(m_voltage, -m_voltage);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return m_step >= STEP_VOLTAGES.length;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        m_shooterSubsystem.setFrontShooter(0.0);
+        m_shooterSubsystem.setRearShooter(0.0);
+        if (interrupted) {
+            return;
+        }
+        try {
+            FlywheelModel front = FlywheelModel.fit(m_frontVoltage, m_frontVelocity, m_count);
+            FlywheelModel rear = FlywheelModel.fit(m_rearVoltage, m_rearVelocity, m_count);
+            m_shooterSubsystem.setFlywheelModels(front, rear);
+            SmartDashboard.putNumberArray("front flywheel kS kV", new double[] {front.getKS(), front.getKV()});
+            SmartDashboard.putNumberArray("rear flywheel kS kV", new double[] {rear.getKS(), rear.getKV()});
+        } catch (IllegalArgumentException e) {
+            DriverStation.reportWarning("Flywheel characterization failed: " + e.getMessage(), false);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.CollectorSubsystem;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.LimelightSubsystem;
+import frc.robot.subsystems.ShooterPrespin;
+import frc.robot.subsystems.ShooterSubsystem;
+import org.a05annex.util.Utl;
+
+
+public class ShooterPrespinCommand extends CommandBase {
+    private final ShooterSubsystem m_shooterSubsystem = ShooterSubsystem.getInstance();
+    private final CollectorSubsystem m_collectorSubsystem = CollectorSubsystem.getInstance();
+    private final DriveSubsystem m_driveSubsystem = DriveSubsystem.getInstance();
+    private final LimelightSubsystem m_limelightSubsystem = LimelightSubsystem.getInstance();
+
+    // the pre-spin decision, see ShooterPrespin
+    private final ShooterPrespin m_prespin = new ShooterPrespin();
+
+    /**
+     * Default command for ShooterSubsystem. Keeps the flywheels spinning while the robot is holding cargo and is
+     * in the shooting zone, so a shooting command starts with the flywheels at, or near, speed instead of
+     * stopped. See {@link ShooterPrespin} for when and how fast the flywheels are spun.
+     */
+    public ShooterPrespinCommand() {
+        // each subsystem used by the command must be passed into the
+        // addRequirements() method (which takes a vararg of Subsystem)
+        addRequirements(m_shooterSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        m_prespin.start(m_shooterSubsystem.getShotCount());
+    }
+
+    @Override
+    public void execute() {
+        // a shooting command is not running (it would have the shooter), so the collector running in the collect
+        // direction is collecting
+        boolean collecting = m_collectorSubsystem.getPower() * CollectorSubsystem.COLLECTOR_POWER > 0.0;
+        LimelightSubsystem.CAN_SHOOT limelight = m_limelightSubsystem.canShoot();
+        boolean targetSeen = (limelight != LimelightSubsystem.CAN_SHOOT.NO_TARGET) &&
+                (limelight != LimelightSubsystem.CAN_SHOOT.NO_LIMELIGHT);
+        double hubDistance = ShooterPrespin.hubDistance(m_driveSubsystem.isFieldPositionKnown(),
+                Utl.length(m_driveSubsystem.getFieldX() - Constants.HUB_X,
+                        m_driveSubsystem.getFieldY() - Constants.HUB_Y),
+                targetSeen, m_limelightSubsystem.distanceToTarget());
+        boolean canShoot = limelight == LimelightSubsystem.CAN_SHOOT.YES;
+
+        double frontSpeed = 0.0;
+        double rearSpeed = 0.0;
+        switch (m_prespin.update(collecting, m_shooterSubsystem.getShotCount(), hubDistance,
+                RobotController.getBatteryVoltage(), canShoot)) {
+            case LIMELIGHT:
+                // spin to the speeds for the shot from here
+                frontSpeed = m_limelightSubsystem.getFrontShooterSpeed();
+                rearSpeed = m_limelightSubsystem.getRearShooterSpeed();
+                break;
+            case IDLE:
+                frontSpeed = ShooterSubsystem.PRESPIN_IDLE_FRONT;
+                rearSpeed = ShooterSubsystem.PRESPIN_IDLE_REAR;
+                break;
+            default:
+                break;
+        }
+        m_shooterSubsystem.setFrontShooter(frontSpeed);
+        m_shooterSubsystem.setRearShooter(rearSpeed);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        // leave the flywheels spinning, this is interrupted by a shooting command, which sets the speeds
+    }
+}
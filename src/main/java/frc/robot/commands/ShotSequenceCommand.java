@@ -0,0 +1,173 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.CollectorSubsystem;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.FeederSubsystem;
+import frc.robot.subsystems.LimelightSubsystem;
+import frc.robot.subsystems.ShooterSubsystem;
+import frc.robot.subsystems.ShotSequencer;
+import frc.robot.subsystems.ShotSequencer.Condition;
+import frc.robot.subsystems.ShotSequencer.Step;
+
+import java.util.function.Supplier;
+
+
+public class ShotSequenceCommand extends CommandBase {
+    private final CollectorSubsystem m_collectorSubsystem = CollectorSubsystem.getInstance();
+    private final ShooterSubsystem m_shooterSubsystem = ShooterSubsystem.getInstance();
+    private final FeederSubsystem m_feederSubsystem = FeederSubsystem.getInstance();
+    private final LimelightSubsystem m_limelightSubsystem = LimelightSubsystem.getInstance();
+    private final DriveSubsystem m_driveSubsystem = DriveSubsystem.getInstance();
+
+    /**
+     * The limelight double shot: the first ball is fed as soon as the flywheels are up to speed, the second ball
+     * is loaded (jerking the collector, see {@link CollectorSubsystem#BACK_MS}) as soon as the flywheels have
+     * recovered from the first shot, and the sequence is done when the second shot is detected. The times are the
+     * limits if the flywheels never get up to speed, or a shot is not detected - if the second shot is not
+     * detected the collector is jerked again.
+     *
+     * @return (Step[]) The sequence, with the collector and feeder powers as they are tuned now.
+     */
+    public static Step[] doubleShot() {
+        return new Step[] {
+                new Step("SPINUP", CollectorSubsystem.COLLECTOR_POWER, 0.0, true,
+                        Condition.READY, 0, "SHOOT_1", 500, "SHOOT_1"),
+                new Step("SHOOT_1", 0.0, FeederSubsystem.FEEDER_POWER, true,
+                        Condition.SHOTS_RECOVERED, 1, "JERK_REVERSE", 1000, "JERK_REVERSE"),
+                new Step("JERK_REVERSE", -CollectorSubsystem.BACK_POWER, FeederSubsystem.FEEDER_POWER, true,
+                        CollectorSubsystem.BACK_MS, "JERK_FORWARD"),
+                new Step("JERK_FORWARD", CollectorSubsystem.FORWARD_POWER, FeederSubsystem.FEEDER_POWER, true,
+                        CollectorSubsystem.FORWARD_MS, "SHOOT_2"),
+                new Step("SHOOT_2", 0.0, FeederSubsystem.FEEDER_POWER, true,
+                        Condition.SHOTS, 2, ShotSequencer.DONE, 1000, "JERK_REVERSE")
+        };
+    }
+
+    /** The maximum time of a double shot, in milliseconds. */
+    public static final int DOUBLE_SHOT_MS = 4000;
+
+    private final String m_name;
+    private final Supplier<Step[]> m_steps;
+    private final int m_maxTimeMs;
+    // the sequencer, rebuilt from the steps each time the command starts so it has the current tuned powers
+    private ShotSequencer m_sequencer;
+    private final boolean m_limelightSpeeds;
+    private final boolean m_auto;
+    private final double m_defaultFrontSpeed;
+    private final double m_defaultRearSpeed;
+
+    // the shooter speeds, updated every cycle the limelight can shoot so they follow the robot if it is moving
+    private double m_frontSpeed = 0.0;
+    private double m_rearSpeed = 0.0;
+    private boolean m_started = false;
+    private boolean m_done = false;
+
+    /**
+     * Shoots by running a shot sequence, see {@link ShotSequencer}. The collector and feeder are set from the
+     * current step of the sequence, and the flywheels are spun while the step spins the shooter. The flywheels
+     * are left spinning when the command ends, the shooter default command ({@link ShooterPrespinCommand})
+     * decides whether to keep them spinning. The transitions and step times of each run are published to the
+     * dashboard as "{@code <name> sequence}".
+     *
+     * @param name              (String) The name the sequence timing is published as.
+     * @param steps             (Supplier&lt;Step[]&gt;) Builds the shot sequence, called each time the command
+     *                          starts so the sequence has the current (dashboard tuned) powers.
+     * @param maxTimeMs         (int) The maximum time of the sequence, in milliseconds.
+     * @param limelightSpeeds   (boolean) {@code true} to shoot at the speeds given by the limelight, updated
+     *                          every cycle the limelight can shoot.
+     * @param auto              (boolean) {@code true} if this is an autonomous command - it aims the robot at
+     *                          the target and has control of the collector (see
+     *                          {@link ShooterSubsystem#setIsShooting(boolean)}). Otherwise, if the limelight
+     *                          speeds are used and the limelight cannot shoot, the command does not run.
+     * @param defaultFrontSpeed (double) The front shooter speed if the limelight speeds are not used, or before
+     *                          the limelight can shoot.
+     * @param defaultRearSpeed  (double) The rear shooter speed if the limelight speeds are not used, or before
+     *                          the limelight can shoot.
+     */
+    public ShotSequenceCommand(String name, Supplier<Step[]> steps, int maxTimeMs, boolean limelightSpeeds,
+                               boolean auto, double defaultFrontSpeed, double defaultRearSpeed) {
+        // each subsystem used by the command must be passed into the
+        // addRequirements() method (which takes a vararg of Subsystem)
+        addRequirements(m_collectorSubsystem, m_shooterSubsystem);
+        if (auto) {
+            addRequirements(m_driveSubsystem);
+        }
+        m_name = name;
+        m_steps = steps;
+        m_maxTimeMs = maxTimeMs;
+        // built now too, so a bad sequence is reported when the robot starts
+        m_sequencer = new ShotSequencer(steps.get(), maxTimeMs);
+        m_limelightSpeeds = limelightSpeeds;
+        m_auto = auto;
+        m_defaultFrontSpeed = defaultFrontSpeed;
+        m_defaultRearSpeed = defaultRearSpeed;
+    }
+
+    @Override
+    public void initialize() {
+        m_frontSpeed = m_defaultFrontSpeed;
+        m_rearSpeed = m_defaultRearSpeed;
+        m_done = !m_auto && m_limelightSpeeds &&
+                (m_limelightSubsystem.canShoot() != LimelightSubsystem.CAN_SHOOT.YES);
+        m_started = !m_done;
+        if (m_started) {
+            m_sequencer = new ShotSequencer(m_steps.get(), m_maxTimeMs);
+            m_sequencer.start(Timer.getFPGATimestamp(), m_shooterSubsystem.getShotCount());
+        }
+        if (m_auto) {
+            // give me control of collector
+            m_shooterSubsystem.setIsShooting(true);
+        }
+    }
+
+    @Override
+    public void execute() {
+        if (m_done) {
+            return;
+        }
+        m_done = m_sequencer.update(Timer.getFPGATimestamp(), m_shooterSubsystem.isReady(),
+                m_shooterSubsystem.getShotCount(), m_shooterSubsystem.isShotInProgress());
+        if (m_done) {
+            return;
+        }
+        Step step = m_sequencer.getStep();
+
+        // keep the last speeds if the target is lost
+        if (m_limelightSpeeds && (m_limelightSubsystem.canShoot() == LimelightSubsystem.CAN_SHOOT.YES)) {
+            m_frontSpeed = m_limelightSubsystem.getFrontShooterSpeed();
+            m_rearSpeed = m_limelightSubsystem.getRearShooterSpeed();
+        }
+        m_shooterSubsystem.setFrontShooter(step.getSpinShooter() ? m_frontSpeed : 0.0);
+        m_shooterSubsystem.setRearShooter(step.getSpinShooter() ? m_rearSpeed : 0.0);
+        m_collectorSubsystem.setPower(step.getCollectorPower());
+        m_feederSubsystem.setPower(step.getFeederPower());
+
+        if (m_auto) {
+            // limelight target
+            m_driveSubsystem.setHeading(m_limelightSubsystem.getTargetHeadingRadians());
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return m_done;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        // the flywheels are left spinning, the shooter default command (ShooterPrespinCommand) decides whether
+        // to keep them spinning
+        m_feederSubsystem.setPower(0.0);
+        m_collectorSubsystem.setPower(0.0);
+        if (m_auto) {
+            m_shooterSubsystem.setIsShooting(false);
+        }
+        if (m_started) {
+            m_sequencer.stop(Timer.getFPGATimestamp());
+            SmartDashboard.putString(m_name + " sequence", m_sequencer.toString());
+        }
+    }
+}
@@ -1,21 +1,26 @@
 package frc.robot.commands.unused;
 
-import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.commands.ShotSequenceCommand;
 import frc.robot.subsystems.CollectorSubsystem;
 import frc.robot.subsystems.FeederSubsystem;
-import frc.robot.subsystems.ShooterSubsystem;
-
-
-public class DoubleShootCommand extends CommandBase {
-    private final CollectorSubsystem m_collectorSubsystem = CollectorSubsystem.getInstance();
-    private final ShooterSubsystem m_shooterSubsystem = ShooterSubsystem.getInstance();
-    private final FeederSubsystem m_feederSubsystem = FeederSubsystem.getInstance();
-    private int m_feederCyclesElapsed = 0;
-    private int m_jerkCyclesElapsed = 0;
-    private int m_state = 0;
-    private boolean m_done = false;
-    private final double m_frontPower;
-    private final double m_rearPower;
+import frc.robot.subsystems.ShotSequencer;
+import frc.robot.subsystems.ShotSequencer.Step;
+
+
+public class DoubleShootCommand extends ShotSequenceCommand {
+
+    // shoot once after the flywheels rev, jerk the collector to load the second ball, and wait for it to shoot
+    private static Step[] timedDoubleShot() {
+        return new Step[] {
+                new Step("REV", 0.0, 0.0, true, 500, "SHOOT_1"),
+                new Step("SHOOT_1", 0.0, FeederSubsystem.FEEDER_POWER, true, 1500, "JERK_REVERSE"),
+                new Step("JERK_REVERSE", -CollectorSubsystem.BACK_POWER, FeederSubsystem.FEEDER_POWER, true,
+                        CollectorSubsystem.BACK_MS, "JERK_FORWARD"),
+                new Step("JERK_FORWARD", CollectorSubsystem.FORWARD_POWER, FeederSubsystem.FEEDER_POWER, true,
+                        CollectorSubsystem.FORWARD_MS, "SHOOT_2"),
+                new Step("SHOOT_2", 0.0, FeederSubsystem.FEEDER_POWER, true, 1000, ShotSequencer.DONE)
+        };
+    }
 
     /**
      * Shoots once, jerks the collector, then shoots again.
@@ -23,71 +28,7 @@ public class DoubleShootCommand extends CommandBase {
      * @param rearPower (double) Power to run the rear shooter from -1.0 to 1.0.
      */
     public DoubleShootCommand(double frontPower, double rearPower) {
-        // each subsystem used by the command must be passed into the
-        // addRequirements() method (which takes a vararg of Subsystem)
-        addRequirements(m_collectorSubsystem, m_shooterSubsystem);
-        m_frontPower = frontPower;
-        m_rearPower = rearPower;
-    }
-
-    @Override
-    public void initialize() {
-        m_feederCyclesElapsed = 0;
-        m_jerkCyclesElapsed = 0;
-        m_state = 0;
-        m_done = false;
-    }
-
-    @Override
-    public void execute() {
-        // start shooters
-        m_shooterSubsystem.setFrontShooter(m_frontPower);
-        m_shooterSubsystem.setRearShooter(m_rearPower);
-
-        // start feeder after REV_CYCLES
-        if (m_feederCyclesElapsed >= ShooterSubsystem.REV_CYCLES) {
-            m_feederSubsystem.setPower(FeederSubsystem.FEEDER_POWER);
-        }
-
-        // after WAIT_CYCLES, start collector jerk
-        if (m_feederCyclesElapsed >= ShooterSubsystem.WAIT_CYCLES) {
-            m_jerkCyclesElapsed++;
-        }
-
-        // run backwards
-        if (m_jerkCyclesElapsed != 0 && m_jerkCyclesElapsed <= CollectorSubsystem.BACK_CYCLES && m_state == 0) {
-            m_collectorSubsystem.setPower(-CollectorSubsystem.BACK_POWER);
-        } else if (m_jerkCyclesElapsed != 0 && m_state == 0) {
-            m_state = 1;
-            m_jerkCyclesElapsed = 0;
-        }
-
-        // run forwards
-        if (m_jerkCyclesElapsed <= CollectorSubsystem.FORWARD_CYCLES && m_state == 1) {
-            m_collectorSubsystem.setPower(CollectorSubsystem.FORWARD_POWER);
-        } else if (m_state == 1) {
-            m_state = 2;
-            m_jerkCyclesElapsed = 0;
-        }
-
-        // wait for ball to settle and shoot
-        if (m_jerkCyclesElapsed >= ShooterSubsystem.SETTLE_CYCLES && m_state == 2) {
-            m_done = true;
-        }
-
-        m_feederCyclesElapsed++;
-    }
-
-    @Override
-    public boolean isFinished() {
-        return m_done;
-    }
-
-    @Override
-    public void end(boolean interrupted) {
-        m_shooterSubsystem.setFrontShooter(0.0);
-        m_shooterSubsystem.setRearShooter(0.0);
-        m_feederSubsystem.setPower(0.0);
-        m_collectorSubsystem.setPower(0.0);
+        super("timed double shot", DoubleShootCommand::timedDoubleShot, DOUBLE_SHOT_MS, false, false,
+                frontPower, rearPower);
     }
 }
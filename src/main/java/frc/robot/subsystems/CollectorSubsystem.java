@@ -33,6 +33,12 @@ public class CollectorSubsystem extends SubsystemBase {
     private final TalonSRX m_collector = new TalonSRX(Constants.CAN_Devices.COLLECTOR);
     private double m_lastPower;
 
+    // last setpoint sent to the collector Talon so redundant set() calls are skipped. This saves the call, not a CAN
+    // frame - the CTRE library sends the control frame periodically whatever is set.
+    private static final double POWER_TOLERANCE = 0.001;
+    private static final double VELOCITY_TOLERANCE = 5.0; // encoder units per 100ms
+    private final SetpointCache m_setpoint = new SetpointCache(SetpointCache.Controller.TALON, POWER_TOLERANCE);
+
     // power to collect
     public static double COLLECTOR_POWER = -0.8;
 
@@ -40,10 +46,15 @@ public class CollectorSubsystem extends SubsystemBase {
     public static double BACK_POWER = -0.65;
     public static double FORWARD_POWER = -0.65;
 
-    // number of 20ms cycles to jerk collector backwards and forwards
-    public static final int BACK_CYCLES = 4; // 80 ms
-    public static final int FORWARD_CYCLES = 7; // 100 ms
-    public static final int STOP_CYCLES = 10; // 200 ms
+    // time to jerk collector backwards and forwards, and to stop to let the ball rest first, in ms. The shot
+    // sequences use the times, the jerk command counts them in 20ms cycles.
+    public static final int BACK_MS = 80;
+    public static final int FORWARD_MS = 140;
+    public static final int STOP_MS = 200;
+    private static final int CYCLE_MS = 20;
+    public static final int BACK_CYCLES = BACK_MS / CYCLE_MS;
+    public static final int FORWARD_CYCLES = FORWARD_MS / CYCLE_MS;
+    public static final int STOP_CYCLES = STOP_MS / CYCLE_MS;
 
     public static double MAX_SPEED = 0.0; // TODO
 
@@ -67,7 +78,9 @@ public class CollectorSubsystem extends SubsystemBase {
      * @param power (double) Power to set the collector to, from -1.0 to 1.0.
      */
     public void setPower(double power) {
-        m_collector.set(ControlMode.PercentOutput, power);
+        if (m_setpoint.shouldSend(ControlMode.PercentOutput, power, POWER_TOLERANCE)) {
+            m_collector.set(ControlMode.PercentOutput, power);
+        }
         m_lastPower = power;
     }
 
@@ -78,7 +91,9 @@ public class CollectorSubsystem extends SubsystemBase {
     public void setSpeed(double power) {
         m_lastPower = power;
         double speed = MAX_SPEED * power;
-        m_collector.set(ControlMode.Velocity, speed);
+        if (m_setpoint.shouldSend(ControlMode.Velocity, speed, VELOCITY_TOLERANCE)) {
+            m_collector.set(ControlMode.Velocity, speed);
+        }
     }
 
     public double getSpeed() {
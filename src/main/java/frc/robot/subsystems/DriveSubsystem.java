@@ -1,12 +1,14 @@
 package frc.robot.subsystems;
 
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.NavX;
 import org.a05annex.util.AngleConstantD;
 import org.a05annex.util.AngleD;
-import org.a05annex.util.Utl;
+import org.a05annex.util.AngleUnit;
 
 public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
     /**
@@ -40,29 +42,61 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
     // cycle.
     private final NavX m_navx = NavX.getInstance();
 
-    // the drive geometry
-    private final double LENGTH_OVER_DIAGONAL =
-            Constants.DRIVE_LENGTH / Constants.DRIVE_DIAGONAL;
-    private final double WIDTH_OVER_DIAGONAL =
-            Constants.DRIVE_WIDTH / Constants.DRIVE_DIAGONAL;
+    // the drive kinematics, which also keeps track of the last module angles
+    private final SwerveKinematics m_kinematics =
+            new SwerveKinematics(Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
 
-    // keep track of last angles
-    private final AngleD m_RF_lastRadians = new AngleD(AngleD.ZERO);
-    private final AngleD m_RR_lastRadians = new AngleD(AngleD.ZERO);
-    private final AngleD m_LF_lastRadians = new AngleD(AngleD.ZERO);
-    private final AngleD m_LR_lastRadians = new AngleD(AngleD.ZERO);
+    // the module directions for rotation in place (the wheel axes pass through the center of the robot)
+    private final double RF_ROTATE_RADIANS = Math.atan2(Constants.DRIVE_LENGTH, -Constants.DRIVE_WIDTH);
+    private final double LF_ROTATE_RADIANS = Math.atan2(Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
+    private final double LR_ROTATE_RADIANS = Math.atan2(-Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
+    private final double RR_ROTATE_RADIANS = Math.atan2(-Constants.DRIVE_LENGTH, -Constants.DRIVE_WIDTH);
 
-    // keep track of the last chassis speeds for odometry
-    private double m_thisChassisForward = 0.0;
-    private double m_thisChassisStrafe = 0.0;
-    private long m_lastTime = System.currentTimeMillis();
-    private final AngleD m_lastHeading = new AngleD(AngleD.ZERO);
-    private double m_lastChassisForward = 0.0;
-    private double m_lastChassisStrafe = 0.0;
+    /**
+     * The period of the odometry update, in seconds. The odometry runs on its own thread at 200Hz so the
+     * pose is integrated in small steps that do not depend on the scheduler loop making its 20ms cycle.
+     */
+    private static final double ODOMETRY_PERIOD = 0.005;
 
-    private double m_fieldX = 0.0;
-    private double m_fieldY = 0.0;
-    private final AngleD m_fieldHeading = new AngleD(AngleD.ZERO);
+    /**
+     * The number of poses kept in the pose history, about 2.5 seconds of odometry updates.
+     */
+    private static final int POSE_HISTORY_CAPACITY = 512;
+
+    /**
+     * The standard deviation of the field position set by {@link #setFieldPosition(double, double, AngleD)}, in
+     * meters - how accurately the robot is placed at the start of autonomous.
+     */
+    private static final double FIELD_POSITION_STD = 0.05;
+
+    /**
+     * A module is aligned when its direction is within this of its target direction, in radians (about 5.7
+     * degrees).
+     */
+    private static final double ALIGNED_TOLERANCE = 0.1;
+    /**
+     * The longest time, in seconds, the modules are given to align before {@link #isAligned()} reports they are
+     * aligned anyway, so a module that never quite settles cannot stall autonomous.
+     */
+    private static final double ALIGNMENT_TIMEOUT = 0.25;
+
+    // the odometry, computed from the measured module motion. The odometry is only updated on the odometry
+    // thread, or by the scheduler thread while holding the odometry lock (see setFieldPosition()). Everyone
+    // else reads the pose published by the odometry thread.
+    private final SwerveOdometry m_odometry =
+            new SwerveOdometry(Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
+    private final PosePublisher m_posePublisher = new PosePublisher();
+    private final PoseHistory m_poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
+    // the field pose estimate, fusing the odometry, the NavX heading, and Limelight observations of the hub
+    private final PoseEstimator m_poseEstimator = new PoseEstimator(POSE_HISTORY_CAPACITY,
+            Constants.HUB_X, Constants.HUB_Y, Constants.LIMELIGHT_DIRECTION);
+    private double m_lastOdometryHeading = 0.0;
+    // true once setFieldPosition() has placed the robot on the field, until then the pose starts at (0,0)
+    private volatile boolean m_fieldPositionKnown = false;
+
+    // the time of the last prepareForDriveComponents(), for the alignment time-out
+    private double m_alignmentStartTime = 0.0;
+    private final Notifier m_odometryNotifier = new Notifier(this::updateOdometry);
 
     /**
      * Creates a new instance of this DriveSubsystem. This constructor
@@ -82,6 +116,22 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
 
         m_lr = Mk4NeoModule.factory(Constants.CAN_Devices.LR_DRIVE, Constants.CAN_Devices.LR_DIRECTION,
                 Constants.CAN_Devices.LR_CALIBRATION, Constants.CalibrationOffset.LR);
+
+        // don't drive the wheels at full speed while they are still turning to the direction they should go
+        m_rf.setCosineSpeedScaling(true);
+        m_rr.setCosineSpeedScaling(true);
+        m_lf.setCosineSpeedScaling(true);
+        m_lr.setCosineSpeedScaling(true);
+
+        synchronized (m_odometry) {
+            readModulesForOdometry();
+            double time = Timer.getFPGATimestamp();
+            m_odometry.reset(0.0, 0.0, 0.0, time);
+            m_poseEstimator.reset(0.0, 0.0, 0.0, FIELD_POSITION_STD, time);
+            publishPose();
+        }
+        m_odometryNotifier.setName("Odometry");
+        m_odometryNotifier.startPeriodic(ODOMETRY_PERIOD);
     }
 
     // getter methods for modules
@@ -123,6 +173,19 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
         SmartDashboard.putNumber("LR angle", m_lr.getDirectionPosition());
     }
 
+    /**
+     * Print the pose estimate to SmartDashboard. Should be called in DriveSubsystem periodic if used.
+     */
+    public void printPoseEstimate() {
+        synchronized (m_odometry) {
+            SmartDashboard.putNumber("pose X", m_poseEstimator.getFieldX());
+            SmartDashboard.putNumber("pose Y", m_poseEstimator.getFieldY());
+            SmartDashboard.putNumber("pose std", m_poseEstimator.getPositionStdDev());
+            SmartDashboard.putNumber("vision accepted", m_poseEstimator.getAcceptedCount());
+            SmartDashboard.putNumber("vision rejected", m_poseEstimator.getRejectedCount());
+        }
+    }
+
     // begin swerve methods
     /**
      * The internal method to run, or prepare to run, the swerve drive with the specified {@code  forward},
@@ -139,47 +202,20 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
     private void setModulesForChassisMotion(double forward, double strafe,
                                             double rotation, boolean setSpeeds)
     {
-        // calculate a, b, c and d variables
-        double a = strafe - (rotation * LENGTH_OVER_DIAGONAL);
-        double b = strafe + (rotation * LENGTH_OVER_DIAGONAL);
-        double c = forward - (rotation * WIDTH_OVER_DIAGONAL);
-        double d = forward + (rotation * WIDTH_OVER_DIAGONAL);
-
-        // calculate wheel speeds
-        double rfSpeed = Utl.length(b, c);
-        double lfSpeed = Utl.length(b, d);
-        double lrSpeed = Utl.length(a, d);
-        double rrSpeed = Utl.length(a, c);
-
-        // normalize speeds
-        double max = Utl.max(rfSpeed, lfSpeed, lrSpeed, rrSpeed);
-        if (max > 1.0) {
-            rfSpeed /= max;
-            lfSpeed /= max;
-            lrSpeed /= max;
-            rrSpeed /= max;
-            forward /= max;
-            strafe /= max;
-        }
-
-        // if speed is small or 0, (i.e. essentially stopped), use the last angle because its next motion
-        // will probably be very close to its current last motion - i.e. the next direction will probably
-        // be very close to the last direction.
-        double SMALL = 0.000001;
-        if (rfSpeed > SMALL) {m_RF_lastRadians.atan2(b, c);}
-        if (lfSpeed > SMALL) {m_LF_lastRadians.atan2(b, d);}
-        if (lrSpeed > SMALL) {m_LR_lastRadians.atan2(a, d);}
-        if (rrSpeed > SMALL) {m_RR_lastRadians.atan2(a, c);}
+        // compute the module speeds and directions - the kinematics keeps the last direction for any module
+        // that is essentially stopped because its next motion will probably be very close to its current
+        // last motion - i.e. the next direction will probably be very close to the last direction.
+        m_kinematics.solve(forward, strafe, rotation);
 
         // run wheels at speeds and angles
-        m_rf.setDirectionAndSpeed(m_RF_lastRadians, setSpeeds ? rfSpeed : 0.0);
-        m_lf.setDirectionAndSpeed(m_LF_lastRadians, setSpeeds ? lfSpeed : 0.0);
-        m_lr.setDirectionAndSpeed(m_LR_lastRadians, setSpeeds ? lrSpeed : 0.0);
-        m_rr.setDirectionAndSpeed(m_RR_lastRadians, setSpeeds ? rrSpeed : 0.0);
-
-        // save the values we set for use in odometry calculations
-        m_thisChassisForward = setSpeeds ? forward : 0.0;
-        m_thisChassisStrafe = setSpeeds ? strafe : 0.0;
+        m_rf.setDirectionAndSpeed(m_kinematics.getDirection(SwerveKinematics.RF),
+                setSpeeds ? m_kinematics.getSpeed(SwerveKinematics.RF) : 0.0);
+        m_lf.setDirectionAndSpeed(m_kinematics.getDirection(SwerveKinematics.LF),
+                setSpeeds ? m_kinematics.getSpeed(SwerveKinematics.LF) : 0.0);
+        m_lr.setDirectionAndSpeed(m_kinematics.getDirection(SwerveKinematics.LR),
+                setSpeeds ? m_kinematics.getSpeed(SwerveKinematics.LR) : 0.0);
+        m_rr.setDirectionAndSpeed(m_kinematics.getDirection(SwerveKinematics.RR),
+                setSpeeds ? m_kinematics.getSpeed(SwerveKinematics.RR) : 0.0);
     }
 
     /**
@@ -212,11 +248,23 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
                                           double rotation)
     {
         setModulesForChassisMotion(forward, strafe, rotation,false);
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            //  If this is interrupted it is because the robot is being shut down - that is OK
-        }
+        m_alignmentStartTime = Timer.getFPGATimestamp();
+    }
+
+    /**
+     * Test whether the modules have reached the directions set by the last
+     * {@link #prepareForDriveComponents(double, double, double)}, or the {@link #ALIGNMENT_TIMEOUT} has expired.
+     *
+     * @return {@code true} if the robot is ready to drive, {@code false} if the modules are still turning.
+     */
+    @Override
+    public boolean isAligned() {
+        return (Timer.getFPGATimestamp() - m_alignmentStartTime > ALIGNMENT_TIMEOUT) ||
+                (isModuleAligned(m_rf) && isModuleAligned(m_lf) && isModuleAligned(m_lr) && isModuleAligned(m_rr));
+    }
+
+    private static boolean isModuleAligned(Mk4NeoModule module) {
+        return module.isAtDirection(ALIGNED_TOLERANCE);
     }
 
     /**
@@ -229,8 +277,20 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
      */
     @Override
     public void swerveDrive(AngleConstantD chassisDirection, double speed, double rotation) {
-        swerveDriveComponents(chassisDirection.cos() * speed,
-                chassisDirection.sin() * speed, rotation);
+        swerveDrive(chassisDirection.getRadians(), speed, rotation);
+    }
+
+    /**
+     * Swerve drive with a robot-relative direction in radians, a speed and a rotation speed.
+     *
+     * @param chassisRadians (double) The robot chassis relative direction in radians where 0.0 is towards
+     *                       the front of the robot, and positive is clockwise.
+     * @param speed          (double) Speed from 0.0 to 1.0.
+     * @param rotation       (double) Clockwise rotation speed from -1.0 to 1.0.
+     */
+    private void swerveDrive(double chassisRadians, double speed, double rotation) {
+        swerveDriveComponents(Math.cos(chassisRadians) * speed,
+                Math.sin(chassisRadians) * speed, rotation);
     }
 
     /**
@@ -243,7 +303,9 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
      */
     @Override
     public void swerveDriveFieldRelative(AngleConstantD fieldDirection, double speed, double rotation) {
-        swerveDrive(new AngleD(fieldDirection).subtract(m_navx.getHeading()), speed, rotation);
+        // without a heading there is no way to know where the field is, so drive robot relative
+        double heading = m_navx.isHeadingValid() ? m_navx.getHeadingRadians() : 0.0;
+        swerveDrive(fieldDirection.getRadians() - heading, speed, rotation);
     }
 
     //end swerve methods
@@ -261,19 +323,53 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
      */
     @Override
     public void setFieldPosition(double fieldX, double fieldY, AngleD heading) {
-        m_fieldX = fieldX;
-        m_fieldY = fieldY;
-        m_fieldHeading.setValue(heading);
-        m_navx.initializeHeadingAndNav(m_fieldHeading);
-        m_lastTime = System.currentTimeMillis();
+        resetPose(fieldX, fieldY, heading);
+        m_fieldPositionKnown = true;
+    }
+
+    /**
+     * Reset the NavX, the odometry, the pose estimator and the pose history to a field pose.
+     */
+    private void resetPose(double fieldX, double fieldY, AngleD heading) {
+        synchronized (m_odometry) {
+            m_navx.initializeHeadingAndNav(heading);
+            readModulesForOdometry();
+            double time = Timer.getFPGATimestamp();
+            m_lastOdometryHeading = heading.getRadians();
+            m_odometry.reset(fieldX, fieldY, m_lastOdometryHeading, time);
+            m_poseEstimator.reset(fieldX, fieldY, m_lastOdometryHeading, FIELD_POSITION_STD, time);
+            m_poseHistory.clear();
+            publishPose();
+        }
+    }
+
+    /**
+     * Reset the field heading to 0 (the robot is facing down field) keeping the field position, e.g. when the
+     * driver resets the field relativity. The NavX, the odometry and the pose estimator are all reset, so the
+     * fused pose and the heading stay consistent. This does not make the field position known, see
+     * {@link #isFieldPositionKnown()}.
+     */
+    public void resetHeading() {
+        resetPose(getFieldX(), getFieldY(), new AngleD(AngleUnit.RADIANS, 0.0));
+    }
+
+    /**
+     * @return {@code true} if the field position has been set by
+     * {@link #setFieldPosition(double, double, AngleD)}, {@code false} if the robot has not been placed on the
+     * field, and the field position (which starts at (0,0)) means nothing.
+     */
+    public boolean isFieldPositionKnown() {
+        return m_fieldPositionKnown;
     }
 
+    @Override
     public double getFieldX() {
-        return m_fieldX;
+        return m_posePublisher.getFieldX();
     }
 
+    @Override
     public double getFieldY() {
-        return m_fieldY;
+        return m_posePublisher.getFieldY();
     }
 
     /**
@@ -281,7 +377,56 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
      * @return (AngleD) A copy of the heading of the robot.
      */
     public AngleD getFieldHeading() {
-        return m_fieldHeading.cloneAngleD();
+        return new AngleD(AngleUnit.RADIANS, getFieldHeadingRadians());
+    }
+
+    /**
+     * Returns the heading of the robot on the field, this does not allocate.
+     * @return (double) The heading of the robot, in radians.
+     */
+    public double getFieldHeadingRadians() {
+        return m_posePublisher.getHeading();
+    }
+
+    /**
+     * Correct the robot pose with a Limelight observation of the hub. The observation is fused into the pose
+     * estimate as of when the frame was captured, and is rejected if it is inconsistent with the estimate.
+     *
+     * @param range       (double) The distance from the robot to the center of the hub, in meters.
+     * @param bearing     (double) The direction of the center of the hub from the limelight, in radians,
+     *                    positive is clockwise.
+     * @param captureTime (double) The FPGA timestamp of when the frame was captured, in seconds.
+     * @return {@code true} if the observation was used, {@code false} if it was rejected.
+     */
+    public boolean addHubObservation(double range, double bearing, double captureTime) {
+        synchronized (m_odometry) {
+            return m_poseEstimator.addHubObservation(range, bearing, captureTime);
+        }
+    }
+
+    /**
+     * Get a consistent snapshot of the robot pose - all of the values are from the same odometry update. This
+     * never waits on the odometry thread, and does not allocate.
+     *
+     * @param pose (PosePublisher.Pose, not null) The pose to copy the current pose into.
+     * @return The pose that was passed in, for convenience.
+     */
+    public PosePublisher.Pose getPose(PosePublisher.Pose pose) {
+        return m_posePublisher.read(pose);
+    }
+
+    /**
+     * Get the pose of the robot at a time in the recent past (about the last 2.5 seconds), interpolated
+     * between odometry updates. Use this to find where the robot was when a latent measurement (like a
+     * Limelight frame) was made. This does not allocate.
+     *
+     * @param time (double) The FPGA timestamp, in seconds, see {@link Timer#getFPGATimestamp()}.
+     * @param pose (PosePublisher.Pose, not null) The pose that will be set to the pose at {@code time}.
+     * @return {@code true} if {@code pose} was set, {@code false} if {@code time} is older than the pose
+     * history (or before the last {@link #setFieldPosition(double, double, AngleD)}).
+     */
+    public boolean getPoseAt(double time, PosePublisher.Pose pose) {
+        return m_poseHistory.getPoseAt(time, pose);
     }
 
     /**
@@ -292,59 +437,98 @@ public class DriveSubsystem extends SubsystemBase implements ISwerveDrive {
      * @param targetHeading (AngleConstantD) The desired chassis heading on the field.
      */
     public void setHeading(AngleConstantD targetHeading) {
-        m_RF_lastRadians.atan2(Constants.DRIVE_LENGTH, -Constants.DRIVE_WIDTH);
-        m_LF_lastRadians.atan2(Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
-        m_LR_lastRadians.atan2(-Constants.DRIVE_LENGTH, Constants.DRIVE_WIDTH);
-        m_RR_lastRadians.atan2(-Constants.DRIVE_LENGTH, -Constants.DRIVE_WIDTH);
+        setHeading(targetHeading.getRadians());
+    }
 
-        double deltaTics = new AngleD(targetHeading).subtract(m_navx.getHeading()).getRadians()
+    /**
+     * Rotate the chassis to the specified heading with no field translation, see
+     * {@link #setHeading(AngleConstantD)}. This does not allocate, use it from commands that run every cycle.
+     *
+     * @param targetHeading (double) The desired chassis heading on the field, in radians.
+     */
+    public void setHeading(double targetHeading) {
+        m_kinematics.setDirection(SwerveKinematics.RF, RF_ROTATE_RADIANS);
+        m_kinematics.setDirection(SwerveKinematics.LF, LF_ROTATE_RADIANS);
+        m_kinematics.setDirection(SwerveKinematics.LR, LR_ROTATE_RADIANS);
+        m_kinematics.setDirection(SwerveKinematics.RR, RR_ROTATE_RADIANS);
+
+        double deltaTics = (targetHeading - m_navx.getHeadingRadians())
                 * Constants.DRIVE_POS_TICS_PER_RADIAN;
 
-        m_rf.setDirectionAndDistance(m_RF_lastRadians, deltaTics);
-        m_lf.setDirectionAndDistance(m_LF_lastRadians, deltaTics);
-        m_lr.setDirectionAndDistance(m_LR_lastRadians, deltaTics);
-        m_rr.setDirectionAndDistance(m_RR_lastRadians, deltaTics);
+        m_rf.setDirectionAndDistance(RF_ROTATE_RADIANS, deltaTics);
+        m_lf.setDirectionAndDistance(LF_ROTATE_RADIANS, deltaTics);
+        m_lr.setDirectionAndDistance(LR_ROTATE_RADIANS, deltaTics);
+        m_rr.setDirectionAndDistance(RR_ROTATE_RADIANS, deltaTics);
+    }
+
+    /**
+     * Read the drive distance and direction of each module into the odometry.
+     */
+    private void readModulesForOdometry() {
+        m_odometry.setModule(SwerveKinematics.RF, m_rf.getDriveDistance(), m_rf.getDirectionRadians());
+        m_odometry.setModule(SwerveKinematics.LF, m_lf.getDriveDistance(), m_lf.getDirectionRadians());
+        m_odometry.setModule(SwerveKinematics.LR, m_lr.getDriveDistance(), m_lr.getDirectionRadians());
+        m_odometry.setModule(SwerveKinematics.RR, m_rr.getDriveDistance(), m_rr.getDirectionRadians());
+    }
+
+    /**
+     * Publish the current pose, and add it to the pose history. The position is the fused estimate, the heading
+     * is the NavX heading (which is what the heading control uses), and the velocities are the measured chassis
+     * velocities. Must be called holding the odometry lock.
+     */
+    private void publishPose() {
+        m_posePublisher.publish(m_poseEstimator.getFieldX(), m_poseEstimator.getFieldY(),
+                m_odometry.getFieldHeading(), m_odometry.getForwardVelocity(), m_odometry.getStrafeVelocity(),
+                m_odometry.getTime());
+        m_poseHistory.add(m_poseEstimator.getFieldX(), m_poseEstimator.getFieldY(),
+                m_odometry.getFieldHeading(), m_odometry.getForwardVelocity(), m_odometry.getStrafeVelocity(),
+                m_odometry.getTime());
+    }
+
+    /**
+     * The odometry update, run by the odometry {@link Notifier} every {@link #ODOMETRY_PERIOD}. Compute the
+     * chassis motion from what the modules actually did since the last update - the change in drive encoder
+     * distance in the direction each module is actually pointing - then update the NavX heading (which uses
+     * the chassis rotation from the wheels to check the NavX), move the odometry and the pose estimate by the
+     * motion, and publish the new pose.
+     */
+    private void updateOdometry() {
+        synchronized (m_odometry) {
+            double time = Timer.getFPGATimestamp();
+            readModulesForOdometry();
+            m_odometry.updateDeltas();
+            m_navx.recomputeHeading(false, m_odometry.getDeltaRotation());
+            double heading = m_navx.getHeadingRadians();
+            m_odometry.updatePose(heading, time);
+            m_poseEstimator.predict(m_odometry.getDeltaForward(), m_odometry.getDeltaStrafe(),
+                    heading - m_lastOdometryHeading, time);
+            m_lastOdometryHeading = heading;
+            publishPose();
+        }
+    }
+
+    /**
+     * @return The measured chassis forward velocity, in meters/sec.
+     */
+    public double getChassisForwardVelocity() {
+        return m_posePublisher.getForwardVelocity();
+    }
 
-        m_thisChassisForward = 0.0;
-        m_thisChassisStrafe = 0.0;
+    /**
+     * @return The measured chassis strafe velocity, in meters/sec.
+     */
+    public double getChassisStrafeVelocity() {
+        return m_posePublisher.getStrafeVelocity();
     }
 
     @Override
     public void periodic() {
         // This method will be called once per scheduler run
-        // Update the NavX heading
-        m_navx.recomputeHeading(false);
-        // Update the odometry for the drive. OK, the scam here is that there was a previous heading set
-        // in the last command cycle when we were setting the new direction/speed/rotation for the
-        // chassis, and the heading we are at now. For odometry, assume the average of the last heading and current
-        // heading approximates the path of the robot and that the last speed set happened pretty
-        // instantaneously. In that case, we can make a pretty good guess how the robot moved on the field.
-
-        // Get the average speed and heading for this interval
-        AngleD currentHeading = m_navx.getHeading();
-        AngleD aveHeading = currentHeading.cloneAngleD().add(m_lastHeading).mult(0.5);
-        double aveForward = (m_lastChassisForward + m_thisChassisForward) * 0.5;
-        double aveStrafe = (m_lastChassisStrafe + m_thisChassisStrafe) * 0.5;
-
-        // the maximum distance we could travel in this interval at max speed
-        long now = System.currentTimeMillis();
-        double maxDistanceInInterval = Constants.MAX_METERS_PER_SEC * (double) (now - m_lastTime) / 1000.0;
-
-        // compute the distance in field X and Y and update the field position
-        double sinHeading = aveHeading.sin();
-        double cosHeading = aveHeading.cos();
-        m_fieldX += ((aveForward * sinHeading) + (aveStrafe * cosHeading)) * maxDistanceInInterval;
-        m_fieldY += ((aveForward * cosHeading) - (aveStrafe * sinHeading)) * maxDistanceInInterval;
-
-        // save the current state as the last state
-        m_lastHeading.setValue(currentHeading);
-        m_fieldHeading.setValue(currentHeading);
-        m_lastChassisForward = m_thisChassisForward;
-        m_lastChassisStrafe = m_thisChassisStrafe;
-        m_lastTime = now;
+        // The heading and odometry are updated on the odometry thread, see updateOdometry()
 
 //        // telemetry
 //        printAllAngles();
+//        printPoseEstimate();
     }
 }
 
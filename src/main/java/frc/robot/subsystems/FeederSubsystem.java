@@ -31,6 +31,10 @@ public class FeederSubsystem extends SubsystemBase {
     private final TalonSRX m_feeder = new TalonSRX(Constants.CAN_Devices.FEEDER);
     public static double FEEDER_POWER = -1.0;
 
+    // last setpoint sent to the feeder Talon so redundant set() calls are skipped. This saves the call, not a CAN
+    // frame - the CTRE library sends the control frame periodically whatever is set.
+    private final SetpointCache m_setpoint = new SetpointCache(SetpointCache.Controller.TALON, 0.001);
+
     /**
      * Creates a new instance of this FeederSubsystem. This constructor
      * is private since this class is a Singleton. Code should use
@@ -46,7 +50,9 @@ public class FeederSubsystem extends SubsystemBase {
      * @param power (double) -1.0 to 1.0
      */
     public void setPower(double power) {
-        m_feeder.set(ControlMode.PercentOutput, power);
+        if (m_setpoint.shouldSend(ControlMode.PercentOutput, power)) {
+            m_feeder.set(ControlMode.PercentOutput, power);
+        }
     }
 
     public void updateFeederPower() {
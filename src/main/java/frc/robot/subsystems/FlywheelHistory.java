@@ -0,0 +1,102 @@
+package frc.robot.subsystems;
+
+/**
+ * A fixed capacity history of shooter flywheel velocity samples - the velocity and setpoint of the front and rear
+ * flywheels - recorded at a high rate while the flywheels are running, so the velocity dip as a ball passes
+ * through and the recovery from it can be seen. When the history is full the oldest sample is overwritten.
+ * <p>
+ * The samples are kept in parallel primitive arrays used as a ring buffer, so adding a sample does not allocate,
+ * see {@link PoseHistory}, which this mirrors. Samples are added by the flywheel sampler thread and copied out by
+ * the robot thread, so the methods are {@code synchronized}.
+ */
+public class FlywheelHistory {
+
+    private final int m_mask;
+
+    // the samples, indexed by the ring buffer position
+    private final double[] m_time;
+    private final double[] m_frontVelocity;
+    private final double[] m_frontSetpoint;
+    private final double[] m_rearVelocity;
+    private final double[] m_rearSetpoint;
+
+    // the position the next sample is written to, and the number of samples in the history
+    private int m_next = 0;
+    private int m_count = 0;
+
+    /**
+     * Instantiate a flywheel history.
+     *
+     * @param capacity (int) The number of samples kept. This is rounded up to a power of 2.
+     */
+    public FlywheelHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        m_mask = size - 1;
+        m_time = new double[size];
+        m_frontVelocity = new double[size];
+        m_frontSetpoint = new double[size];
+        m_rearVelocity = new double[size];
+        m_rearSetpoint = new double[size];
+    }
+
+    /**
+     * @return The number of samples this history can hold.
+     */
+    public int getCapacity() {
+        return m_mask + 1;
+    }
+
+    /**
+     * @return The number of samples currently in the history.
+     */
+    public synchronized int size() {
+        return m_count;
+    }
+
+    /**
+     * Add a sample.
+     *
+     * @param time          (double) The FPGA timestamp of the sample, in seconds.
+     * @param frontVelocity (double) The front flywheel velocity, in encoder units per 100ms.
+     * @param frontSetpoint (double) The front flywheel setpoint, in encoder units per 100ms.
+     * @param rearVelocity  (double) The rear flywheel velocity, in encoder units per 100ms.
+     * @param rearSetpoint  (double) The rear flywheel setpoint, in encoder units per 100ms.
+     */
+    public synchronized void add(double time, double frontVelocity, double frontSetpoint,
+                                 double rearVelocity, double rearSetpoint) {
+        m_time[m_next] = time;
+        m_frontVelocity[m_next] = frontVelocity;
+        m_frontSetpoint[m_next] = frontSetpoint;
+        m_rearVelocity[m_next] = rearVelocity;
+        m_rearSetpoint[m_next] = rearSetpoint;
+        m_next = (m_next + 1) & m_mask;
+        if (m_count <= m_mask) {
+            m_count++;
+        }
+    }
+
+    /**
+     * Copy the newest samples, oldest first. As many samples are copied as fit in the shortest array.
+     *
+     * @param time          (double[], not null) The sample timestamps.
+     * @param frontVelocity (double[], not null) The front flywheel velocities.
+     * @param frontSetpoint (double[], not null) The front flywheel setpoints.
+     * @param rearVelocity  (double[], not null) The rear flywheel velocities.
+     * @param rearSetpoint  (double[], not null) The rear flywheel setpoints.
+     * @return The number of samples copied.
+     */
+    public synchronized int copy(double[] time, double[] frontVelocity, double[] frontSetpoint,
+                                 double[] rearVelocity, double[] rearSetpoint) {
+        int n = Math.min(m_count, Math.min(Math.min(time.length, frontVelocity.length),
+                Math.min(Math.min(frontSetpoint.length, rearVelocity.length), rearSetpoint.length)));
+        for (int i = 0; i < n; i++) {
+            int index = (m_next - n + i) & m_mask;
+            time[i] = m_time[index];
+            frontVelocity[i] = m_frontVelocity[index];
+            frontSetpoint[i] = m_frontSetpoint[index];
+            rearVelocity[i] = m_rearVelocity[index];
+            rearSetpoint[i] = m_rearSetpoint[index];
+        }
+        return n;
+    }
+}
@@ -0,0 +1,135 @@
+package frc.robot.subsystems;
+
+import org.json.simple.JSONObject;
+
+/**
+ * The feedforward model of a shooter flywheel - the voltage needed to hold a velocity:
+ * <pre>
+ *     voltage = (kS * sign(velocity)) + (kV * velocity)
+ * </pre>
+ * where kS is the voltage to overcome friction and kV the voltage per unit of velocity (the back EMF). Velocity
+ * is in the Talon closed loop units of the flywheel setpoint (encoder units per 100ms, signed like the setpoint).
+ * There is no acceleration term - the velocity control only uses the steady state voltage, and the Talon
+ * velocity measurement lags the flywheel too much while it accelerates to fit one.
+ * <p>
+ * A single Talon kF is kV alone, measured at one speed, so it leaves a steady state error everywhere else. The
+ * model is fitted by least squares to the settled speeds of a voltage sweep, see {@link #fit}, and is immutable.
+ */
+public class FlywheelModel {
+
+    /** Velocities slower than this are not used in the fit, the flywheel is stopped or barely turning. */
+    private static final double MIN_FIT_VELOCITY = 100.0;
+
+    private final double m_kS;
+    private final double m_kV;
+
+    /**
+     * Instantiate a flywheel model.
+     *
+     * @param kS (double) The static friction voltage, in volts.
+     * @param kV (double) The velocity gain, in volts per unit of velocity.
+     */
+    public FlywheelModel(double kS, double kV) {
+        m_kS = kS;
+        m_kV = kV;
+    }
+
+    public double getKS() {
+        return m_kS;
+    }
+
+    public double getKV() {
+        return m_kV;
+    }
+
+    /**
+     * @param velocity (double) The flywheel velocity.
+     * @return The voltage the model says holds that velocity, in volts.
+     */
+    public double getVoltage(double velocity) {
+        return (m_kS * Math.signum(velocity)) + (m_kV * velocity);
+    }
+
+    /**
+     * Fit a model to settled flywheel samples by linear least squares. Samples slower than
+     * {@link #MIN_FIT_VELOCITY} are not used.
+     *
+     * @param voltage  (double[]) The applied voltage of each sample, in volts.
+     * @param velocity (double[]) The settled velocity of each sample.
+     * @param count    (int) The number of samples.
+     * @return The fitted model.
+     * @throws IllegalArgumentException If the samples do not determine a model (too few, or all at one speed).
+     */
+    public static FlywheelModel fit(double[] voltage, double[] velocity, int count) {
+        // the normal equations, (X^T X) k = X^T y, for the rows [sign(v), v]
+        double ss = 0.0;
+        double sv = 0.0;
+        double vv = 0.0;
+        double sy = 0.0;
+        double vy = 0.0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(velocity[i]) < MIN_FIT_VELOCITY) {
+                continue;
+            }
+            double sign = Math.signum(velocity[i]);
+            ss += sign * sign;
+            sv += sign * velocity[i];
+            vv += velocity[i] * velocity[i];
+            sy += sign * voltage[i];
+            vy += velocity[i] * voltage[i];
+            used++;
+        }
+        if (used < 2) {
+            throw new IllegalArgumentException("At least 2 moving samples are required, there were " + used + ".");
+        }
+        // X^T X is symmetric positive semi-definite, a determinant that is a tiny fraction of the product of its
+        // diagonal means the samples are (almost) all at one speed
+        double determinant = (ss * vv) - (sv * sv);
+        if (!(determinant > 1.0e-9 * ss * vv)) {
+            throw new IllegalArgumentException("The samples do not determine kS and kV.");
+        }
+        return new FlywheelModel(((vv * sy) - (sv * vy)) / determinant, ((ss * vy) - (sv * sy)) / determinant);
+    }
+
+    /**
+     * Read a model from a JSON dictionary, a dictionary with {@code "kS"} and {@code "kV"}.
+     *
+     * @param dict (JSONObject) The dictionary containing the model.
+     * @param key  (String) The key of the model in {@code dict}.
+     * @return The model.
+     * @throws NullPointerException If the model or one of its values is missing.
+     */
+    public static FlywheelModel read(JSONObject dict, String key) {
+        JSONObject model = (JSONObject) dict.get(key);
+        if (null == model) {
+            throw new NullPointerException(String.format("No model for key '%s'", key));
+        }
+        return new FlywheelModel(getNumber(model, "kS"), getNumber(model, "kV"));
+    }
+
+    /**
+     * Get a required number from a JSON dictionary, see {@link ShooterCalibrationTable}.
+     */
+    private static double getNumber(JSONObject dict, String key) {
+        Object value = dict.get(key);
+        if (null == value) {
+            throw new NullPointerException(String.format("No value for key '%s'", key));
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Write this model into a JSON dictionary.
+     *
+     * @param dict (JSONObject) The dictionary to add the model to.
+     * @param key  (String) The key of the model in {@code dict}.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(JSONObject dict, String key) {
+        JSONObject model = new JSONObject();
+        model.put("kS", m_kS);
+        model.put("kV", m_kV);
+        dict.put(key, model);
+    }
+}
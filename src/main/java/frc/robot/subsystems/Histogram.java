@@ -0,0 +1,83 @@
+package frc.robot.subsystems;
+
+/**
+ * A fixed bin histogram, for collecting the distribution of a measurement over a match or a practice session.
+ * Values below the range are counted in the first bin and values above the range in the last bin, so every
+ * value is counted. The bins are preallocated, adding a value does not allocate.
+ */
+public class Histogram {
+
+    private final double m_min;
+    private final double m_binWidth;
+    private final double[] m_counts;
+    private int m_count = 0;
+    private double m_sum = 0.0;
+
+    /**
+     * Instantiate a histogram.
+     *
+     * @param min      (double) The low end of the first bin.
+     * @param max      (double) The high end of the last bin.
+     * @param binCount (int) The number of bins, at least 1.
+     */
+    public Histogram(double min, double max, int binCount) {
+        if ((binCount < 1) || !(max > min)) {
+            throw new IllegalArgumentException("A histogram needs at least 1 bin and max greater than min.");
+        }
+        m_min = min;
+        m_binWidth = (max - min) / binCount;
+        m_counts = new double[binCount];
+    }
+
+    /**
+     * Add a value to the histogram. {@link Double#NaN} is ignored.
+     *
+     * @param value (double) The value.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int bin = (int) Math.floor((value - m_min) / m_binWidth);
+        m_counts[Math.max(0, Math.min(bin, m_counts.length - 1))]++;
+        m_count++;
+        m_sum += value;
+    }
+
+    /**
+     * @return The number of values added.
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @return The mean of the values added, {@link Double#NaN} if none have been.
+     */
+    public double getMean() {
+        return (m_count == 0) ? Double.NaN : m_sum / m_count;
+    }
+
+    /**
+     * @return The number of bins.
+     */
+    public int getBinCount() {
+        return m_counts.length;
+    }
+
+    /**
+     * @param bin (int) The bin, 0 is the lowest.
+     * @return The value at the low end of the bin.
+     */
+    public double getBinStart(int bin) {
+        return m_min + (bin * m_binWidth);
+    }
+
+    /**
+     * @return The count in each bin. This is the histogram's own array (as doubles so it can be published
+     * directly), do not change it.
+     */
+    public double[] getCounts() {
+        return m_counts;
+    }
+}
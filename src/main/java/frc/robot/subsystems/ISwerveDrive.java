@@ -21,6 +21,16 @@ public interface ISwerveDrive {
      */
     public void setFieldPosition(double fieldX, double fieldY, AngleD heading);
 
+    /**
+     * @return The current X location of the robot on the field.
+     */
+    double getFieldX();
+
+    /**
+     * @return The current Y location of the robot on the field.
+     */
+    double getFieldY();
+
     /**
      * Run the swerve drive with the specified {@code  forward}, {@code strafe}, and {@code rotation} chassis
      * relative components.
@@ -44,6 +54,16 @@ public interface ISwerveDrive {
      */
     void prepareForDriveComponents(double forward, double strafe, double rotation);
 
+    /**
+     * Test whether the modules have reached the directions they were set to by the last
+     * {@link #prepareForDriveComponents(double, double, double)}. This does not wait - commands should call
+     * this each command cycle until it returns {@code true}, and then start driving.
+     *
+     * @return {@code true} if all the modules are at their directions, or if the modules have been given as
+     * much time as they should need, {@code false} otherwise.
+     */
+    boolean isAligned();
+
     /**
      * Swerve drive with a robot-relative direction, a speed and a rotation speed.
      *
@@ -34,6 +34,14 @@ public class LiftSubsystem extends SubsystemBase {
     private final TalonSRX m_lift_left = new TalonSRX(Constants.CAN_Devices.LIFT_LEFT);
     private final TalonSRX m_lift_right = new TalonSRX(Constants.CAN_Devices.LIFT_RIGHT);
 
+    // last setpoints sent to the lift Talons so redundant set() calls are skipped. This saves the call, not a CAN
+    // frame - the CTRE library sends the control frame periodically whatever is set.
+    private static final double POSITION_TOLERANCE = 10.0; // encoder tics
+    private static final double POWER_TOLERANCE = 0.001;
+    private final SetpointCache m_leftSetpoint = new SetpointCache(SetpointCache.Controller.TALON, POSITION_TOLERANCE);
+    private final SetpointCache m_rightSetpoint =
+            new SetpointCache(SetpointCache.Controller.TALON, POSITION_TOLERANCE);
+
     // PID constants
     private double LIFT_kP = 0.7;
     private double LIFT_kI = 0.0008;
@@ -87,7 +95,9 @@ public class LiftSubsystem extends SubsystemBase {
      * @param position (double) Encoder value to set the hanger at.
      */
     public void setLeftPosition(double position) {
-        m_lift_left.set(ControlMode.Position, position);
+        if (m_leftSetpoint.shouldSend(ControlMode.Position, position, POSITION_TOLERANCE)) {
+            m_lift_left.set(ControlMode.Position, position);
+        }
     }
 
     /**
@@ -102,7 +112,9 @@ public class LiftSubsystem extends SubsystemBase {
      * @param position (double) Encoder value to set the hanger at.
      */
     public void setRightPosition(double position) {
-        m_lift_right.set(ControlMode.Position, position);
+        if (m_rightSetpoint.shouldSend(ControlMode.Position, position, POSITION_TOLERANCE)) {
+            m_lift_right.set(ControlMode.Position, position);
+        }
     }
 
     /**
@@ -113,19 +125,26 @@ public class LiftSubsystem extends SubsystemBase {
     }
 
     public void setLeftPower(double power) {
-        m_lift_left.set(ControlMode.PercentOutput, power);
+        if (m_leftSetpoint.shouldSend(ControlMode.PercentOutput, power, POWER_TOLERANCE)) {
+            m_lift_left.set(ControlMode.PercentOutput, power);
+        }
     }
 
     public void setRightPower(double power) {
-        m_lift_right.set(ControlMode.PercentOutput, power);
+        if (m_rightSetpoint.shouldSend(ControlMode.PercentOutput, power, POWER_TOLERANCE)) {
+            m_lift_right.set(ControlMode.PercentOutput, power);
+        }
     }
 
     public void setLeftEncoder(double position) {
         m_lift_left.setSelectedSensorPosition(position);
+        // a position setpoint means something different once the encoder is reset
+        m_leftSetpoint.invalidate();
     }
 
     public void setRightEncoder(double position) {
         m_lift_right.setSelectedSensorPosition(position);
+        m_rightSetpoint.invalidate();
     }
 
     public void zeroEncoders() {
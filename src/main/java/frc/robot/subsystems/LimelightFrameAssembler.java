@@ -0,0 +1,112 @@
+package frc.robot.subsystems;
+
+/**
+ * Assembles Limelight frames from the NetworkTables entry notifications and queues them to a
+ * {@link LimelightFrameQueue}. The Limelight writes {@code tv}, {@code tx} and {@code ty} for a frame and then
+ * {@code tl} (the pipeline latency), and the notifications arrive one entry at a time - so a frame read from the
+ * table while it is being written mixes new values with the previous frame's. Instead, each notification's own
+ * value is held, and the frame is queued when its {@code tl} arrives.
+ * <p>
+ * NetworkTables only notifies when a value changes, so a frame with the same {@code tl} as the one before has no
+ * {@code tl} notification. A change to {@code tv}, {@code tx} or {@code ty} that is not followed by a {@code tl}
+ * is queued by {@link #flush(double)} (called every scheduler cycle) once no entry has changed for
+ * {@link #SETTLE_TIME} - the entries of a frame arrive together, so by then the whole frame has arrived.
+ * <p>
+ * The notifications are delivered on the NetworkTables listener thread and {@link #flush(double)} is called on
+ * the robot thread, so the methods are {@code synchronized}, which also keeps the queue to one producer at a time.
+ */
+public class LimelightFrameAssembler {
+
+    /** The time after the last entry change that a frame without a {@code tl} change is queued, half the frame
+     * period at 90 frames/sec, in seconds. */
+    private static final double SETTLE_TIME = 0.5 / 90.0;
+
+    private final LimelightFrameQueue m_frames;
+    private final double m_captureLatency;
+
+    // the values of the frame being assembled, the tl is the last one received
+    private double m_tv = -100.0;
+    private double m_tx = -100.0;
+    private double m_ty = -100.0;
+    private double m_tl = -100.0;
+    // true if an entry has changed since the last frame was queued, and the FPGA timestamp of the last change
+    private boolean m_pending = false;
+    private double m_changeTime = 0.0;
+
+    /**
+     * Instantiate a frame assembler.
+     *
+     * @param frames         (LimelightFrameQueue) The queue the assembled frames are offered to.
+     * @param captureLatency (double) The latency from the frame capture to the start of the pipeline, in
+     *                       milliseconds, see {@link frc.robot.Constants#LIMELIGHT_CAPTURE_LATENCY}.
+     */
+    public LimelightFrameAssembler(LimelightFrameQueue frames, double captureLatency) {
+        m_frames = frames;
+        m_captureLatency = captureLatency;
+    }
+
+    /**
+     * @param tv   (double) The new {@code tv}, 1.0 if there is a target.
+     * @param time (double) The FPGA timestamp the {@code tv} arrived, in seconds.
+     */
+    public synchronized void setTv(double tv, double time) {
+        m_tv = tv;
+        changed(time);
+    }
+
+    /**
+     * @param tx   (double) The new {@code tx}, the horizontal offset to the target, in degrees.
+     * @param time (double) The FPGA timestamp the {@code tx} arrived, in seconds.
+     */
+    public synchronized void setTx(double tx, double time) {
+        m_tx = tx;
+        changed(time);
+    }
+
+    /**
+     * @param ty   (double) The new {@code ty}, the vertical offset to the target, in degrees.
+     * @param time (double) The FPGA timestamp the {@code ty} arrived, in seconds.
+     */
+    public synchronized void setTy(double ty, double time) {
+        m_ty = ty;
+        changed(time);
+    }
+
+    private void changed(double time) {
+        m_pending = true;
+        m_changeTime = time;
+    }
+
+    /**
+     * The {@code tl} of a frame arrived, the last entry the Limelight writes - queue the frame.
+     *
+     * @param tl   (double) The pipeline latency, in milliseconds.
+     * @param time (double) The FPGA timestamp the {@code tl} arrived, in seconds.
+     * @return {@code true} if the frame was queued, {@code false} if the queue is full and it was dropped.
+     */
+    public synchronized boolean frameComplete(double tl, double time) {
+        m_tl = tl;
+        return offer(time);
+    }
+
+    /**
+     * Queue the frame if an entry changed without a {@code tl} change following it, and no entry has changed for
+     * {@link #SETTLE_TIME}.
+     *
+     * @param time (double) The FPGA timestamp now, in seconds.
+     * @return {@code true} if a frame was queued.
+     */
+    public synchronized boolean flush(double time) {
+        return m_pending && (time - m_changeTime >= SETTLE_TIME) && offer(m_changeTime);
+    }
+
+    /**
+     * Queue the frame, stamped with when it was captured: the pipeline latency plus the capture latency before
+     * the time it arrived.
+     */
+    private boolean offer(double time) {
+        m_pending = false;
+        double latency = (m_tl == -100.0) ? 0.0 : m_tl;
+        return m_frames.offer(m_tv, m_tx, m_ty, m_tl, time - ((latency + m_captureLatency) / 1000.0));
+    }
+}
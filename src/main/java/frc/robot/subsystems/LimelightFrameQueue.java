@@ -0,0 +1,165 @@
+package frc.robot.subsystems;
+
+/**
+ * A fixed capacity queue of Limelight frames from the frame assembler (the single producer, see
+ * {@link LimelightFrameAssembler}) to the scheduler loop (the single consumer). The frames are kept in parallel
+ * primitive arrays used as a ring buffer, and the only shared state is the two volatile indices - the producer
+ * only writes {@code m_tail}, the consumer only writes {@code m_head} - so neither side ever takes a lock or
+ * allocates.
+ * <p>
+ * The Limelight runs at up to 90 frames/sec and the consumer drains the queue every 20ms, so the queue only fills
+ * if the scheduler loop stalls. When it is full new frames are dropped (and counted); the frames already in the
+ * queue are still delivered in order.
+ */
+public class LimelightFrameQueue {
+
+    private final int m_mask;
+
+    // the frames, indexed by the ring buffer position
+    private final double[] m_tv;
+    private final double[] m_tx;
+    private final double[] m_ty;
+    private final double[] m_tl;
+    private final double[] m_captureTime;
+
+    // the next position the consumer reads, and the next position the producer writes. These only increase,
+    // the ring buffer position is the index masked by the capacity.
+    private volatile long m_head = 0;
+    private volatile long m_tail = 0;
+
+    // written only by the producer
+    private volatile long m_droppedCount = 0;
+
+    /**
+     * A Limelight frame. The consumer keeps its own instance and refreshes it with
+     * {@link LimelightFrameQueue#poll(Frame)}.
+     */
+    public static class Frame {
+        private double m_tv = -100.0;
+        private double m_tx = -100.0;
+        private double m_ty = -100.0;
+        private double m_tl = -100.0;
+        private double m_captureTime = 0.0;
+
+        /**
+         * @return Whether the limelight has any valid targets (0 or 1).
+         */
+        public double getTv() {
+            return m_tv;
+        }
+
+        /**
+         * @return Horizontal offset from crosshair to target, in degrees.
+         */
+        public double getTx() {
+            return m_tx;
+        }
+
+        /**
+         * @return Vertical offset from crosshair to target, in degrees.
+         */
+        public double getTy() {
+            return m_ty;
+        }
+
+        /**
+         * @return The pipeline latency, in milliseconds.
+         */
+        public double getTl() {
+            return m_tl;
+        }
+
+        /**
+         * @return The FPGA timestamp the frame was captured, in seconds.
+         */
+        public double getCaptureTime() {
+            return m_captureTime;
+        }
+    }
+
+    /**
+     * Instantiate a frame queue.
+     *
+     * @param capacity (int) The number of frames the queue can hold. This is rounded up to a power of 2.
+     */
+    public LimelightFrameQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        m_mask = size - 1;
+        m_tv = new double[size];
+        m_tx = new double[size];
+        m_ty = new double[size];
+        m_tl = new double[size];
+        m_captureTime = new double[size];
+    }
+
+    /**
+     * @return The number of frames this queue can hold.
+     */
+    public int getCapacity() {
+        return m_mask + 1;
+    }
+
+    /**
+     * Add a frame to the queue. Only call this from the producer thread.
+     *
+     * @param tv          (double) Whether the limelight has any valid targets (0 or 1).
+     * @param tx          (double) Horizontal offset from crosshair to target, in degrees.
+     * @param ty          (double) Vertical offset from crosshair to target, in degrees.
+     * @param tl          (double) The pipeline latency, in milliseconds.
+     * @param captureTime (double) The FPGA timestamp the frame was captured, in seconds.
+     * @return {@code true} if the frame was added, {@code false} if the queue was full and the frame was dropped.
+     */
+    public boolean offer(double tv, double tx, double ty, double tl, double captureTime) {
+        long tail = m_tail;
+        if (tail - m_head > m_mask) {
+            m_droppedCount++;
+            return false;
+        }
+        int i = (int) tail & m_mask;
+        m_tv[i] = tv;
+        m_tx[i] = tx;
+        m_ty[i] = ty;
+        m_tl[i] = tl;
+        m_captureTime[i] = captureTime;
+        // publishing the new tail after the frame is written makes the frame visible to the consumer
+        m_tail = tail + 1;
+        return true;
+    }
+
+    /**
+     * Remove the oldest frame from the queue. Only call this from the consumer thread.
+     *
+     * @param frame (Frame, not null) The frame that will be set to the oldest frame.
+     * @return {@code true} if {@code frame} was set, {@code false} if the queue is empty (in which case
+     * {@code frame} is unchanged).
+     */
+    public boolean poll(Frame frame) {
+        long head = m_head;
+        if (head == m_tail) {
+            return false;
+        }
+        int i = (int) head & m_mask;
+        frame.m_tv = m_tv[i];
+        frame.m_tx = m_tx[i];
+        frame.m_ty = m_ty[i];
+        frame.m_tl = m_tl[i];
+        frame.m_captureTime = m_captureTime[i];
+        // publishing the new head after the frame is read frees the slot for the producer
+        m_head = head + 1;
+        return true;
+    }
+
+    /**
+     * @return The number of frames in the queue.
+     */
+    public int size() {
+        return (int) (m_tail - m_head);
+    }
+
+    /**
+     * @return The number of frames dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return m_droppedCount;
+    }
+}
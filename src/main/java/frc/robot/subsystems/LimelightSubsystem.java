@@ -1,8 +1,14 @@
 package frc.robot.subsystems;
 
 
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
@@ -10,6 +16,8 @@ import org.a05annex.util.AngleConstantD;
 import org.a05annex.util.AngleUnit;
 import frc.robot.Constants.LimelightCalibrationPoint;
 
+import java.io.File;
+
 public class LimelightSubsystem extends SubsystemBase {
     /**
      * The Singleton instance of this LimelightSubsystem. Code should use
@@ -48,26 +56,83 @@ public class LimelightSubsystem extends SubsystemBase {
     // get limelight NetworkTable
     private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("limelight");
 
+    // the limelight entries, looked up once rather than by name every time they are read
+    private final NetworkTableEntry m_tvEntry = m_table.getEntry("tv");
+    private final NetworkTableEntry m_txEntry = m_table.getEntry("tx");
+    private final NetworkTableEntry m_tyEntry = m_table.getEntry("ty");
+    private final NetworkTableEntry m_taEntry = m_table.getEntry("ta");
+    private final NetworkTableEntry m_tsEntry = m_table.getEntry("ts");
+    private final NetworkTableEntry m_tlEntry = m_table.getEntry("tl");
+    private final NetworkTableEntry m_pipelineEntry = m_table.getEntry("pipeline");
+
     // set pipeline to default initially
     private int m_pipeline = Pipelines.SHOOTER;
 
+    // New frames are delivered by NetworkTables listeners as they arrive (up to 90 frames/sec), and queued to
+    // the scheduler loop, which handles every frame in periodic(). The frames are queued by the frame assembler,
+    // which only queues one frame at a time, so the queue has a single producer.
+    private static final int FRAME_QUEUE_CAPACITY = 16;
+    private final LimelightFrameQueue m_frames = new LimelightFrameQueue(FRAME_QUEUE_CAPACITY);
+    private final LimelightFrameQueue.Frame m_frame = new LimelightFrameQueue.Frame();
+
+    // assembles each frame from the entry notifications, and queues it when the last entry (tl) arrives, or in
+    // periodic() if the frame changed without a tl change
+    private final LimelightFrameAssembler m_frameAssembler =
+            new LimelightFrameAssembler(m_frames, Constants.LIMELIGHT_CAPTURE_LATENCY);
+
     // data class
     private static class TargetData {
-        double tv;
-        double tx;
-        double ty;
-        double ta;
-        double ts;
-
-        TargetData(double tv, double tx, double ty, double ta, double ts) {
-            this.tv = tv;
-            this.tx = tx;
-            this.ty = ty;
-            this.ta = ta;
-            this.ts = ts;
-        }
+        double tv = -100.0;
+        double tx = -100.0;
+        double ty = -100.0;
+        double ta = -100.0;
+        double ts = -100.0;
+        double tl = -100.0;
+        // the FPGA timestamp the frame was captured, in seconds
+        double captureTime = 0.0;
     }
 
+    // the target data for this scheduler cycle - the newest frame, updated once in periodic() and used by
+    // every accessor
+    private final TargetData m_targetData = new TargetData();
+
+    // The shooter calibration, and the shot evaluated from the newest frame, see evaluateShot(). The calibration
+    // is loaded from the deploy directory, and a thread checks the file every CALIBRATION_CHECK_MS and swaps in
+    // a new table when the file changes.
+    private static final long CALIBRATION_CHECK_MS = 1000;
+    private final File m_calibrationFile =
+            new File(Filesystem.getDeployDirectory(), Constants.SHOOTER_CALIBRATION_FILE);
+    private long m_calibrationModified = 0;
+    private volatile ShooterCalibrationTable m_calibration =
+            new ShooterCalibrationTable(Constants.LIMELIGHT_CALIBRATION_POINTS);
+    private final ShooterCalibrationTable.Speeds m_speeds = new ShooterCalibrationTable.Speeds();
+    private CAN_SHOOT m_canShoot = CAN_SHOOT.NO_LIMELIGHT;
+
+    // The tracking filter over every frame's tx and ty. Aiming and the shot use the filtered target, the tx and
+    // ty the shot was evaluated with are kept here.
+    private final TargetTracker m_tracker = new TargetTracker();
+    private double m_aimTx = 0.0;
+    private double m_aimTy = -100.0;
+
+    // The frame is 20-60ms old when we get it, and the robot may have rotated since it was captured. The target
+    // tx is measured from the heading at capture time (from the pose history), so the field heading of the
+    // target is that heading plus tx, and the error is from the current heading to there. Both are in radians.
+    private final PosePublisher.Pose m_pose = new PosePublisher.Pose();
+    private double m_targetHeading = 0.0;
+    private double m_aimError = 0.0;
+
+    // The shot is made to the virtual target that compensates for the robot velocity. The heading lead to the
+    // virtual target is in degrees, and is 0.0 if the robot is stopped.
+    private final ShotSolver m_shotSolver =
+            new ShotSolver(Constants.SHOT_TIME_OF_FLIGHT_BASE, Constants.SHOT_TIME_OF_FLIGHT_PER_METER);
+    private double m_leadOffset = 0.0;
+
+    // The chassis velocity is the odometry delta over one 5ms odometry cycle, which is noisy, so the velocity
+    // the shot is solved with is low-pass filtered once per scheduler cycle (20ms), in meters/sec.
+    private static final double SHOT_VELOCITY_ALPHA = 0.02 / (Constants.SHOT_VELOCITY_TIME_CONSTANT + 0.02);
+    private double m_shotForwardVelocity = 0.0;
+    private double m_shotStrafeVelocity = 0.0;
+
     /**
      * Creates a new instance of this LimelightSubsystem. This constructor
      * is private since this class is a Singleton. Code should use
@@ -76,6 +141,65 @@ public class LimelightSubsystem extends SubsystemBase {
     private LimelightSubsystem() {
         // set default pipeline
         setPipeline(m_pipeline);
+
+        // listen for new frames, including the values already in the table. Each listener uses the value of its
+        // own notification, so a frame is never read from the table while the limelight is writing the next one.
+        int flags = EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate;
+        m_tvEntry.addListener(notification ->
+                m_frameAssembler.setTv(notification.value.getDouble(), Timer.getFPGATimestamp()), flags);
+        m_txEntry.addListener(notification ->
+                m_frameAssembler.setTx(notification.value.getDouble(), Timer.getFPGATimestamp()), flags);
+        m_tyEntry.addListener(notification ->
+                m_frameAssembler.setTy(notification.value.getDouble(), Timer.getFPGATimestamp()), flags);
+        m_tlEntry.addListener(this::frameReceived, flags);
+
+        // load the shooter calibration, and watch for changes
+        loadCalibration();
+        Thread calibrationThread = new Thread(this::watchCalibration, "Shooter calibration");
+        calibrationThread.setDaemon(true);
+        calibrationThread.start();
+    }
+
+    /**
+     * The calibration thread - reload the shooter calibration whenever the file changes.
+     */
+    private void watchCalibration() {
+        while (true) {
+            try {
+                Thread.sleep(CALIBRATION_CHECK_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (m_calibrationFile.lastModified() != m_calibrationModified) {
+                loadCalibration();
+            }
+        }
+    }
+
+    /**
+     * Load the shooter calibration file and swap it in. If it cannot be loaded the current calibration is kept
+     * (at startup, that is {@link Constants#LIMELIGHT_CALIBRATION_POINTS}).
+     */
+    private void loadCalibration() {
+        m_calibrationModified = m_calibrationFile.lastModified();
+        try {
+            ShooterCalibrationTable calibration = ShooterCalibrationTable.load(m_calibrationFile.getPath());
+            m_calibration = calibration;
+            System.out.println("Loaded shooter calibration, " + calibration.getPointCount() + " points.");
+        } catch (Exception e) {
+            DriverStation.reportWarning("Could not load shooter calibration '" + m_calibrationFile + "': " +
+                    e.getMessage(), false);
+        }
+    }
+
+    /**
+     * The NetworkTables listener for {@code tl}, the last entry the limelight writes for a frame, called on the
+     * listener thread. Queue the frame for {@link #periodic()}, see {@link LimelightFrameAssembler}.
+     *
+     * @param notification (EntryNotification) The {@code tl} change.
+     */
+    private void frameReceived(EntryNotification notification) {
+        m_frameAssembler.frameComplete(notification.value.getDouble(), Timer.getFPGATimestamp());
     }
 
     public int getPipeline() {
@@ -84,69 +208,245 @@ public class LimelightSubsystem extends SubsystemBase {
 
     public void setPipeline(int pipeline) {
         m_pipeline = pipeline;
-        m_table.getEntry("pipeline").setNumber(m_pipeline);
+        m_pipelineEntry.setNumber(m_pipeline);
     }
 
     /**
-     *
-     * @return (AngleConstantD) The difference between the target and the limelight cursor, in degrees.
+     * The heading error to the target from the current heading, compensated for the robot rotation since the
+     * frame was captured. If the robot is moving this leads the target so the shot lands on the target, see
+     * {@link ShotSolver}.
+     * @return (AngleConstantD) The difference between the target and the limelight cursor.
      */
     public AngleConstantD getTargetError() {
-        double tx = getTargetData().tx;
-        double ty = getTargetData().ty;
+        return new AngleConstantD(AngleUnit.RADIANS, getTargetErrorRadians());
+    }
 
-        CAN_SHOOT canShoot = canShoot();
+    /**
+     * The {@link #getTargetError()} in radians, for callers that run every cycle - this does not allocate.
+     * @return (double) The difference between the target and the limelight cursor, in radians, 0.0 if there is
+     * no target.
+     */
+    public double getTargetErrorRadians() {
         // if no limelight or no target, no error
-        if (canShoot == CAN_SHOOT.NO_LIMELIGHT || canShoot == CAN_SHOOT.NO_TARGET) {
-            return new AngleConstantD(AngleConstantD.ZERO);
+        if (m_canShoot == CAN_SHOOT.NO_LIMELIGHT || m_canShoot == CAN_SHOOT.NO_TARGET) {
+            return 0.0;
         }
+        return m_aimError + getAimOffset();
+    }
+
+    /**
+     * The field heading to aim the robot at the target. Unlike adding {@link #getTargetError()} to the current
+     * heading, this does not depend on when it is called - the target heading is fixed by the heading when the
+     * frame was captured, so a rotating robot converges on the target rather than overshooting it.
+     * @return (AngleConstantD) The field heading that aims at the target, the current heading if there is no
+     * target.
+     */
+    public AngleConstantD getTargetHeading() {
+        return new AngleConstantD(AngleUnit.RADIANS, getTargetHeadingRadians());
+    }
 
-        // if outside of range, use tx
-        if (canShoot == CAN_SHOOT.TOO_CLOSE || canShoot == CAN_SHOOT.TOO_FAR) {
-            return new AngleConstantD(AngleUnit.DEGREES, getTargetData().tx);
+    /**
+     * The {@link #getTargetHeading()} in radians, for callers that run every cycle - this does not allocate.
+     * @return (double) The field heading that aims at the target, the current heading if there is no target,
+     * in radians.
+     */
+    public double getTargetHeadingRadians() {
+        // if no limelight or no target, stay where we are
+        if (m_canShoot == CAN_SHOOT.NO_LIMELIGHT || m_canShoot == CAN_SHOOT.NO_TARGET) {
+            return DriveSubsystem.getInstance().getFieldHeadingRadians();
         }
+        return m_targetHeading + getAimOffset();
+    }
 
-        // else, use offset based on cal points
-        LimelightCalibrationPoint[] limelightPoints = Constants.LIMELIGHT_CALIBRATION_POINTS;
-        int closePoint = 0;
-        int farPoint = 1;
-        while (farPoint < limelightPoints.length) {
-            if (ty > limelightPoints[farPoint].ty) {
-                // find parametric distance from close point (0 to 1)
-                double intervalAngle = limelightPoints[farPoint].ty - limelightPoints[closePoint].ty;
-                double deltaAngle = ty - limelightPoints[closePoint].ty;
-                double parametricDistance = deltaAngle / intervalAngle;
-
-                // find offset between two points
-                double xOffset = (limelightPoints[closePoint].xOffset * (1-parametricDistance)) +
-                        (limelightPoints[farPoint].xOffset * parametricDistance);
-
-                // add offset to tx and return
-                return new AngleConstantD(AngleUnit.DEGREES, tx + xOffset);
-            } else {
-                // wrong point, keep going
-                closePoint++;
-                farPoint++;
-            }
+    /**
+     * @return (double) The offset from the target to aim at, the shot lead and, if the calibration has speeds
+     * for the range, the calibrated x offset, in radians.
+     */
+    private double getAimOffset() {
+        // if outside of range, there is no calibrated x offset
+        if (m_canShoot == CAN_SHOOT.TOO_CLOSE || m_canShoot == CAN_SHOOT.TOO_FAR) {
+            return Math.toRadians(m_leadOffset);
         }
-        // something went wrong, return zero
-        System.out.println("LimelightSubsystem line 132 says this shouldn't happen");
-        return new AngleConstantD(AngleConstantD.ZERO);
+        return Math.toRadians(m_leadOffset + m_speeds.getXOffset());
     }
 
     /**
      * Should calculate the distance to the center of the target. Not working currrently, since the target is curved.
-     * @return (double) The distance to the target in meters.
+     * @return (double) The distance to the target in meters, from the filtered target.
      */
     public double distanceToTarget() {
-        double ty = getTargetData().ty;
-        if (ty == -100.0) {
+        if (m_aimTy == -100.0) {
             return 0.0;
         }
+        return distanceToTarget(m_aimTy);
+    }
+
+    /**
+     * @return (double) The filtered bearing to the target (tx), in degrees, 0.0 if there is no target.
+     */
+    public double getTargetBearing() {
+        return isTracking() ? m_tracker.getTx() : 0.0;
+    }
+
+    /**
+     * @return (double) The filtered rate of change of the bearing to the target, in degrees/sec, 0.0 if there
+     * is no target.
+     */
+    public double getTargetBearingRate() {
+        return isTracking() ? m_tracker.getTxRate() : 0.0;
+    }
+
+    /**
+     * @return (double) The distance to the target from the filtered ty, in meters, 0.0 if there is no target.
+     */
+    public double getTargetRange() {
+        return isTracking() ? distanceToTarget(m_tracker.getTy()) : 0.0;
+    }
+
+    /**
+     * @return {@code true} if the target is being tracked and the track is not stale, see
+     * {@link TargetTracker#isTracking(double)}.
+     */
+    private boolean isTracking() {
+        return m_tracker.isTracking(Timer.getFPGATimestamp());
+    }
+
+    private static double distanceToTarget(double ty) {
         return ((Constants.TARGET_HEIGHT - Constants.LIMELIGHT_HEIGHT) /
                 Math.tan(Math.toRadians(Constants.LIMELIGHT_ANGLE + ty))) + Constants.TARGET_RADIUS;
     }
 
+    /**
+     * The inverse of {@link #distanceToTarget(double)}.
+     * @param distance (double) The distance to the target in meters.
+     * @return (double) The {@code ty} the target would be seen at from that distance, in degrees.
+     */
+    private static double tyAtDistance(double distance) {
+        return Math.toDegrees(Math.atan2(Constants.TARGET_HEIGHT - Constants.LIMELIGHT_HEIGHT,
+                distance - Constants.TARGET_RADIUS)) - Constants.LIMELIGHT_ANGLE;
+    }
+
+    @Override
+    public void periodic() {
+        // This method will be called once per scheduler run, before the commands run
+        readTargetData();
+
+        // handle every frame that arrived since the last run, the target data is left at the newest. A frame
+        // whose tl did not change is only queued now.
+        double time = Timer.getFPGATimestamp();
+        m_frameAssembler.flush(time);
+        while (m_frames.poll(m_frame)) {
+            m_targetData.tv = m_frame.getTv();
+            m_targetData.tx = m_frame.getTx();
+            m_targetData.ty = m_frame.getTy();
+            m_targetData.tl = m_frame.getTl();
+            m_targetData.captureTime = m_frame.getCaptureTime();
+            reportHubObservation();
+            if ((m_frame.getTv() == 1.0) && (m_frame.getTy() != -100.0)) {
+                m_tracker.update(m_frame.getTx(), m_frame.getTy(), m_frame.getCaptureTime());
+            } else {
+                m_tracker.lost();
+            }
+        }
+        // if no frame has arrived for a while the limelight has stopped sending, the target is not known
+        if ((m_targetData.tv == 1.0) && (time - m_targetData.captureTime > TargetTracker.RESET_TIME)) {
+            m_targetData.tv = 0.0;
+            m_tracker.lost();
+        }
+        // the shot is evaluated every cycle, not just for new frames, because the robot velocity changes
+        evaluateShot();
+    }
+
+    /**
+     * Evaluate whether we can shoot, and the calibrated shooter speeds and x offset, for the newest frame and the
+     * current robot velocity. This is done once per scheduler cycle, {@link #canShoot()},
+     * {@link #getShooterSpeeds()} and {@link #getTargetError()} all use the result. The filtered target is used
+     * if it is being tracked; if the newest frame was rejected by the filter the raw target is used until the
+     * filter picks up the target again.
+     * <p>
+     * If the robot is moving the shot is solved for the virtual target (see {@link ShotSolver}): the shooter
+     * speeds are looked up at the {@code ty} the virtual target would be seen at, and the heading leads the
+     * target. If the robot is stopped, or shooting on the move is off, the virtual target is the target.
+     * <p>
+     * The target {@code tx} is relative to the robot heading when the frame was captured, which is looked up
+     * in the drive pose history. If the capture time is older than the history the current heading is used.
+     */
+    private void evaluateShot() {
+        filterShotVelocity();
+        ShooterCalibrationTable calibration = m_calibration;
+        boolean tracking = isTracking();
+        m_aimTx = tracking ? m_tracker.getTx() : m_targetData.tx;
+        m_aimTy = tracking ? m_tracker.getTy() : m_targetData.ty;
+        double ty = m_aimTy;
+        m_leadOffset = 0.0;
+        if (m_targetData.ty == -100.0) {
+            // networktables returns default value
+            m_canShoot = CAN_SHOOT.NO_LIMELIGHT;
+        } else if (m_targetData.tv == 0.0) {
+            // no target
+            m_canShoot = CAN_SHOOT.NO_TARGET;
+        } else {
+            // the target heading from the heading when the frame was captured, and the error from now
+            DriveSubsystem drive = DriveSubsystem.getInstance();
+            double heading = drive.getPose(m_pose).getHeading();
+            double captureTime = tracking ? m_tracker.getTime() : m_targetData.captureTime;
+            double captureHeading = drive.getPoseAt(captureTime, m_pose) ? m_pose.getHeading() : heading;
+            m_targetHeading = captureHeading + Math.toRadians(m_aimTx);
+            m_aimError = m_targetHeading - heading;
+            // lead the target by the robot velocity
+            m_shotSolver.solve(distanceToTarget(ty), m_aimError + Constants.LIMELIGHT_DIRECTION,
+                    m_shotForwardVelocity, m_shotStrafeVelocity);
+            m_leadOffset = Math.toDegrees(m_shotSolver.getLeadOffset());
+            ty = tyAtDistance(m_shotSolver.getRange());
+            // adjust ty using tx if we are off
+            ty = ty / Math.cos(Math.toRadians(m_aimTx));
+            if (calibration.isTooClose(ty)) {
+                // closer than first cal point
+                m_canShoot = CAN_SHOOT.TOO_CLOSE;
+            } else if (calibration.isTooFar(ty)) {
+                // further than last cal point
+                m_canShoot = CAN_SHOOT.TOO_FAR;
+            } else {
+                m_canShoot = calibration.lookup(ty, m_speeds) ? CAN_SHOOT.YES : CAN_SHOOT.NO_TARGET;
+            }
+        }
+    }
+
+    /**
+     * Update the filtered chassis velocity the shot is solved with. It is updated every cycle, whether or not
+     * there is a target, so it is settled when the target is seen. If shooting on the move is off
+     * ({@link Constants#SHOOT_ON_THE_MOVE}) it is 0.0, so the shot is solved for a stopped robot.
+     */
+    private void filterShotVelocity() {
+        if (!Constants.SHOOT_ON_THE_MOVE) {
+            m_shotForwardVelocity = 0.0;
+            m_shotStrafeVelocity = 0.0;
+            return;
+        }
+        DriveSubsystem drive = DriveSubsystem.getInstance();
+        m_shotForwardVelocity += SHOT_VELOCITY_ALPHA * (drive.getChassisForwardVelocity() - m_shotForwardVelocity);
+        m_shotStrafeVelocity += SHOT_VELOCITY_ALPHA * (drive.getChassisStrafeVelocity() - m_shotStrafeVelocity);
+    }
+
+    /**
+     * Report the frame in the target data to the drive pose estimator, if it is an observation of the hub.
+     */
+    private void reportHubObservation() {
+        TargetData data = m_targetData;
+        if ((m_pipeline != Pipelines.SHOOTER) || (data.tv != 1.0) || (data.ty == -100.0) || (data.tl == -100.0)) {
+            return;
+        }
+        DriveSubsystem.getInstance().addHubObservation(distanceToTarget(data.ty), Math.toRadians(data.tx),
+                data.captureTime);
+    }
+
+    /**
+     * @return The FPGA timestamp the newest frame was captured, in seconds.
+     */
+    public double getFrameCaptureTime() {
+        return m_targetData.captureTime;
+    }
+
     public enum CAN_SHOOT {
         YES("yes"),
         TOO_CLOSE("too close"),
@@ -170,35 +470,7 @@ public class LimelightSubsystem extends SubsystemBase {
      * <p>NO_LIMELIGHT: NetworkTables is returning the default value, so the limelight is probably not plugged in</p>
      */
     public CAN_SHOOT canShoot() {
-        double ty = getTargetData().ty;
-        double tx = getTargetData().tx;
-        double tv = getTargetData().tv;
-        LimelightCalibrationPoint[] limelightPoints = Constants.LIMELIGHT_CALIBRATION_POINTS;
-
-        // networktables returns default value
-        if (ty == -100.0) {
-            return CAN_SHOOT.NO_LIMELIGHT;
-        }
-
-        // no target
-        if (tv == 0.0) {
-            return CAN_SHOOT.NO_TARGET;
-        }
-
-        // adjust ty using tx if we are off
-        ty = ty / Math.cos(Math.toRadians(tx));
-
-        // closer than first cal point
-        if (ty > limelightPoints[0].ty) {
-            return CAN_SHOOT.TOO_CLOSE;
-        }
-
-        // further than last cal point
-        if (ty < limelightPoints[limelightPoints.length - 1].ty) {
-            return CAN_SHOOT.TOO_FAR;
-        }
-
-        return CAN_SHOOT.YES;
+        return m_canShoot;
     }
 
     /**
@@ -208,66 +480,58 @@ public class LimelightSubsystem extends SubsystemBase {
      * If canShoot() returns anything other than YES, returns null.
      */
     public LimelightCalibrationPoint getShooterSpeeds() {
-        double ty = getTargetData().ty;
-        LimelightCalibrationPoint[] limelightPoints = Constants.LIMELIGHT_CALIBRATION_POINTS;
-
-        if (canShoot() != CAN_SHOOT.YES) {
+        if (m_canShoot != CAN_SHOOT.YES) {
             return null;
         }
+        return new LimelightCalibrationPoint(m_speeds.getTy(), getFrontShooterSpeed(), getRearShooterSpeed(), 0.0);
+    }
 
-        // iterate through points and find the point we are inside
-        int closePoint = 0;
-        int farPoint = 1;
-        while (farPoint < limelightPoints.length) {
-            if (ty > limelightPoints[farPoint].ty) {
-                // find parametric distance from close point (0 to 1)
-                double intervalAngle = limelightPoints[farPoint].ty - limelightPoints[closePoint].ty;
-                double deltaAngle = ty - limelightPoints[closePoint].ty;
-                double parametricDistance = deltaAngle / intervalAngle;
-
-                // find speeds using parametric distance
-                double frontSpeed = (limelightPoints[closePoint].frontSpeed * (1-parametricDistance)) +
-                        (limelightPoints[farPoint].frontSpeed * parametricDistance);
-                double rearSpeed = (limelightPoints[closePoint].rearSpeed * (1-parametricDistance)) +
-                        (limelightPoints[farPoint].rearSpeed * parametricDistance);
-
-                // add limelight bump
-                frontSpeed += m_limelightBump;
-                rearSpeed -= m_limelightBump;
-                return new LimelightCalibrationPoint(ty, frontSpeed, rearSpeed, 0.0);
-            } else {
-                // wrong point, keep going
-                closePoint++;
-                farPoint++;
-            }
-        }
-        // something went wrong
-        return null;
+    /**
+     * The front shooter speed from {@link #getShooterSpeeds()}, without allocating a calibration point, for
+     * commands that update the shooter speed every cycle.
+     * @return The front shooter speed, only meaningful if canShoot() returns YES.
+     */
+    public double getFrontShooterSpeed() {
+        return m_speeds.getFrontSpeed() + m_limelightBump;
+    }
+
+    /**
+     * The rear shooter speed from {@link #getShooterSpeeds()}, without allocating a calibration point, for
+     * commands that update the shooter speed every cycle.
+     * @return The rear shooter speed, only meaningful if canShoot() returns YES.
+     */
+    public double getRearShooterSpeed() {
+        return m_speeds.getRearSpeed() - m_limelightBump;
+    }
+
+    /**
+     * Read the target data for this scheduler cycle that is not delivered with the frames (see
+     * {@link #frameReceived(EntryNotification)}) from the limelight NetworkTable.
+     */
+    private void readTargetData() {
+        m_targetData.ta = m_taEntry.getDouble(-100.0);
+        m_targetData.ts = m_tsEntry.getDouble(-100.0);
     }
 
     /**
-     * Returns the data class to hold all target data from the limelight.
-     * If there is no data, all values will be -1.0.
+     * Returns the data class to hold all target data from the limelight, as read at the start of this
+     * scheduler cycle. This is the same instance every call, it is updated in {@link #periodic()}.
+     * If there is no data, all values will be -100.0.
      *
      * <p>tv (double): Whether the limelight has any valid targets (0 or 1)</p>
      * <p>tx (double): Horizontal offset from crosshair to target (-29.8 degrees to 29.8 degrees)</p>
      * <p>ty (double): Vertical offset from crosshair to target (-24.85 degrees to 24.85 degrees)</p>
      * <p>ta (double): Target area (0% of image to 100% of image)</p>
      * <p>ts (double): Target skew or rotation (-90 degrees to 0 degrees)</p>
+     * <p>tl (double): The pipeline latency, in milliseconds</p>
      */
     public TargetData getTargetData() {
-        return new TargetData(
-                m_table.getEntry("tv").getDouble(-100.0),
-                m_table.getEntry("tx").getDouble(-100.0),
-                m_table.getEntry("ty").getDouble(-100.0),
-                m_table.getEntry("ta").getDouble(-100.0),
-                m_table.getEntry("ts").getDouble(-100.0)
-        );
+        return m_targetData;
     }
 
     // smart dashboard methods
     public void printTargetData() {
-        TargetData data = getTargetData();
+        TargetData data = m_targetData;
         SmartDashboard.putNumber("tv", data.tv);
         SmartDashboard.putNumber("tx", data.tx);
         SmartDashboard.putNumber("ty", data.ty);
@@ -276,7 +540,7 @@ public class LimelightSubsystem extends SubsystemBase {
     }
 
     public void printXY() {
-        TargetData data = getTargetData();
+        TargetData data = m_targetData;
         SmartDashboard.putNumber("tx", data.tx);
         SmartDashboard.putNumber("ty", data.ty);
     }
@@ -4,6 +4,7 @@ import com.ctre.phoenix.sensors.CANCoderConfiguration;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 import com.revrobotics.SparkMaxPIDController;
 import com.ctre.phoenix.sensors.CANCoder;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -43,6 +44,16 @@ public class Mk4NeoModule {
      * Based on telemetry feedback, 1 wheel direction revolution maps to 18 spin encoder revolutions
      */
     static final double RADIANS_TO_SPIN_ENCODER = 12.7999 / AngleD.TWO_PI.getRadians();
+    /**
+     * The distance the wheel moves for one revolution of the drive motor encoder, derived from the
+     * measured {@link #MAX_METERS_PER_SEC} at {@link #MAX_DRIVE_RPM} so odometry agrees with the speed
+     * calibration.
+     */
+    static final double DRIVE_METERS_PER_ENCODER_REV = MAX_METERS_PER_SEC * 60.0 / MAX_DRIVE_RPM;
+
+    // primitive angle constants for the per-cycle direction math
+    private static final double TWO_PI = AngleD.TWO_PI.getRadians();
+    private static final double PI_OVER_2 = AngleD.PI_OVER_2.getRadians();
 
     // PID values for the spin spark motor encoder position controller PID loop
     static double SPIN_kP = 0.5;
@@ -58,6 +69,22 @@ public class Mk4NeoModule {
     static double DRIVE_POS_kP = 0.13;
     static double DRIVE_POS_kI = 0.0;
 
+    // Setpoint tolerances below which a new setpoint is not sent to the Spark Max - the direction is in spin
+    // encoder revolutions (about 0.003 degrees of wheel direction), the drive speed in RPM, and the drive
+    // position in drive encoder revolutions.
+    static final double DIRECTION_TOLERANCE = 0.0001;
+    static final double DRIVE_SPEED_TOLERANCE = 0.5;
+    static final double DRIVE_POSITION_TOLERANCE = 0.001;
+
+    /**
+     * The period (milliseconds) of the drive Spark Max status frame that carries the encoder position. The
+     * default is 20ms, which would make 3 of every 4 of the 5ms odometry updates re-read the same drive
+     * positions. Only the drive motors are sped up, the odometry wheel distances come from the drive encoders,
+     * and 10ms (rather than the 5ms odometry period) keeps the added CAN load to about 200 frames a second for
+     * the 4 drive motors. The direction motors keep the default.
+     */
+    static final int POSITION_STATUS_PERIOD_MS = 10;
+
     // -----------------------------------------------------------------------------------------------------------------
     // The module physical hardware
     // -----------------------------------------------------------------------------------------------------------------
@@ -72,6 +99,12 @@ public class Mk4NeoModule {
     private final RelativeEncoder directionEncoder;
     private final SparkMaxPIDController directionPID;
 
+    // The last setpoints sent to the direction and drive PID controllers, so we don't fill the CAN bus
+    // re-sending setpoints the controllers already have.
+    private final SetpointCache directionSetpoint = new SetpointCache(DIRECTION_TOLERANCE);
+    private final SetpointCache driveSpeedSetpoint = new SetpointCache(DRIVE_SPEED_TOLERANCE);
+    private final SetpointCache drivePositionSetpoint = new SetpointCache(DRIVE_POSITION_TOLERANCE);
+
     // -----------------------------------------------------------------------------------------------------------------
     // The module physical state
     // -----------------------------------------------------------------------------------------------------------------
@@ -103,6 +136,11 @@ public class Mk4NeoModule {
      * Whether the last command was drive by speed, <code>true</code>, or drive by distance, <code>false</code>.
      */
     private boolean driveBySpeed = true;
+    /**
+     * Whether the drive speed is scaled by the cosine of the direction error, see
+     * {@link #setCosineSpeedScaling(boolean)}.
+     */
+    private boolean cosineSpeedScaling = false;
 
     /**
      * * The factory that creates the DriveModule given the
@@ -166,6 +204,9 @@ public class Mk4NeoModule {
         this.driveMotor.restoreFactoryDefaults();
         this.directionMotor.restoreFactoryDefaults();
 
+        // send the drive encoder position faster for the odometry
+        this.driveMotor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, POSITION_STATUS_PERIOD_MS);
+
         // invert the spin so positive is a clockwise spin
         this.directionMotor.setInverted(true);
 
@@ -235,6 +276,26 @@ public class Mk4NeoModule {
         return driveEncoder.getPosition();
     }
 
+    /**
+     * Returns the distance the wheel has driven, in meters, as read from the drive encoder. This is negative
+     * when the wheel drives backwards.
+     *
+     * @return The distance the wheel has driven, in meters.
+     */
+    public double getDriveDistance() {
+        return driveEncoder.getPosition() * DRIVE_METERS_PER_ENCODER_REV;
+    }
+
+    /**
+     * Returns the direction of the front of the wheel, in radians, as read from the direction encoder. This
+     * is not wrapped to -pi to pi, it includes all the spins of the module since calibration.
+     *
+     * @return The direction of the front of the wheel, in radians.
+     */
+    public double getDirectionRadians() {
+        return directionEncoder.getPosition() / RADIANS_TO_SPIN_ENCODER;
+    }
+
     /**
      * Returns the direction motor position as read from the encoder.
      *
@@ -244,6 +305,48 @@ public class Mk4NeoModule {
         return directionEncoder.getPosition();
     }
 
+    /**
+     * Returns the direction motor position the module was last told to go to, in the same units as
+     * {@link #getDirectionPosition()}.
+     *
+     * @return The direction motor position setpoint.
+     */
+    public double getDirectionSetpoint() {
+        return lastDirectionEncoder;
+    }
+
+    /**
+     * Returns how far the wheel is from the direction it was last told to go to, as read from the direction
+     * encoder. Positive means the wheel is clockwise of its target.
+     *
+     * @return The direction error, in radians.
+     */
+    public double getDirectionError() {
+        return (directionEncoder.getPosition() - lastDirectionEncoder) / RADIANS_TO_SPIN_ENCODER;
+    }
+
+    /**
+     * Test whether the wheel has reached the direction it was last told to go to.
+     *
+     * @param tolerance (double) The allowed direction error, in radians.
+     * @return {@code true} if the wheel is within {@code tolerance} of its target direction.
+     */
+    public boolean isAtDirection(double tolerance) {
+        return Math.abs(getDirectionError()) <= tolerance;
+    }
+
+    /**
+     * Set whether the drive speed is scaled by the cosine of the direction error. When the wheel is still
+     * turning to a new direction, full speed just scrubs the wheel sideways; scaling by the cosine of the
+     * error drives only the part of the speed that is in the target direction, and nothing while the wheel
+     * is more than 90 degrees off.
+     *
+     * @param scale (boolean) {@code true} to scale the drive speed, {@code false} to drive at the speed set.
+     */
+    public void setCosineSpeedScaling(boolean scale) {
+        cosineSpeedScaling = scale;
+    }
+
     /**
      * Returns the value of the calibration encoder as a double. The value goes from 0.0 to 2pi, wrapping
      * around when the boundary between 0 and 2pi is reached. This method is provided primarily to read
@@ -316,40 +419,56 @@ public class Mk4NeoModule {
      *                        front of the robot, and positive is clockwise.
      */
     public void setDirection(AngleConstantD targetDirection) {
+        setDirection(targetDirection.getRadians());
+    }
+
+    /**
+     * Set the module direction in radians. This code finds the closest forward-backward direction and sets the
+     * foward-backaward multiplier for speed. This is the primitive version of
+     * {@link #setDirection(AngleConstantD)} that is called every command cycle, so it does not allocate anything.
+     *
+     * @param targetRadians (double) The direction from -pi to pi radians where 0.0 is towards the
+     *                      front of the robot, and positive is clockwise.
+     */
+    public void setDirection(double targetRadians) {
         // The real angle of the front of the wheel is 180 degrees away from the current angle if the wheel
         // is going backwards (i.e. the lastDirection was the last target angle for the module
-        AngleD realLastDirection = (speedMultiplier > 0.0) ? lastDirection :
-                lastDirection.isLessThan(AngleD.ZERO) ? lastDirection.add(AngleD.PI) : lastDirection.subtract(AngleD.PI);
-        AngleD deltaDirection = new AngleD(targetDirection).subtract(realLastDirection);
+        double realLastRadians = lastDirection.getRadians();
+        if (speedMultiplier < 0.0) {
+            realLastRadians += (realLastRadians < 0.0) ? Math.PI : -Math.PI;
+        }
+        double deltaRadians = targetRadians - realLastRadians;
         speedMultiplier = 1.0;
 
         // Since there is wrap-around at -180.0 and 180.0, it is easy to create cases where only a small correction
         // is required, but a very large deltaDegrees results because the spin is in the wrong direction. If the
         // angle is greater than 180 degrees in either direction, the spin is the wrong way. So the next section
         // checks that and changes the direction of the spin is the wrong way.
-        if (deltaDirection.isGreaterThan(AngleD.PI)) {
-            deltaDirection.subtract(AngleD.TWO_PI);
-        } else if (deltaDirection.isLessThan(AngleD.NEG_PI)) {
-            deltaDirection.add(AngleD.TWO_PI);
+        if (deltaRadians > Math.PI) {
+            deltaRadians -= TWO_PI;
+        } else if (deltaRadians < -Math.PI) {
+            deltaRadians += TWO_PI;
         }
 
         // So, the next bit is looking at whether it better to spin the front of the wheel to the
         // target and drive forward, or, to spin the back of the wheel to the target direction and drive
         // backwards - if the spin is greater than 90 degrees (pi/2 radians) either direction, it is better
         // to spin the shorter angle and run backwards.
-        if (deltaDirection.isGreaterThan(AngleD.PI_OVER_2)) {
-            deltaDirection.subtract(AngleD.PI);
+        if (deltaRadians > PI_OVER_2) {
+            deltaRadians -= Math.PI;
             speedMultiplier = -1.0;
-        } else if (deltaDirection.isLessThan(AngleD.NEG_PI_OVER_2)) {
-            deltaDirection.add(AngleD.PI);
+        } else if (deltaRadians < -PI_OVER_2) {
+            deltaRadians += Math.PI;
             speedMultiplier = -1.0;
         }
 
         // Compute and set the spin value
-        lastDirection.setValue(targetDirection);
-        lastDirectionEncoder += (deltaDirection.getRadians() * RADIANS_TO_SPIN_ENCODER);
+        lastDirection.setRadians(targetRadians);
+        lastDirectionEncoder += (deltaRadians * RADIANS_TO_SPIN_ENCODER);
 
-        directionPID.setReference(lastDirectionEncoder, CANSparkMax.ControlType.kPosition);
+        if (directionSetpoint.shouldSend(CANSparkMax.ControlType.kPosition, lastDirectionEncoder)) {
+            directionPID.setReference(lastDirectionEncoder, CANSparkMax.ControlType.kPosition);
+        }
     }
 
     /**
@@ -361,18 +480,37 @@ public class Mk4NeoModule {
      *                        forward velocity.
      */
     public void setDirectionAndSpeed(AngleConstantD targetDirection, double speed) {
+        setDirectionAndSpeed(targetDirection.getRadians(), speed);
+    }
+
+    /**
+     * Set the direction and speed of the drive wheel in this module. This is the primitive version of
+     * {@link #setDirectionAndSpeed(AngleConstantD, double)} used by the drive every command cycle.
+     *
+     * @param targetRadians (double) The direction from -pi to pi radians where 0.0 is towards the
+     *                      front of the robot, and positive is clockwise.
+     * @param speed         (double) The normalized speed of the wheel from 0.0 to 1.0 where 1.0 is the maximum
+     *                      forward velocity.
+     */
+    public void setDirectionAndSpeed(double targetRadians, double speed) {
 
-        setDirection(targetDirection);
+        setDirection(targetRadians);
 
         // Compute and set the speed value
         lastSpeed = speed;
         speed *= MAX_DRIVE_RPM * speedMultiplier;
+        if (cosineSpeedScaling && (speed != 0.0)) {
+            speed *= Math.max(0.0, Math.cos(getDirectionError()));
+        }
 
         if (!driveBySpeed) {
             setDrivePID();
             driveBySpeed = true;
+            driveSpeedSetpoint.invalidate();
+        }
+        if (driveSpeedSetpoint.shouldSend(CANSparkMax.ControlType.kVelocity, speed)) {
+            drivePID.setReference(speed, CANSparkMax.ControlType.kVelocity);
         }
-        drivePID.setReference(speed, CANSparkMax.ControlType.kVelocity);
     }
 
     /**
@@ -386,14 +524,29 @@ public class Mk4NeoModule {
      * @param deltaTics       (double) The number of tics the drive motor should move.
      */
     public void setDirectionAndDistance(AngleD targetDirection, double deltaTics) {
-        setDirection(targetDirection);
+        setDirectionAndDistance(targetDirection.getRadians(), deltaTics);
+    }
+
+    /**
+     * Set the direction and distance in encoder tics that the module should move. This is the primitive version
+     * of {@link #setDirectionAndDistance(AngleD, double)}.
+     *
+     * @param targetRadians (double) The direction from -pi to pi radians where 0.0 is towards the
+     *                      front of the robot, and positive is clockwise.
+     * @param deltaTics     (double) The number of tics the drive motor should move.
+     */
+    public void setDirectionAndDistance(double targetRadians, double deltaTics) {
+        setDirection(targetRadians);
         double targetTics = getDriveEncoderPosition() + deltaTics * speedMultiplier;
 
         if (driveBySpeed) {
             drivePID.setReference(0, CANSparkMax.ControlType.kVelocity);
             setDrivePosPID();
             driveBySpeed = false;
+            drivePositionSetpoint.invalidate();
+        }
+        if (drivePositionSetpoint.shouldSend(CANSparkMax.ControlType.kPosition, targetTics)) {
+            drivePID.setReference(targetTics, CANSparkMax.ControlType.kPosition);
         }
-        drivePID.setReference(targetTics, CANSparkMax.ControlType.kPosition);
     }
 }
@@ -0,0 +1,439 @@
+package frc.robot.subsystems;
+
+/**
+ * An extended Kalman filter that fuses the drive odometry, the NavX heading, and Limelight range and bearing
+ * observations of the hub into a single estimate of the robot field pose. The odometry drifts (wheels slip,
+ * the robot gets pushed), the hub observations do not drift but are noisy and late - fusing them gives a pose
+ * that is as smooth as the odometry and as anchored as the vision.
+ * <p>
+ * The state is the field X, Y, and heading of the robot. Each odometry update {@link #predict} moves the state
+ * by the chassis forward and strafe motion (rotated to the field by the estimated heading) and the NavX heading
+ * change, and grows the covariance in proportion to the motion. Each hub observation {@link #addHubObservation}
+ * corrects the state by the difference between the observed and expected range and bearing to the hub.
+ * <p>
+ * Hub observations are made when the camera frame was captured, which is 20-60ms before we get them. The
+ * filter keeps a history of its inputs and estimates, so an observation is applied at the estimate for the time
+ * the frame was captured, and the odometry since then is replayed on top of the corrected estimate.
+ * <p>
+ * Observations that are too far from what the filter expects (a reflection, a partially hidden target, a
+ * Limelight that has lost its mind) are rejected using the Mahalanobis distance of the innovation.
+ * <p>
+ * Field conventions are those of {@link DriveSubsystem}: directions are in radians where 0.0 is down field
+ * (+Y), and positive is clockwise. Nothing is allocated after construction.
+ */
+public class PoseEstimator {
+
+    /**
+     * The default odometry translation error, standard deviation in meters per meter travelled.
+     */
+    public static final double DEFAULT_ODOMETRY_STD_PER_METER = 0.05;
+    /**
+     * The default NavX heading error, standard deviation in radians per radian turned.
+     */
+    public static final double DEFAULT_HEADING_STD_PER_RADIAN = 0.01;
+    /**
+     * The default hub range error, standard deviation as a fraction of the range.
+     */
+    public static final double DEFAULT_RANGE_STD_FRACTION = 0.05;
+    /**
+     * The default hub bearing error, standard deviation in radians (about 2 degrees).
+     */
+    public static final double DEFAULT_BEARING_STD = 0.035;
+    /**
+     * The default outlier gate, the squared Mahalanobis distance above which an observation is rejected. This is
+     * the 99% point of the chi-squared distribution with 2 degrees of freedom.
+     */
+    public static final double DEFAULT_OUTLIER_GATE = 9.21;
+
+    // a floor for the covariance growth each step so the filter never becomes certain of itself
+    private static final double MIN_TRANSLATION_VARIANCE = 1.0e-8;
+    private static final double MIN_HEADING_VARIANCE = 1.0e-10;
+    // observations closer than this to the hub center are meaningless
+    private static final double MIN_RANGE = 0.1;
+
+    private static final int STATE_SIZE = 3;
+    private static final int COVARIANCE_SIZE = STATE_SIZE * STATE_SIZE;
+
+    // the hub location and the camera direction relative to the front of the robot
+    private final double m_hubX;
+    private final double m_hubY;
+    private final double m_cameraDirection;
+
+    // the tunable noise
+    private double m_odometryStdPerMeter = DEFAULT_ODOMETRY_STD_PER_METER;
+    private double m_headingStdPerRadian = DEFAULT_HEADING_STD_PER_RADIAN;
+    private double m_rangeStdFraction = DEFAULT_RANGE_STD_FRACTION;
+    private double m_bearingStd = DEFAULT_BEARING_STD;
+    private double m_outlierGate = DEFAULT_OUTLIER_GATE;
+
+    // the current estimate, the state (X, Y, heading) and its covariance (row major 3x3)
+    private double m_x = 0.0;
+    private double m_y = 0.0;
+    private double m_heading = 0.0;
+    private final double[] m_p = new double[COVARIANCE_SIZE];
+
+    // The history, a ring buffer of the predict inputs and the estimate after each predict (or reset). The
+    // newest entry is always the current estimate.
+    private final int m_mask;
+    private final double[] m_historyTime;
+    private final double[] m_historyForward;
+    private final double[] m_historyStrafe;
+    private final double[] m_historyDeltaHeading;
+    private final double[] m_historyX;
+    private final double[] m_historyY;
+    private final double[] m_historyHeading;
+    private final double[] m_historyP;
+    private int m_next = 0;
+    private int m_count = 0;
+
+    // observation statistics
+    private long m_accepted = 0;
+    private long m_rejected = 0;
+    private double m_lastMahalanobisSquared = 0.0;
+
+    /**
+     * Instantiate a pose estimator.
+     *
+     * @param historyCapacity (int) The number of odometry updates kept for applying late observations. This is
+     *                        rounded up to a power of 2. Observations older than the history are rejected.
+     * @param hubX            (double) The X location of the center of the hub on the field.
+     * @param hubY            (double) The Y location of the center of the hub on the field.
+     * @param cameraDirection (double) The direction the camera looks relative to the front of the robot, in
+     *                        radians, positive is clockwise.
+     */
+    public PoseEstimator(int historyCapacity, double hubX, double hubY, double cameraDirection) {
+        m_hubX = hubX;
+        m_hubY = hubY;
+        m_cameraDirection = cameraDirection;
+        int size = Integer.highestOneBit(Math.max(historyCapacity, 2) - 1) << 1;
+        m_mask = size - 1;
+        m_historyTime = new double[size];
+        m_historyForward = new double[size];
+        m_historyStrafe = new double[size];
+        m_historyDeltaHeading = new double[size];
+        m_historyX = new double[size];
+        m_historyY = new double[size];
+        m_historyHeading = new double[size];
+        m_historyP = new double[size * COVARIANCE_SIZE];
+    }
+
+    /**
+     * Set the odometry noise.
+     *
+     * @param stdPerMeter  (double) The translation standard deviation, in meters per meter travelled.
+     * @param stdPerRadian (double) The heading standard deviation, in radians per radian turned.
+     */
+    public void setOdometryStdDevs(double stdPerMeter, double stdPerRadian) {
+        m_odometryStdPerMeter = stdPerMeter;
+        m_headingStdPerRadian = stdPerRadian;
+    }
+
+    /**
+     * Set the hub observation noise.
+     *
+     * @param rangeStdFraction (double) The range standard deviation as a fraction of the range.
+     * @param bearingStd       (double) The bearing standard deviation, in radians.
+     */
+    public void setVisionStdDevs(double rangeStdFraction, double bearingStd) {
+        m_rangeStdFraction = rangeStdFraction;
+        m_bearingStd = bearingStd;
+    }
+
+    /**
+     * Set the outlier gate.
+     *
+     * @param gate (double) Observations with a squared Mahalanobis distance greater than this are rejected.
+     */
+    public void setOutlierGate(double gate) {
+        m_outlierGate = gate;
+    }
+
+    /**
+     * Reset the estimate to a known pose, and forget the history.
+     *
+     * @param fieldX         (double) The X location of the robot on the field.
+     * @param fieldY         (double) The Y location of the robot on the field.
+     * @param headingRadians (double) The heading of the robot on the field.
+     * @param stdDev         (double) The standard deviation of the X and Y location, in meters. The
+     *                       heading is assumed to be known.
+     * @param time           (double) A monotonic timestamp, in seconds.
+     */
+    public void reset(double fieldX, double fieldY, double headingRadians, double stdDev, double time) {
+        m_x = fieldX;
+        m_y = fieldY;
+        m_heading = headingRadians;
+        for (int i = 0; i < COVARIANCE_SIZE; i++) {
+            m_p[i] = 0.0;
+        }
+        m_p[0] = stdDev * stdDev;
+        m_p[4] = stdDev * stdDev;
+        m_p[8] = MIN_HEADING_VARIANCE;
+        m_count = 0;
+        record(0.0, 0.0, 0.0, time);
+    }
+
+    /**
+     * Move the estimate by the chassis motion measured by the odometry since the last predict.
+     *
+     * @param deltaForward (double) The chassis forward motion, in meters.
+     * @param deltaStrafe  (double) The chassis strafe motion, in meters.
+     * @param deltaHeading (double) The heading change measured by the NavX, in radians.
+     * @param time         (double) A monotonic timestamp, in seconds.
+     */
+    public void predict(double deltaForward, double deltaStrafe, double deltaHeading, double time) {
+        step(deltaForward, deltaStrafe, deltaHeading);
+        record(deltaForward, deltaStrafe, deltaHeading, time);
+    }
+
+    /**
+     * The state and covariance prediction for an odometry step.
+     */
+    private void step(double deltaForward, double deltaStrafe, double deltaHeading) {
+        // move to the field using the average heading during the step, like the odometry
+        double aveHeading = m_heading + (deltaHeading * 0.5);
+        double sinHeading = Math.sin(aveHeading);
+        double cosHeading = Math.cos(aveHeading);
+        double dx = (deltaForward * sinHeading) + (deltaStrafe * cosHeading);
+        double dy = (deltaForward * cosHeading) - (deltaStrafe * sinHeading);
+        m_x += dx;
+        m_y += dy;
+        m_heading += deltaHeading;
+
+        // P = F P Ft + Q, where F is identity except dX/dHeading = dy and dY/dHeading = -dx
+        double a = dy;
+        double b = -dx;
+        double p00 = m_p[0], p01 = m_p[1], p02 = m_p[2], p11 = m_p[4], p12 = m_p[5], p22 = m_p[8];
+        double distance = Math.sqrt((deltaForward * deltaForward) + (deltaStrafe * deltaStrafe));
+        double translationStd = m_odometryStdPerMeter * distance;
+        double headingStd = m_headingStdPerRadian * deltaHeading;
+        double qTranslation = (translationStd * translationStd) + MIN_TRANSLATION_VARIANCE;
+        double qHeading = (headingStd * headingStd) + MIN_HEADING_VARIANCE;
+        m_p[0] = p00 + (2.0 * a * p02) + (a * a * p22) + qTranslation;
+        m_p[1] = m_p[3] = p01 + (a * p12) + (b * p02) + (a * b * p22);
+        m_p[2] = m_p[6] = p02 + (a * p22);
+        m_p[4] = p11 + (2.0 * b * p12) + (b * b * p22) + qTranslation;
+        m_p[5] = m_p[7] = p12 + (b * p22);
+        m_p[8] = p22 + qHeading;
+    }
+
+    /**
+     * Correct the estimate with an observation of the hub.
+     *
+     * @param range       (double) The distance from the robot to the center of the hub, in meters.
+     * @param bearing     (double) The direction of the center of the hub from the camera, in radians, positive
+     *                    is clockwise (the Limelight {@code tx}).
+     * @param captureTime (double) The timestamp of when the observation was made, in seconds, in the same
+     *                    time base as {@link #predict}.
+     * @return {@code true} if the observation was used, {@code false} if it was rejected (an outlier, or too
+     * old for the history).
+     */
+    public boolean addHubObservation(double range, double bearing, double captureTime) {
+        // find the estimate at the time of the observation
+        if ((m_count == 0) || (captureTime < m_historyTime[index(0)]) || (range < MIN_RANGE)) {
+            m_rejected++;
+            return false;
+        }
+        int age = findAge(captureTime);
+        int at = index(age);
+        m_x = m_historyX[at];
+        m_y = m_historyY[at];
+        m_heading = m_historyHeading[at];
+        System.arraycopy(m_historyP, at * COVARIANCE_SIZE, m_p, 0, COVARIANCE_SIZE);
+
+        boolean accepted = correct(range, bearing);
+        if (accepted) {
+            m_accepted++;
+            // save the corrected estimate and replay the odometry since the observation
+            saveAt(at);
+            for (age++; age < m_count; age++) {
+                at = index(age);
+                step(m_historyForward[at], m_historyStrafe[at], m_historyDeltaHeading[at]);
+                saveAt(at);
+            }
+        } else {
+            m_rejected++;
+        }
+        // the current estimate is the newest in the history
+        restore(index(m_count - 1));
+        return accepted;
+    }
+
+    /**
+     * The EKF measurement update for a range and bearing to the hub.
+     *
+     * @return {@code true} if the observation passed the outlier gate and was applied.
+     */
+    private boolean correct(double range, double bearing) {
+        double dx = m_hubX - m_x;
+        double dy = m_hubY - m_y;
+        double q = (dx * dx) + (dy * dy);
+        double expectedRange = Math.sqrt(q);
+        if (expectedRange < MIN_RANGE) {
+            return false;
+        }
+        double expectedBearing = Math.atan2(dx, dy) - m_heading - m_cameraDirection;
+        double innovationRange = range - expectedRange;
+        double innovationBearing = wrap(bearing - expectedBearing);
+
+        // the measurement Jacobian H, 2x3. The third column of the range row is 0.
+        double h00 = -dx / expectedRange;
+        double h01 = -dy / expectedRange;
+        double h10 = -dy / q;
+        double h11 = dx / q;
+        // h12 is -1
+
+        // P Ht, 3x2
+        double pht00 = (m_p[0] * h00) + (m_p[1] * h01);
+        double pht10 = (m_p[3] * h00) + (m_p[4] * h01);
+        double pht20 = (m_p[6] * h00) + (m_p[7] * h01);
+        double pht01 = (m_p[0] * h10) + (m_p[1] * h11) - m_p[2];
+        double pht11 = (m_p[3] * h10) + (m_p[4] * h11) - m_p[5];
+        double pht21 = (m_p[6] * h10) + (m_p[7] * h11) - m_p[8];
+
+        // S = H P Ht + R, 2x2
+        double rangeStd = m_rangeStdFraction * range;
+        double s00 = (h00 * pht00) + (h01 * pht10) + (rangeStd * rangeStd);
+        double s01 = (h00 * pht01) + (h01 * pht11);
+        double s11 = (h10 * pht01) + (h11 * pht11) - pht21 + (m_bearingStd * m_bearingStd);
+        double det = (s00 * s11) - (s01 * s01);
+        if (det <= 0.0) {
+            return false;
+        }
+        double i00 = s11 / det;
+        double i01 = -s01 / det;
+        double i11 = s00 / det;
+
+        // outlier rejection
+        m_lastMahalanobisSquared = (innovationRange * innovationRange * i00) +
+                (2.0 * innovationRange * innovationBearing * i01) +
+                (innovationBearing * innovationBearing * i11);
+        if (m_lastMahalanobisSquared > m_outlierGate) {
+            return false;
+        }
+
+        // K = P Ht S^-1, 3x2
+        double k00 = (pht00 * i00) + (pht01 * i01);
+        double k01 = (pht00 * i01) + (pht01 * i11);
+        double k10 = (pht10 * i00) + (pht11 * i01);
+        double k11 = (pht10 * i01) + (pht11 * i11);
+        double k20 = (pht20 * i00) + (pht21 * i01);
+        double k21 = (pht20 * i01) + (pht21 * i11);
+
+        m_x += (k00 * innovationRange) + (k01 * innovationBearing);
+        m_y += (k10 * innovationRange) + (k11 * innovationBearing);
+        m_heading += (k20 * innovationRange) + (k21 * innovationBearing);
+
+        // P = P - K S Kt (which is symmetric by construction)
+        double ks00 = (k00 * s00) + (k01 * s01), ks01 = (k00 * s01) + (k01 * s11);
+        double ks10 = (k10 * s00) + (k11 * s01), ks11 = (k10 * s01) + (k11 * s11);
+        double ks20 = (k20 * s00) + (k21 * s01), ks21 = (k20 * s01) + (k21 * s11);
+        m_p[0] -= (ks00 * k00) + (ks01 * k01);
+        m_p[1] = m_p[3] = m_p[1] - ((ks00 * k10) + (ks01 * k11));
+        m_p[2] = m_p[6] = m_p[2] - ((ks00 * k20) + (ks01 * k21));
+        m_p[4] -= (ks10 * k10) + (ks11 * k11);
+        m_p[5] = m_p[7] = m_p[5] - ((ks10 * k20) + (ks11 * k21));
+        m_p[8] -= (ks20 * k20) + (ks21 * k21);
+        return true;
+    }
+
+    /**
+     * Add the current estimate, and the inputs that produced it, as the newest history entry.
+     */
+    private void record(double deltaForward, double deltaStrafe, double deltaHeading, double time) {
+        m_historyTime[m_next] = time;
+        m_historyForward[m_next] = deltaForward;
+        m_historyStrafe[m_next] = deltaStrafe;
+        m_historyDeltaHeading[m_next] = deltaHeading;
+        saveAt(m_next);
+        m_next = (m_next + 1) & m_mask;
+        if (m_count <= m_mask) {
+            m_count++;
+        }
+    }
+
+    private void saveAt(int at) {
+        m_historyX[at] = m_x;
+        m_historyY[at] = m_y;
+        m_historyHeading[at] = m_heading;
+        System.arraycopy(m_p, 0, m_historyP, at * COVARIANCE_SIZE, COVARIANCE_SIZE);
+    }
+
+    private void restore(int at) {
+        m_x = m_historyX[at];
+        m_y = m_historyY[at];
+        m_heading = m_historyHeading[at];
+        System.arraycopy(m_historyP, at * COVARIANCE_SIZE, m_p, 0, COVARIANCE_SIZE);
+    }
+
+    /**
+     * @return The age (0 is the oldest) of the newest history entry at or before {@code time}.
+     */
+    private int findAge(double time) {
+        int low = 0;
+        int high = m_count - 1;
+        if (time >= m_historyTime[index(high)]) {
+            return high;
+        }
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (m_historyTime[index(mid)] <= time) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int index(int age) {
+        return (m_next - m_count + age) & m_mask;
+    }
+
+    private static double wrap(double radians) {
+        return Math.IEEEremainder(radians, 2.0 * Math.PI);
+    }
+
+    public double getFieldX() {
+        return m_x;
+    }
+
+    public double getFieldY() {
+        return m_y;
+    }
+
+    /**
+     * @return The estimated field heading, in radians.
+     */
+    public double getFieldHeading() {
+        return m_heading;
+    }
+
+    /**
+     * @return The standard deviation of the position estimate, in meters - the square root of the average of
+     * the X and Y variances.
+     */
+    public double getPositionStdDev() {
+        return Math.sqrt((m_p[0] + m_p[4]) * 0.5);
+    }
+
+    /**
+     * @return The number of hub observations used.
+     */
+    public long getAcceptedCount() {
+        return m_accepted;
+    }
+
+    /**
+     * @return The number of hub observations rejected.
+     */
+    public long getRejectedCount() {
+        return m_rejected;
+    }
+
+    /**
+     * @return The squared Mahalanobis distance of the last hub observation that got as far as the outlier test.
+     */
+    public double getLastMahalanobisSquared() {
+        return m_lastMahalanobisSquared;
+    }
+}
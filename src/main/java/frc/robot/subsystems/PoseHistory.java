@@ -0,0 +1,150 @@
+package frc.robot.subsystems;
+
+/**
+ * A fixed capacity history of timestamped robot poses, so code that gets a measurement that is already old when
+ * it arrives (a Limelight frame is captured 20-50ms before we see it) can ask where the robot was when the
+ * measurement was made. The odometry adds every pose it publishes; when the history is full, the oldest pose
+ * is overwritten.
+ * <p>
+ * The poses are kept in parallel primitive arrays used as a ring buffer, so neither adding a pose nor looking
+ * one up allocates. Lookup is a binary search on the timestamps (which are always increasing) followed by
+ * linear interpolation between the poses on either side of the requested time. The heading is the
+ * continuous NavX heading (it includes the spins, so it does not wrap at +-pi), so it is also interpolated
+ * linearly.
+ * <p>
+ * Poses are added by the odometry thread and looked up by the command thread, so the methods are
+ * {@code synchronized}. They hold the lock for well under a microsecond.
+ */
+public class PoseHistory {
+
+    private final int m_mask;
+
+    // the poses, indexed by the ring buffer position
+    private final double[] m_time;
+    private final double[] m_fieldX;
+    private final double[] m_fieldY;
+    private final double[] m_heading;
+    private final double[] m_forwardVelocity;
+    private final double[] m_strafeVelocity;
+
+    // the position the next pose is written to, and the number of poses in the history
+    private int m_next = 0;
+    private int m_count = 0;
+
+    /**
+     * Instantiate a pose history.
+     *
+     * @param capacity (int) The number of poses kept. This is rounded up to a power of 2.
+     */
+    public PoseHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        m_mask = size - 1;
+        m_time = new double[size];
+        m_fieldX = new double[size];
+        m_fieldY = new double[size];
+        m_heading = new double[size];
+        m_forwardVelocity = new double[size];
+        m_strafeVelocity = new double[size];
+    }
+
+    /**
+     * @return The number of poses this history can hold.
+     */
+    public int getCapacity() {
+        return m_mask + 1;
+    }
+
+    /**
+     * @return The number of poses currently in the history.
+     */
+    public synchronized int size() {
+        return m_count;
+    }
+
+    /**
+     * Remove all the poses from the history. This should be called when the pose is reset, since
+     * interpolating across a reset would be meaningless.
+     */
+    public synchronized void clear() {
+        m_count = 0;
+    }
+
+    /**
+     * Add a pose to the history. A pose that is not newer than the last pose added is ignored.
+     *
+     * @param fieldX          (double) The X location of the robot on the field.
+     * @param fieldY          (double) The Y location of the robot on the field.
+     * @param heading         (double) The field heading of the robot, in radians.
+     * @param forwardVelocity (double) The measured chassis forward velocity, in meters/sec.
+     * @param strafeVelocity  (double) The measured chassis strafe velocity, in meters/sec.
+     * @param time            (double) The FPGA timestamp of the pose, in seconds.
+     */
+    public synchronized void add(double fieldX, double fieldY, double heading,
+                                 double forwardVelocity, double strafeVelocity, double time) {
+        if ((m_count > 0) && (time <= m_time[(m_next - 1) & m_mask])) {
+            return;
+        }
+        m_time[m_next] = time;
+        m_fieldX[m_next] = fieldX;
+        m_fieldY[m_next] = fieldY;
+        m_heading[m_next] = heading;
+        m_forwardVelocity[m_next] = forwardVelocity;
+        m_strafeVelocity[m_next] = strafeVelocity;
+        m_next = (m_next + 1) & m_mask;
+        if (m_count <= m_mask) {
+            m_count++;
+        }
+    }
+
+    /**
+     * Get the pose of the robot at a time in the past, interpolated between the poses in the history. If the
+     * time is newer than the newest pose, the newest pose is returned.
+     *
+     * @param time (double) The FPGA timestamp, in seconds.
+     * @param pose (PosePublisher.Pose, not null) The pose that will be set to the pose at {@code time}.
+     * @return {@code true} if {@code pose} was set, {@code false} if the history is empty or {@code time} is
+     * older than the oldest pose in the history (in which case {@code pose} is unchanged).
+     */
+    public synchronized boolean getPoseAt(double time, PosePublisher.Pose pose) {
+        if ((m_count == 0) || (time < m_time[index(0)])) {
+            return false;
+        }
+        int newest = index(m_count - 1);
+        if (time >= m_time[newest]) {
+            pose.set(m_fieldX[newest], m_fieldY[newest], m_heading[newest],
+                    m_forwardVelocity[newest], m_strafeVelocity[newest], m_time[newest]);
+            return true;
+        }
+        // binary search for the last pose at or before the time, there is always one after it because
+        // time is older than the newest pose.
+        int low = 0;
+        int high = m_count - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (m_time[index(mid)] <= time) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        int before = index(low);
+        int after = index(high);
+        double f = (time - m_time[before]) / (m_time[after] - m_time[before]);
+        pose.set(interpolate(m_fieldX, before, after, f), interpolate(m_fieldY, before, after, f),
+                interpolate(m_heading, before, after, f), interpolate(m_forwardVelocity, before, after, f),
+                interpolate(m_strafeVelocity, before, after, f), time);
+        return true;
+    }
+
+    /**
+     * @param age (int) The position in the history, 0 is the oldest pose.
+     * @return The ring buffer index of that position.
+     */
+    private int index(int age) {
+        return (m_next - m_count + age) & m_mask;
+    }
+
+    private static double interpolate(double[] values, int before, int after, double f) {
+        return values[before] + ((values[after] - values[before]) * f);
+    }
+}
@@ -0,0 +1,180 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Publishes the robot pose from the odometry thread to the command thread. The pose is written by a single
+ * writer (the odometry {@link edu.wpi.first.wpilibj.Notifier}) and read by commands and subsystems running
+ * in the scheduler loop. This is a sequence lock: the writer bumps a version before and after it writes, and
+ * a reader copies the pose and then checks the version did not change while it was copying - so readers never
+ * block the writer, the writer never waits for readers, and a reader always gets a pose from a single update
+ * (not the X from one update and the Y from the next). The {@link StampedLock} optimistic read is exactly
+ * this version check.
+ * <p>
+ * Nothing is allocated when publishing or reading; the reader supplies the {@link Pose} to copy into.
+ */
+public class PosePublisher {
+
+    /**
+     * The number of optimistic (non-blocking) read attempts before the reader takes the read lock. The
+     * writer holds the lock for a few dozen nanoseconds every 5ms, so a retry practically never happens.
+     */
+    private static final int OPTIMISTIC_READ_TRIES = 3;
+
+    private final StampedLock m_lock = new StampedLock();
+
+    // The published pose. These are volatile so that any single value can be read without the lock and
+    // is never a torn (half written) double on the 32 bit roboRIO.
+    private volatile double m_fieldX = 0.0;
+    private volatile double m_fieldY = 0.0;
+    private volatile double m_heading = 0.0;
+    private volatile double m_forwardVelocity = 0.0;
+    private volatile double m_strafeVelocity = 0.0;
+    private volatile double m_time = 0.0;
+
+    /**
+     * A snapshot of the robot pose. Readers keep their own instance and refresh it with
+     * {@link PosePublisher#read(Pose)}.
+     */
+    public static class Pose {
+        private double m_fieldX = 0.0;
+        private double m_fieldY = 0.0;
+        private double m_heading = 0.0;
+        private double m_forwardVelocity = 0.0;
+        private double m_strafeVelocity = 0.0;
+        private double m_time = 0.0;
+
+        /**
+         * Set this pose. Used by the pose sources in this package, see {@link PoseHistory}.
+         */
+        void set(double fieldX, double fieldY, double heading,
+                 double forwardVelocity, double strafeVelocity, double time) {
+            m_fieldX = fieldX;
+            m_fieldY = fieldY;
+            m_heading = heading;
+            m_forwardVelocity = forwardVelocity;
+            m_strafeVelocity = strafeVelocity;
+            m_time = time;
+        }
+
+        public double getFieldX() {
+            return m_fieldX;
+        }
+
+        public double getFieldY() {
+            return m_fieldY;
+        }
+
+        /**
+         * @return The field heading of the robot, in radians.
+         */
+        public double getHeading() {
+            return m_heading;
+        }
+
+        /**
+         * @return The measured chassis forward velocity, in meters/sec.
+         */
+        public double getForwardVelocity() {
+            return m_forwardVelocity;
+        }
+
+        /**
+         * @return The measured chassis strafe velocity, in meters/sec.
+         */
+        public double getStrafeVelocity() {
+            return m_strafeVelocity;
+        }
+
+        /**
+         * @return The FPGA timestamp of the odometry update this pose came from, in seconds.
+         */
+        public double getTime() {
+            return m_time;
+        }
+    }
+
+    /**
+     * Publish a new pose. This should only be called by the single odometry writer.
+     *
+     * @param fieldX          (double) The X location of the robot on the field.
+     * @param fieldY          (double) The Y location of the robot on the field.
+     * @param heading         (double) The field heading of the robot, in radians.
+     * @param forwardVelocity (double) The measured chassis forward velocity, in meters/sec.
+     * @param strafeVelocity  (double) The measured chassis strafe velocity, in meters/sec.
+     * @param time            (double) The FPGA timestamp of the update, in seconds.
+     */
+    public void publish(double fieldX, double fieldY, double heading,
+                        double forwardVelocity, double strafeVelocity, double time) {
+        long stamp = m_lock.writeLock();
+        try {
+            m_fieldX = fieldX;
+            m_fieldY = fieldY;
+            m_heading = heading;
+            m_forwardVelocity = forwardVelocity;
+            m_strafeVelocity = strafeVelocity;
+            m_time = time;
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copy the last published pose into {@code pose}. All the values copied are from the same update.
+     *
+     * @param pose (Pose, not null) The pose to copy into.
+     * @return The pose that was passed in, for convenience.
+     */
+    public Pose read(Pose pose) {
+        for (int tries = 0; tries < OPTIMISTIC_READ_TRIES; tries++) {
+            long stamp = m_lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                copyTo(pose);
+                if (m_lock.validate(stamp)) {
+                    return pose;
+                }
+            }
+        }
+        // the writer kept getting in the way, wait for it to finish
+        long stamp = m_lock.readLock();
+        try {
+            copyTo(pose);
+        } finally {
+            m_lock.unlockRead(stamp);
+        }
+        return pose;
+    }
+
+    private void copyTo(Pose pose) {
+        pose.set(m_fieldX, m_fieldY, m_heading, m_forwardVelocity, m_strafeVelocity, m_time);
+    }
+
+    public double getFieldX() {
+        return m_fieldX;
+    }
+
+    public double getFieldY() {
+        return m_fieldY;
+    }
+
+    /**
+     * @return The last published field heading of the robot, in radians.
+     */
+    public double getHeading() {
+        return m_heading;
+    }
+
+    /**
+     * @return The last published chassis forward velocity, in meters/sec.
+     */
+    public double getForwardVelocity() {
+        return m_forwardVelocity;
+    }
+
+    /**
+     * @return The last published chassis strafe velocity, in meters/sec.
+     */
+    public double getStrafeVelocity() {
+        return m_strafeVelocity;
+    }
+}
@@ -0,0 +1,200 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A cache of the last setpoint sent to a motor controller, used to suppress writes that would just re-send the
+ * setpoint the controller already has. Commands set the same setpoint every cycle while the robot sits still or
+ * cruises. The subsystem asks {@link #shouldSend(Enum, double)} before each write, and only writes if it returns
+ * {@code true}.
+ * <p>
+ * What a suppressed write saves depends on the controller, see {@link Controller}. Each Spark Max
+ * {@code setReference} is a CAN frame, so suppressing it takes a frame off the bus. A Talon control frame is sent
+ * periodically by the CTRE library whatever is written, {@code set()} only updates its payload, so suppressing
+ * it saves the JNI call but no CAN frame.
+ * <p>
+ * A setpoint is sent if the control mode changed, or if the value is more than the tolerance from the last
+ * value sent. A Spark Max setpoint is also sent if {@code refreshCycles} writes in a row have been suppressed -
+ * the periodic refresh is a safety net in case a controller lost its setpoint (e.g. a brownout reset of the
+ * controller). A Talon gets its setpoint in every periodic control frame, so it is not refreshed.
+ * <p>
+ * Each cache counts the writes sent and suppressed, and the totals for all caches are kept for telemetry,
+ * separately for CAN frames (Spark Max) and Talon {@code set()} calls, see {@link #printStatistics()}.
+ */
+public class SetpointCache {
+
+    /**
+     * The kind of motor controller a cache is for.
+     */
+    public enum Controller {
+        /** A REV Spark Max, each setpoint sent is a CAN frame. */
+        SPARK_MAX,
+        /** A CTRE Talon, each setpoint sent is a {@code set()} call that updates the periodic control frame. */
+        TALON
+    }
+
+    /**
+     * The default number of suppressed writes in a row before the setpoint is sent anyway, 0.5 seconds
+     * at the 20ms command cycle.
+     */
+    public static final int DEFAULT_REFRESH_CYCLES = 25;
+
+    // totals for all the Spark Max setpoint caches (CAN frames), and all the Talon setpoint caches (set() calls)
+    private static long s_totalSent = 0;
+    private static long s_totalSuppressed = 0;
+    private static long s_totalTalonSent = 0;
+    private static long s_totalTalonSuppressed = 0;
+
+    private final Controller m_controller;
+    private final double m_tolerance;
+    private final int m_refreshCycles;
+
+    // the last setpoint sent, a null mode means nothing has been sent (or the cache was invalidated)
+    private Enum<?> m_lastMode = null;
+    private double m_lastValue = 0.0;
+    private int m_suppressedInARow = 0;
+
+    // the counts for this cache
+    private long m_sent = 0;
+    private long m_suppressed = 0;
+
+    /**
+     * Instantiate a Spark Max setpoint cache with the {@link #DEFAULT_REFRESH_CYCLES}.
+     *
+     * @param tolerance (double) Setpoints within this tolerance of the last setpoint sent are not sent.
+     */
+    public SetpointCache(double tolerance) {
+        this(tolerance, DEFAULT_REFRESH_CYCLES);
+    }
+
+    /**
+     * Instantiate a Spark Max setpoint cache.
+     *
+     * @param tolerance     (double) Setpoints within this tolerance of the last setpoint sent are not sent.
+     * @param refreshCycles (int) The number of suppressed writes in a row after which the setpoint is sent anyway.
+     */
+    public SetpointCache(double tolerance, int refreshCycles) {
+        this(Controller.SPARK_MAX, tolerance, refreshCycles);
+    }
+
+    /**
+     * Instantiate a setpoint cache for a kind of controller, with the {@link #DEFAULT_REFRESH_CYCLES} for a
+     * Spark Max, and no refresh for a Talon.
+     *
+     * @param controller (Controller) The kind of motor controller.
+     * @param tolerance  (double) Setpoints within this tolerance of the last setpoint sent are not sent.
+     */
+    public SetpointCache(Controller controller, double tolerance) {
+        this(controller, tolerance, (controller == Controller.TALON) ? Integer.MAX_VALUE : DEFAULT_REFRESH_CYCLES);
+    }
+
+    private SetpointCache(Controller controller, double tolerance, int refreshCycles) {
+        m_controller = controller;
+        m_tolerance = tolerance;
+        m_refreshCycles = refreshCycles;
+    }
+
+    /**
+     * Test whether this setpoint should be sent to the motor controller. If this returns {@code true}, the
+     * setpoint is recorded as the last setpoint sent, so the caller must send it.
+     *
+     * @param mode  (Enum) The control mode for the setpoint, e.g. a REV {@code ControlType} or a CTRE
+     *              {@code ControlMode}.
+     * @param value (double) The setpoint value.
+     * @return {@code true} if the setpoint should be sent, {@code false} if it is redundant.
+     */
+    public boolean shouldSend(Enum<?> mode, double value) {
+        return shouldSend(mode, value, m_tolerance);
+    }
+
+    /**
+     * Test whether this setpoint should be sent to the motor controller using a tolerance specific to this
+     * setpoint. Use this when a controller is run in several control modes that have different units. If this
+     * returns {@code true}, the setpoint is recorded as the last setpoint sent, so the caller must send it.
+     *
+     * @param mode      (Enum) The control mode for the setpoint.
+     * @param value     (double) The setpoint value.
+     * @param tolerance (double) Setpoints within this tolerance of the last setpoint sent are not sent.
+     * @return {@code true} if the setpoint should be sent, {@code false} if it is redundant.
+     */
+    public boolean shouldSend(Enum<?> mode, double value, double tolerance) {
+        if ((mode == m_lastMode) && (Math.abs(value - m_lastValue) <= tolerance) &&
+                (m_suppressedInARow < m_refreshCycles)) {
+            m_suppressedInARow++;
+            m_suppressed++;
+            if (m_controller == Controller.TALON) {
+                s_totalTalonSuppressed++;
+            } else {
+                s_totalSuppressed++;
+            }
+            return false;
+        }
+        m_lastMode = mode;
+        m_lastValue = value;
+        m_suppressedInARow = 0;
+        m_sent++;
+        if (m_controller == Controller.TALON) {
+            s_totalTalonSent++;
+        } else {
+            s_totalSent++;
+        }
+        return true;
+    }
+
+    /**
+     * Forget the last setpoint sent so the next setpoint is always sent. Call this whenever the motor
+     * controller is changed without going through this cache (e.g. it is reconfigured).
+     */
+    public void invalidate() {
+        m_lastMode = null;
+    }
+
+    /**
+     * @return The number of setpoints sent through this cache.
+     */
+    public long getSentCount() {
+        return m_sent;
+    }
+
+    /**
+     * @return The number of setpoints suppressed by this cache.
+     */
+    public long getSuppressedCount() {
+        return m_suppressed;
+    }
+
+    /**
+     * @return The number of CAN setpoint frames sent through all the Spark Max caches.
+     */
+    public static long getTotalSentCount() {
+        return s_totalSent;
+    }
+
+    /**
+     * @return The number of CAN setpoint frames suppressed by all the Spark Max caches.
+     */
+    public static long getTotalSuppressedCount() {
+        return s_totalSuppressed;
+    }
+
+    /**
+     * @return The number of {@code set()} calls made through all the Talon caches.
+     */
+    public static long getTotalTalonSentCount() {
+        return s_totalTalonSent;
+    }
+
+    /**
+     * @return The number of {@code set()} calls suppressed by all the Talon caches, these are not CAN frames.
+     */
+    public static long getTotalTalonSuppressedCount() {
+        return s_totalTalonSuppressed;
+    }
+
+    public static void printStatistics() {
+        SmartDashboard.putNumber("CAN sent", s_totalSent);
+        SmartDashboard.putNumber("CAN suppressed", s_totalSuppressed);
+        SmartDashboard.putNumber("Talon set calls", s_totalTalonSent);
+        SmartDashboard.putNumber("Talon set calls suppressed", s_totalTalonSuppressed);
+    }
+}
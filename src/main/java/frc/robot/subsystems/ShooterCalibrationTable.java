@@ -0,0 +1,274 @@
+package frc.robot.subsystems;
+
+import frc.robot.Constants.LimelightCalibrationPoint;
+import org.a05annex.util.JsonSupport;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The limelight shooter calibration as a lookup table keyed on the limelight target {@code ty}. The front speed,
+ * rear speed and x offset are each fitted through the calibration points with a monotone cubic (PCHIP,
+ * Fritsch-Carlson) curve - smooth through the points, with no kinks at the points like linear interpolation, and
+ * no overshoot between points like an ordinary cubic spline (so a speed that increases with distance never dips
+ * between two calibration points). The curves are sampled once, when the table is built, into a dense table
+ * of primitives with a uniform {@code ty} step, so a lookup is an index computation and a linear interpolation
+ * between two adjacent samples - O(1), with nothing allocated.
+ * <p>
+ * The calibration points are ordered from closest to the target (largest {@code ty}) to farthest (smallest
+ * {@code ty}), as in {@link frc.robot.Constants#LIMELIGHT_CALIBRATION_POINTS}. A table never changes once built,
+ * so a new calibration is swapped in by replacing the table.
+ */
+public class ShooterCalibrationTable {
+
+    /** The number of samples in the dense table.
+     */
+    private static final int TABLE_SIZE = 512;
+
+    // the calibration range
+    private final double m_tyClose;
+    private final double m_tyFar;
+    private final int m_pointCount;
+
+    // the dense table, sample i is at ty = m_tyFar + (i * m_step)
+    private final double m_step;
+    private final double[] m_frontSpeed = new double[TABLE_SIZE];
+    private final double[] m_rearSpeed = new double[TABLE_SIZE];
+    private final double[] m_xOffset = new double[TABLE_SIZE];
+
+    /**
+     * The interpolated calibration at one {@code ty}. The caller keeps its own instance and refreshes it with
+     * {@link ShooterCalibrationTable#lookup(double, Speeds)}.
+     */
+    public static class Speeds {
+        private double m_ty = 0.0;
+        private double m_frontSpeed = 0.0;
+        private double m_rearSpeed = 0.0;
+        private double m_xOffset = 0.0;
+
+        public double getTy() {
+            return m_ty;
+        }
+
+        public double getFrontSpeed() {
+            return m_frontSpeed;
+        }
+
+        public double getRearSpeed() {
+            return m_rearSpeed;
+        }
+
+        /**
+         * @return The x offset to add to {@code tx} when targeting, in degrees.
+         */
+        public double getXOffset() {
+            return m_xOffset;
+        }
+    }
+
+    /**
+     * Build the table from calibration points.
+     *
+     * @param points (LimelightCalibrationPoint[]) The calibration points, at least 2, ordered by decreasing
+     *               {@code ty}.
+     * @throws IllegalArgumentException If there are fewer than 2 points, or they are not ordered by decreasing
+     *                                  {@code ty}.
+     */
+    public ShooterCalibrationTable(LimelightCalibrationPoint[] points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("At least 2 calibration points are required.");
+        }
+        // the curve is fitted with ty increasing, which is the reverse of the calibration point order
+        int n = points.length;
+        double[] ty = new double[n];
+        double[] frontSpeed = new double[n];
+        double[] rearSpeed = new double[n];
+        double[] xOffset = new double[n];
+        for (int i = 0; i < n; i++) {
+            LimelightCalibrationPoint point = points[n - 1 - i];
+            if ((i > 0) && (point.ty <= ty[i - 1])) {
+                throw new IllegalArgumentException("Calibration points must be ordered by decreasing ty.");
+            }
+            ty[i] = point.ty;
+            frontSpeed[i] = point.frontSpeed;
+            rearSpeed[i] = point.rearSpeed;
+            xOffset[i] = point.xOffset;
+        }
+        m_pointCount = n;
+        m_tyFar = ty[0];
+        m_tyClose = ty[n - 1];
+        m_step = (m_tyClose - m_tyFar) / (TABLE_SIZE - 1);
+        sample(ty, frontSpeed, m_frontSpeed);
+        sample(ty, rearSpeed, m_rearSpeed);
+        sample(ty, xOffset, m_xOffset);
+    }
+
+    /**
+     * Load a calibration from a JSON file. The file is a dictionary with a {@code "points"} list, each point is a
+     * dictionary with {@code "ty"}, {@code "frontSpeed"}, {@code "rearSpeed"} and {@code "xOffset"}, e.g.:
+     * <pre>
+     * {
+     *   "points": [
+     *     { "ty": 1.9, "frontSpeed": 0.5, "rearSpeed": -0.55, "xOffset": 4.2 },
+     *     ...
+     *   ]
+     * }
+     * </pre>
+     * The points may be in any order.
+     *
+     * @param filename (String) The calibration file.
+     * @return The calibration table.
+     * @throws IOException              Error reading the file.
+     * @throws ParseException           JSON format error in the file.
+     * @throws ClassCastException       A value in the file is the wrong type.
+     * @throws NullPointerException     A required key is missing.
+     * @throws IllegalArgumentException There are fewer than 2 points, or 2 points have the same {@code ty}.
+     */
+    public static ShooterCalibrationTable load(String filename) throws IOException, ParseException {
+        JSONObject dict = JsonSupport.readJsonFileAsJSONObject(filename);
+        JSONArray pointList = JsonSupport.getJSONArray(dict, "points");
+        LimelightCalibrationPoint[] points = new LimelightCalibrationPoint[pointList.size()];
+        for (int i = 0; i < points.length; i++) {
+            JSONObject point = (JSONObject) pointList.get(i);
+            points[i] = new LimelightCalibrationPoint(getNumber(point, "ty"), getNumber(point, "frontSpeed"),
+                    getNumber(point, "rearSpeed"), getNumber(point, "xOffset"));
+        }
+        Arrays.sort(points, (a, b) -> Double.compare(b.ty, a.ty));
+        return new ShooterCalibrationTable(points);
+    }
+
+    /**
+     * Get a required number from a JSON dictionary. Unlike {@link JsonSupport#parseDouble}, this accepts values
+     * written without a decimal point, which the JSON parser reads as integers.
+     */
+    private static double getNumber(JSONObject dict, String key) {
+        Object value = dict.get(key);
+        if (null == value) {
+            throw new NullPointerException(String.format("No value for key '%s'", key));
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Fit a monotone cubic through the points and sample it into a dense table.
+     *
+     * @param x      (double[]) The x of the points, increasing.
+     * @param y      (double[]) The y of the points.
+     * @param table  (double[]) The dense table, sample i is at {@code x[0] + (i * m_step)}.
+     */
+    private void sample(double[] x, double[] y, double[] table) {
+        double[] slope = pchipSlopes(x, y);
+        int interval = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double xi = (i == TABLE_SIZE - 1) ? x[x.length - 1] : x[0] + (i * m_step);
+            while ((interval < x.length - 2) && (xi > x[interval + 1])) {
+                interval++;
+            }
+            double h = x[interval + 1] - x[interval];
+            double t = (xi - x[interval]) / h;
+            double t2 = t * t;
+            double t3 = t2 * t;
+            // the cubic Hermite basis
+            table[i] = (((2.0 * t3) - (3.0 * t2) + 1.0) * y[interval]) +
+                    ((t3 - (2.0 * t2) + t) * h * slope[interval]) +
+                    (((-2.0 * t3) + (3.0 * t2)) * y[interval + 1]) +
+                    ((t3 - t2) * h * slope[interval + 1]);
+        }
+    }
+
+    /**
+     * The Fritsch-Carlson slopes at the points for a monotone cubic Hermite curve: 0 where the data changes
+     * direction, otherwise a weighted harmonic mean of the slopes of the intervals on either side, and a
+     * shape-preserving 3 point estimate at the ends.
+     *
+     * @param x (double[]) The x of the points, increasing.
+     * @param y (double[]) The y of the points.
+     * @return The slope at each point.
+     */
+    static double[] pchipSlopes(double[] x, double[] y) {
+        int n = x.length;
+        double[] h = new double[n - 1];
+        double[] delta = new double[n - 1];
+        for (int k = 0; k < n - 1; k++) {
+            h[k] = x[k + 1] - x[k];
+            delta[k] = (y[k + 1] - y[k]) / h[k];
+        }
+        double[] slope = new double[n];
+        if (n == 2) {
+            slope[0] = delta[0];
+            slope[1] = delta[0];
+            return slope;
+        }
+        for (int k = 1; k < n - 1; k++) {
+            if ((delta[k - 1] * delta[k]) <= 0.0) {
+                slope[k] = 0.0;
+            } else {
+                double w1 = (2.0 * h[k]) + h[k - 1];
+                double w2 = h[k] + (2.0 * h[k - 1]);
+                slope[k] = (w1 + w2) / ((w1 / delta[k - 1]) + (w2 / delta[k]));
+            }
+        }
+        slope[0] = endSlope(h[0], h[1], delta[0], delta[1]);
+        slope[n - 1] = endSlope(h[n - 2], h[n - 3], delta[n - 2], delta[n - 3]);
+        return slope;
+    }
+
+    private static double endSlope(double h0, double h1, double delta0, double delta1) {
+        double slope = (((2.0 * h0) + h1) * delta0 - (h0 * delta1)) / (h0 + h1);
+        if (Math.signum(slope) != Math.signum(delta0)) {
+            return 0.0;
+        }
+        if ((Math.signum(delta0) != Math.signum(delta1)) && (Math.abs(slope) > Math.abs(3.0 * delta0))) {
+            return 3.0 * delta0;
+        }
+        return slope;
+    }
+
+    /**
+     * @return The number of calibration points the table was built from.
+     */
+    public int getPointCount() {
+        return m_pointCount;
+    }
+
+    /**
+     * @param ty (double) The target {@code ty}, in degrees.
+     * @return {@code true} if the target is closer than the closest calibration point.
+     */
+    public boolean isTooClose(double ty) {
+        return ty > m_tyClose;
+    }
+
+    /**
+     * @param ty (double) The target {@code ty}, in degrees.
+     * @return {@code true} if the target is farther than the farthest calibration point.
+     */
+    public boolean isTooFar(double ty) {
+        return ty < m_tyFar;
+    }
+
+    /**
+     * Look up the calibration at a target {@code ty}.
+     *
+     * @param ty     (double) The target {@code ty}, in degrees.
+     * @param speeds (Speeds, not null) Set to the calibration at {@code ty}.
+     * @return {@code true} if {@code speeds} was set, {@code false} if {@code ty} is outside the calibration
+     * range (in which case {@code speeds} is unchanged).
+     */
+    public boolean lookup(double ty, Speeds speeds) {
+        if (isTooClose(ty) || isTooFar(ty) || Double.isNaN(ty)) {
+            return false;
+        }
+        double u = (ty - m_tyFar) / m_step;
+        int i = Math.min((int) u, TABLE_SIZE - 2);
+        double f = u - i;
+        speeds.m_ty = ty;
+        speeds.m_frontSpeed = m_frontSpeed[i] + ((m_frontSpeed[i + 1] - m_frontSpeed[i]) * f);
+        speeds.m_rearSpeed = m_rearSpeed[i] + ((m_rearSpeed[i + 1] - m_rearSpeed[i]) * f);
+        speeds.m_xOffset = m_xOffset[i] + ((m_xOffset[i + 1] - m_xOffset[i]) * f);
+        return true;
+    }
+}
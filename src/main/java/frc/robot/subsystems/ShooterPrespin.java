@@ -0,0 +1,120 @@
+package frc.robot.subsystems;
+
+/**
+ * The pre-spin decision of {@link frc.robot.commands.ShooterPrespinCommand} - whether to keep the flywheels
+ * spinning between shots, and how fast. The flywheels are kept spinning while the robot is holding cargo and is
+ * in the shooting zone (within {@link #ZONE_RADIUS} of the hub), to the limelight shooter speeds if the limelight
+ * can shoot, otherwise to an idle speed. The pre-spin is limited by the battery - only idle below
+ * {@link #FULL_VOLTAGE}, and none below {@link #MIN_VOLTAGE}.
+ * <p>
+ * There are no cargo sensors, so the robot may be holding cargo if it has collected since it last shot 2 balls.
+ * It starts holding the preloaded cargo. This does not use the robot hardware, the command reads the robot
+ * state and sets the flywheel speeds for the {@link Speed} returned by {@link #update}.
+ * <p>
+ * The distance to the hub is from the field position, but the field position is only known once it has been
+ * set (by autonomous), before then the pose is at (0,0), the center of the hub. Until the field position is
+ * known the limelight range is used if the limelight sees the target, and there is no pre-spin if it does not,
+ * see {@link #hubDistance}.
+ */
+public class ShooterPrespin {
+
+    /** The shooting zone, in meters from the center of the hub. */
+    public static final double ZONE_RADIUS = 5.5;
+    /** The battery voltage below which the flywheels are only pre-spun to idle, in volts. */
+    public static final double FULL_VOLTAGE = 11.5;
+    /** The battery voltage below which the flywheels are not pre-spun, in volts. */
+    public static final double MIN_VOLTAGE = 10.5;
+    /** The weight of a new battery voltage reading, so a brief sag when the drive accelerates does not stop the
+     * pre-spin. */
+    private static final double VOLTAGE_FILTER = 0.05;
+
+    /**
+     * The flywheel speeds to pre-spin to.
+     */
+    public enum Speed {
+        /** Stop the flywheels. */
+        OFF,
+        /** The idle speeds, see {@link ShooterSubsystem#PRESPIN_IDLE_FRONT}. */
+        IDLE,
+        /** The limelight shooter speeds for the shot from here. */
+        LIMELIGHT
+    }
+
+    private boolean m_holdingCargo = true;
+    private int m_cargoShotCount = 0;
+    private double m_voltage = Double.NaN;
+
+    /**
+     * The distance to the hub to decide the pre-spin with.
+     *
+     * @param fieldPositionKnown (boolean) {@code true} if the field position has been set, see
+     *                           {@link DriveSubsystem#isFieldPositionKnown()}.
+     * @param fieldDistance      (double) The distance from the field position to the center of the hub, in
+     *                           meters.
+     * @param targetSeen         (boolean) {@code true} if the limelight sees the target.
+     * @param limelightRange     (double) The limelight range to the center of the hub, in meters.
+     * @return (double) The field distance if the field position is known, otherwise the limelight range if the
+     * limelight sees the target, otherwise {@link Double#NaN} (unknown, which {@link #update} never pre-spins for).
+     */
+    public static double hubDistance(boolean fieldPositionKnown, double fieldDistance, boolean targetSeen,
+                                     double limelightRange) {
+        if (fieldPositionKnown) {
+            return fieldDistance;
+        }
+        return targetSeen ? limelightRange : Double.NaN;
+    }
+
+    /**
+     * The pre-spin is starting again, balls may have been shot while a shooting command had the shooter.
+     *
+     * @param shotCount (int) The shooter shot count, see {@link ShooterSubsystem#getShotCount()}.
+     */
+    public void start(int shotCount) {
+        if (shotCount - m_cargoShotCount >= 2) {
+            m_holdingCargo = false;
+        }
+    }
+
+    /**
+     * Update the cargo estimate and the filtered battery voltage, and decide the pre-spin.
+     *
+     * @param collecting     (boolean) {@code true} if the collector is running in the collect direction.
+     * @param shotCount      (int) The shooter shot count.
+     * @param hubDistance    (double) The distance from the robot to the center of the hub, in meters,
+     *                       {@link Double#NaN} if it is not known, see {@link #hubDistance}.
+     * @param batteryVoltage (double) The battery voltage, in volts.
+     * @param canShoot       (boolean) {@code true} if the limelight can shoot from here.
+     * @return (Speed) The speeds to spin the flywheels to.
+     */
+    public Speed update(boolean collecting, int shotCount, double hubDistance, double batteryVoltage,
+                        boolean canShoot) {
+        if (collecting) {
+            m_holdingCargo = true;
+            m_cargoShotCount = shotCount;
+        } else if (shotCount - m_cargoShotCount >= 2) {
+            m_holdingCargo = false;
+        }
+        m_voltage = Double.isNaN(m_voltage) ? batteryVoltage :
+                m_voltage + ((batteryVoltage - m_voltage) * VOLTAGE_FILTER);
+
+        // not (hubDistance <= ZONE_RADIUS) so an unknown (NaN) distance is outside the zone
+        if (!m_holdingCargo || !(hubDistance <= ZONE_RADIUS) || (m_voltage < MIN_VOLTAGE)) {
+            return Speed.OFF;
+        }
+        return ((m_voltage >= FULL_VOLTAGE) && canShoot) ? Speed.LIMELIGHT : Speed.IDLE;
+    }
+
+    /**
+     * @return {@code true} if the robot may be holding cargo.
+     */
+    public boolean isHoldingCargo() {
+        return m_holdingCargo;
+    }
+
+    /**
+     * @return The filtered battery voltage, in volts, {@link Double#NaN} before the first update.
+     */
+    public double getVoltage() {
+        return m_voltage;
+    }
+}
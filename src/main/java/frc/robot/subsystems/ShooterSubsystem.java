@@ -2,12 +2,25 @@ package frc.robot.subsystems;
 
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.ctre.phoenix.sensors.SensorVelocityMeasPeriod;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import org.a05annex.util.JsonSupport;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 
 public class ShooterSubsystem extends SubsystemBase {
     /**
@@ -32,8 +45,17 @@ public class ShooterSubsystem extends SubsystemBase {
 
     private final TalonSRX m_frontShooter = new TalonSRX(Constants.CAN_Devices.SHOOTER_FRONT);
     private final TalonSRX m_rearShooter = new TalonSRX(Constants.CAN_Devices.SHOOTER_REAR);
-    private double m_lastSetFrontSpeed;
-    private double m_lastSetRearSpeed;
+    // the velocity setpoints, volatile because they are read by the flywheel sampler thread
+    private volatile double m_lastSetFrontSpeed;
+    private volatile double m_lastSetRearSpeed;
+
+    // last setpoints sent to the shooter Talons so redundant set() calls are skipped. This saves the call, not a CAN
+    // frame - the CTRE library sends the control frame periodically whatever is set.
+    private static final double VELOCITY_TOLERANCE = 5.0; // encoder units per 100ms
+    private static final double POWER_TOLERANCE = 0.001;
+    private final SetpointCache m_frontSetpoint = new SetpointCache(SetpointCache.Controller.TALON, VELOCITY_TOLERANCE);
+    private final SetpointCache m_rearSetpoint =
+            new SetpointCache(SetpointCache.Controller.TALON, VELOCITY_TOLERANCE);
 
     // Shooter speeds, set from -1.0 to 1.0
     public double m_frontShooterSpeed = 0.55; // dump speed
@@ -62,16 +84,15 @@ public class ShooterSubsystem extends SubsystemBase {
     public static double DUMP_SPEED_FRONT = 0.4;
     public static double DUMP_SPEED_REAR = -0.4;
 
+    // pre-spin idle speeds, see ShooterPrespin for the zone and battery limits
+    public static double PRESPIN_IDLE_FRONT = 0.35;
+    public static double PRESPIN_IDLE_REAR = -0.35;
+
     // Shooter wait lengths
     public static final int REV_CYCLES = 25; // 0.5 seconds
     public static final int WAIT_CYCLES = 100; // 2 seconds total
 
-    // for double shots
-    public static final int AUTO_REV_CYCLES = 25; // 0.5 seconds
-    public static final int AUTO_WAIT_CYCLES = 100; // UNUSED - wait to jerk collector until after first ball is shot
-    public static double SETTLE_CYCLES = 50; // wait until second ball is shot to jerk again
-    public static double SHOOT_CYCLES = 50; // wait until first ball is being shot to load next one
-    public static double DOUBLE_CYCLES = 200; // total time of double shot = 4 seconds
+    // the double shot times are in the shot sequence tables, see ShotSequenceCommand.doubleShot()
 
     // speed tolerance to start feeding
     private final double SPINUP_THRESHOLD = 0.98;
@@ -79,6 +100,46 @@ public class ShooterSubsystem extends SubsystemBase {
     // keep track of whether a shoot command is running for auto
     private boolean m_isShooting = false;
 
+    // While the flywheels are running, a sampler Notifier reads both flywheels every SAMPLE_PERIOD (with the
+    // Talon feedback status frame sped up to match), records them in the flywheel history, and runs the shot
+    // detector and the shot analytics. The detector and the histograms are updated on the sampler thread, so
+    // they are only used holding the m_shotDetector lock. The Talon velocity measurement is shortened too - the
+    // default averages 64 measurements over 100ms, which smears a 20-40ms dip over the whole window.
+    private static final double SAMPLE_PERIOD = 0.005;
+    private static final int SAMPLING_STATUS_PERIOD_MS = 5;
+    private static final int DEFAULT_STATUS_PERIOD_MS = 20;
+    private static final SensorVelocityMeasPeriod SAMPLING_VELOCITY_PERIOD = SensorVelocityMeasPeriod.Period_10Ms;
+    private static final int SAMPLING_VELOCITY_WINDOW = 4;
+    private static final SensorVelocityMeasPeriod DEFAULT_VELOCITY_PERIOD = SensorVelocityMeasPeriod.Period_100Ms;
+    private static final int DEFAULT_VELOCITY_WINDOW = 64;
+    private static final int HISTORY_CAPACITY = 1024; // about 5 seconds
+    private static final int TRACE_LENGTH = 400; // 2 seconds
+    private final Notifier m_sampler = new Notifier(this::sampleFlywheels);
+    private boolean m_sampling = false;
+    private final FlywheelHistory m_flywheelHistory = new FlywheelHistory(HISTORY_CAPACITY);
+    private final ShotDetector m_shotDetector = new ShotDetector();
+    private final Histogram m_spinupTimes = new Histogram(0.0, 2.0, 20);
+    private final Histogram m_dipDepths = new Histogram(0.0, 0.3, 15);
+    private final Histogram m_recoveryTimes = new Histogram(0.0, 1.0, 20);
+    private final Histogram m_shotIntervals = new Histogram(0.0, 2.0, 20);
+    private boolean m_newShotTrace = false;
+
+    // the trace of the last shot for the dashboard, preallocated
+    private final double[] m_traceTime = new double[TRACE_LENGTH];
+    private final double[] m_traceFrontVelocity = new double[TRACE_LENGTH];
+    private final double[] m_traceFrontSetpoint = new double[TRACE_LENGTH];
+    private final double[] m_traceRearVelocity = new double[TRACE_LENGTH];
+    private final double[] m_traceRearSetpoint = new double[TRACE_LENGTH];
+
+    // The flywheel feedforward models, see FlywheelModel. If they are loaded, the Talon velocity control gets the
+    // model feedforward as an arbitrary feedforward (kF is 0) with voltage compensation to the nominal voltage,
+    // otherwise it uses kF. Voltage compensation is also used to apply the voltages of the characterization.
+    public static final double FLYWHEEL_NOMINAL_VOLTAGE = 12.0;
+    private final File m_flywheelModelFile = new File(Filesystem.getDeployDirectory(), Constants.FLYWHEEL_MODEL_FILE);
+    private FlywheelModel m_frontModel = null;
+    private FlywheelModel m_rearModel = null;
+    private boolean m_voltageCompensation = false;
+
     /**
      * Creates a new instance of this ShooterSubsystem. This constructor
      * is private since this class is a Singleton. Code should use
@@ -95,14 +156,98 @@ public class ShooterSubsystem extends SubsystemBase {
         m_rearShooter.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative);
         m_rearShooter.setSensorPhase(true);
         m_rearShooter.setInverted(true);
+        m_frontShooter.configVoltageCompSaturation(FLYWHEEL_NOMINAL_VOLTAGE);
+        m_rearShooter.configVoltageCompSaturation(FLYWHEEL_NOMINAL_VOLTAGE);
+        loadFlywheelModels();
         updateAllPID();
         m_lastSetFrontSpeed = 0.0;
         m_lastSetRearSpeed = 0.0;
+        m_sampler.setName("Flywheel sampler");
     }
 
     public void updateAllPID() {
-        setTalonPID(m_frontShooter, SHOOTER_kP, SHOOTER_kI, SHOOTER_kF_FRONT);
-        setTalonPID(m_rearShooter, SHOOTER_kP, SHOOTER_kI, SHOOTER_kF_REAR);
+        // with a feedforward model the feedforward is the arbitrary feedforward, not kF
+        setTalonPID(m_frontShooter, SHOOTER_kP, SHOOTER_kI, (m_frontModel != null) ? 0.0 : SHOOTER_kF_FRONT);
+        setTalonPID(m_rearShooter, SHOOTER_kP, SHOOTER_kI, (m_rearModel != null) ? 0.0 : SHOOTER_kF_REAR);
+    }
+
+    /**
+     * Load the flywheel feedforward models from {@link Constants#FLYWHEEL_MODEL_FILE}. If the file cannot be
+     * loaded, kF is used.
+     */
+    private void loadFlywheelModels() {
+        if (!m_flywheelModelFile.exists()) {
+            return;
+        }
+        try {
+            JSONObject dict = JsonSupport.readJsonFileAsJSONObject(m_flywheelModelFile.getPath());
+            m_frontModel = FlywheelModel.read(dict, "front");
+            m_rearModel = FlywheelModel.read(dict, "rear");
+            System.out.println("Loaded flywheel models.");
+        } catch (Exception e) {
+            DriverStation.reportWarning("Could not load flywheel models '" + m_flywheelModelFile + "': " +
+                    e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Use new flywheel feedforward models, and save them to {@link Constants#FLYWHEEL_MODEL_FILE} so they are
+     * loaded when the robot restarts.
+     *
+     * @param front (FlywheelModel) The front flywheel model.
+     * @param rear  (FlywheelModel) The rear flywheel model.
+     * @return {@code true} if the models were saved, {@code false} if the file could not be written (the
+     * models are used until the robot restarts).
+     */
+    @SuppressWarnings("unchecked")
+    public boolean setFlywheelModels(FlywheelModel front, FlywheelModel rear) {
+        m_frontModel = front;
+        m_rearModel = rear;
+        updateAllPID();
+        m_frontSetpoint.invalidate();
+        m_rearSetpoint.invalidate();
+        JSONObject dict = new JSONObject();
+        dict.put("description", "Shooter flywheel feedforward models from the flywheel characterization, " +
+                "voltage = kS*sign(v) + kV*v, v in Talon velocity units signed like the setpoint.");
+        front.write(dict, "front");
+        rear.write(dict, "rear");
+        try (FileWriter writer = new FileWriter(m_flywheelModelFile)) {
+            writer.write(dict.toJSONString());
+            return true;
+        } catch (IOException e) {
+            DriverStation.reportWarning("Could not save flywheel models '" + m_flywheelModelFile + "': " +
+                    e.getMessage(), false);
+            return false;
+        }
+    }
+
+    /**
+     * Enable or disable voltage compensation on the flywheel Talons, if it is not already.
+     */
+    private void setVoltageCompensation(boolean enable) {
+        if (enable != m_voltageCompensation) {
+            m_voltageCompensation = enable;
+            m_frontShooter.enableVoltageCompensation(enable);
+            m_rearShooter.enableVoltageCompensation(enable);
+        }
+    }
+
+    /**
+     * Set the flywheel voltages, for characterization. The voltages are compensated for the battery voltage. The
+     * velocity setpoints are cleared, so the shot detection is stopped.
+     *
+     * @param frontVolts (double) The front flywheel voltage, positive is the shooting direction.
+     * @param rearVolts  (double) The rear flywheel voltage, negative is the shooting direction.
+     */
+    public void setShooterVoltage(double frontVolts, double rearVolts) {
+        setVoltageCompensation(true);
+        m_lastSetFrontSpeed = 0.0;
+        m_lastSetRearSpeed = 0.0;
+        updateSampling();
+        setTalon(m_frontShooter, m_frontSetpoint, ControlMode.PercentOutput,
+                frontVolts / FLYWHEEL_NOMINAL_VOLTAGE, POWER_TOLERANCE);
+        setTalon(m_rearShooter, m_rearSetpoint, ControlMode.PercentOutput,
+                rearVolts / FLYWHEEL_NOMINAL_VOLTAGE, POWER_TOLERANCE);
     }
 
     public void setTalonPID(TalonSRX talon, double kP, double kI, double kF) {
@@ -117,11 +262,13 @@ public class ShooterSubsystem extends SubsystemBase {
      */
     public void setFrontShooter(double speed) {
         m_lastSetFrontSpeed = MAX_FRONT_SHOOTER_RPM * speed;
+        setVoltageCompensation((m_frontModel != null) && (m_rearModel != null));
         if (m_lastSetFrontSpeed == 0.0) {
-            m_frontShooter.set(ControlMode.PercentOutput, m_lastSetFrontSpeed);
+            setTalon(m_frontShooter, m_frontSetpoint, ControlMode.PercentOutput, 0.0, POWER_TOLERANCE);
         } else {
-            m_frontShooter.set(ControlMode.Velocity, m_lastSetFrontSpeed);
+            setTalon(m_frontShooter, m_frontSetpoint, m_frontModel, m_lastSetFrontSpeed);
         }
+        updateSampling();
     }
 
     /**
@@ -129,7 +276,7 @@ public class ShooterSubsystem extends SubsystemBase {
      * @param power (double) Between -1.0 and 1.0.
      */
     public void setFrontShooterPower(double power) {
-        m_frontShooter.set(ControlMode.PercentOutput, power);
+        setTalon(m_frontShooter, m_frontSetpoint, ControlMode.PercentOutput, power, POWER_TOLERANCE);
     }
 
     /**
@@ -138,11 +285,13 @@ public class ShooterSubsystem extends SubsystemBase {
      */
     public void setRearShooter(double speed) {
         m_lastSetRearSpeed = MAX_REAR_SHOOTER_RPM * speed;
+        setVoltageCompensation((m_frontModel != null) && (m_rearModel != null));
         if (m_lastSetRearSpeed == 0.0) {
-            m_rearShooter.set(ControlMode.PercentOutput, m_lastSetRearSpeed);
+            setTalon(m_rearShooter, m_rearSetpoint, ControlMode.PercentOutput, 0.0, POWER_TOLERANCE);
         } else {
-            m_rearShooter.set(ControlMode.Velocity, m_lastSetRearSpeed);
+            setTalon(m_rearShooter, m_rearSetpoint, m_rearModel, m_lastSetRearSpeed);
         }
+        updateSampling();
     }
 
     /**
@@ -150,7 +299,96 @@ public class ShooterSubsystem extends SubsystemBase {
      * @param power (double) Between -1.0 and 1.0.
      */
     public void setRearShooterPower(double power) {
-        m_rearShooter.set(ControlMode.PercentOutput, power);
+        setTalon(m_rearShooter, m_rearSetpoint, ControlMode.PercentOutput, power, POWER_TOLERANCE);
+    }
+
+    /**
+     * Start the flywheel sampler when a flywheel is started, and stop it when both flywheels are stopped.
+     */
+    private void updateSampling() {
+        boolean running = (m_lastSetFrontSpeed != 0.0) || (m_lastSetRearSpeed != 0.0);
+        if (running == m_sampling) {
+            return;
+        }
+        m_sampling = running;
+        int statusPeriod = running ? SAMPLING_STATUS_PERIOD_MS : DEFAULT_STATUS_PERIOD_MS;
+        m_frontShooter.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, statusPeriod);
+        m_rearShooter.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, statusPeriod);
+        SensorVelocityMeasPeriod velocityPeriod = running ? SAMPLING_VELOCITY_PERIOD : DEFAULT_VELOCITY_PERIOD;
+        int velocityWindow = running ? SAMPLING_VELOCITY_WINDOW : DEFAULT_VELOCITY_WINDOW;
+        m_frontShooter.configVelocityMeasurementPeriod(velocityPeriod);
+        m_frontShooter.configVelocityMeasurementWindow(velocityWindow);
+        m_rearShooter.configVelocityMeasurementPeriod(velocityPeriod);
+        m_rearShooter.configVelocityMeasurementWindow(velocityWindow);
+        if (running) {
+            m_sampler.startPeriodic(SAMPLE_PERIOD);
+        } else {
+            m_sampler.stop();
+            synchronized (m_shotDetector) {
+                m_shotDetector.reset();
+            }
+        }
+    }
+
+    /**
+     * The flywheel sample, run by the sampler {@link Notifier} every {@link #SAMPLE_PERIOD} while the flywheels
+     * are running. Record the flywheels, update the shot detector, and collect the shot measurements.
+     */
+    private void sampleFlywheels() {
+        double time = Timer.getFPGATimestamp();
+        double frontSetpoint = m_lastSetFrontSpeed;
+        double rearSetpoint = m_lastSetRearSpeed;
+        double frontVelocity = getFrontShooterVelocity();
+        double rearVelocity = getRearShooterVelocity();
+        m_flywheelHistory.add(time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint);
+        synchronized (m_shotDetector) {
+            if ((frontSetpoint == 0.0) || (rearSetpoint == 0.0)) {
+                m_shotDetector.reset();
+                return;
+            }
+            m_shotDetector.setSetpoints(frontSetpoint, rearSetpoint);
+            double fraction = Math.min(-frontVelocity / frontSetpoint, -rearVelocity / rearSetpoint);
+            switch (m_shotDetector.update(fraction, time)) {
+                case SPUN_UP:
+                    m_spinupTimes.add(m_shotDetector.getSpinupTime());
+                    break;
+                case SHOT:
+                    m_shotIntervals.add(m_shotDetector.getShotInterval());
+                    break;
+                case RECOVERED:
+                    m_dipDepths.add(m_shotDetector.getDipDepth());
+                    m_recoveryTimes.add(m_shotDetector.getRecoveryTime());
+                    m_newShotTrace = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Set a shooter Talon velocity, with the feedforward from the flywheel model if there is one, unless the
+     * setpoint is the same as the last setpoint sent.
+     */
+    private void setTalon(TalonSRX talon, SetpointCache setpoint, FlywheelModel model, double velocity) {
+        if (setpoint.shouldSend(ControlMode.Velocity, velocity, VELOCITY_TOLERANCE)) {
+            if (model == null) {
+                talon.set(ControlMode.Velocity, velocity);
+            } else {
+                talon.set(ControlMode.Velocity, velocity, DemandType.ArbitraryFeedForward,
+                        model.getVoltage(velocity) / FLYWHEEL_NOMINAL_VOLTAGE);
+            }
+        }
+    }
+
+    /**
+     * Set a shooter Talon, unless the setpoint is the same as the last setpoint sent.
+     */
+    private void setTalon(TalonSRX talon, SetpointCache setpoint, ControlMode mode, double value,
+                          double tolerance) {
+        if (setpoint.shouldSend(mode, value, tolerance)) {
+            talon.set(mode, value);
+        }
     }
 
     /**
@@ -195,6 +433,68 @@ public class ShooterSubsystem extends SubsystemBase {
         return isFrontReady() && isRearReady();
     }
 
+    /**
+     * @return The velocity of the slower flywheel as a fraction of its setpoint, 0.0 if either flywheel is
+     * stopped.
+     */
+    public double getSpinupFraction() {
+        if ((m_lastSetFrontSpeed == 0.0) || (m_lastSetRearSpeed == 0.0)) {
+            return 0.0;
+        }
+        return Math.min(-getFrontShooterVelocity() / m_lastSetFrontSpeed,
+                -getRearShooterVelocity() / m_lastSetRearSpeed);
+    }
+
+    /**
+     * @return The number of shots detected from the flywheel velocity dip since the robot started, see
+     * {@link ShotDetector}. A command detects its shot by comparing this to the count when it started.
+     */
+    public int getShotCount() {
+        synchronized (m_shotDetector) {
+            return m_shotDetector.getShotCount();
+        }
+    }
+
+    /**
+     * @return {@code true} if a ball is passing through the flywheels, or they have not yet recovered from it.
+     */
+    public boolean isShotInProgress() {
+        synchronized (m_shotDetector) {
+            return m_shotDetector.isInDip();
+        }
+    }
+
+    /**
+     * Publish the shot analytics: the histograms and means of the spin-up time, dip depth, recovery time and time
+     * between shots, and, after each shot, the flywheel trace of the last {@link #TRACE_LENGTH} samples.
+     */
+    public void printShotAnalytics() {
+        boolean newShotTrace;
+        synchronized (m_shotDetector) {
+            printHistogram("spinup time", m_spinupTimes);
+            printHistogram("dip depth", m_dipDepths);
+            printHistogram("recovery time", m_recoveryTimes);
+            printHistogram("shot interval", m_shotIntervals);
+            SmartDashboard.putNumber("shot count", m_shotDetector.getShotCount());
+            newShotTrace = m_newShotTrace;
+            m_newShotTrace = false;
+        }
+        if (newShotTrace) {
+            m_flywheelHistory.copy(m_traceTime, m_traceFrontVelocity, m_traceFrontSetpoint,
+                    m_traceRearVelocity, m_traceRearSetpoint);
+            SmartDashboard.putNumberArray("shot trace time", m_traceTime);
+            SmartDashboard.putNumberArray("shot trace front", m_traceFrontVelocity);
+            SmartDashboard.putNumberArray("shot trace front set", m_traceFrontSetpoint);
+            SmartDashboard.putNumberArray("shot trace rear", m_traceRearVelocity);
+            SmartDashboard.putNumberArray("shot trace rear set", m_traceRearSetpoint);
+        }
+    }
+
+    private static void printHistogram(String name, Histogram histogram) {
+        SmartDashboard.putNumberArray(name + " histogram", histogram.getCounts());
+        SmartDashboard.putNumber(name + " mean", histogram.getMean());
+    }
+
     public void updateShooterConstants() {
         m_frontShooterSpeed = Constants.updateConstant("front speed", m_frontShooterSpeed,
                 -1.0, 1.0);
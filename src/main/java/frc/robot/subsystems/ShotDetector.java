@@ -0,0 +1,191 @@
+package frc.robot.subsystems;
+
+/**
+ * Watches the shooter flywheel velocity and detects when the flywheels are ready to shoot and when a ball has been
+ * shot. The velocity is given as a fraction of the velocity setpoint, the slower of the two flywheels. The
+ * flywheels are ready when they are within {@link #READY_FRACTION} of the setpoint. A ball passing through the
+ * flywheels takes energy from them, and the velocity dips - a drop below {@link #DIP_FRACTION} after the
+ * flywheels were ready is a shot. The shot is over when the flywheels recover to ready.
+ * <p>
+ * The shots are counted from construction, so a command checks for a shot by comparing the count to the count
+ * when it started. A setpoint change is not a shot - the new setpoint makes the velocity fraction drop (or rise)
+ * with no ball, so a change of more than {@link #SETPOINT_CHANGE} restarts the detection, see
+ * {@link #setSetpoints}. The detector also measures each shot for tuning the shooter and the shot
+ * sequencing: the spin-up time, the depth of the dip, the time to recover from the dip, and the time between
+ * shots. Each {@link #update} returns the {@link Event} it detected, so the measurements can be collected as
+ * they are made.
+ */
+public class ShotDetector {
+
+    /** The fraction of the setpoint at which the flywheels are ready to shoot. */
+    private static final double READY_FRACTION = 0.98;
+    /** The fraction of the setpoint, after the flywheels were ready, below which a ball is passing through. */
+    private static final double DIP_FRACTION = 0.93;
+    /** The fraction a setpoint must change by to restart the detection, e.g. the speeds updating between shots. */
+    private static final double SETPOINT_CHANGE = 0.05;
+
+    /**
+     * What an {@link #update} detected.
+     */
+    public enum Event {
+        /** Nothing changed. */
+        NONE,
+        /** The flywheels reached ready for the first time since they were started, see {@link #getSpinupTime()}.
+         */
+        SPUN_UP,
+        /** A ball started through the flywheels, see {@link #getShotInterval()}. */
+        SHOT,
+        /** The flywheels recovered from a shot, see {@link #getDipDepth()} and {@link #getRecoveryTime()}. */
+        RECOVERED
+    }
+
+    private boolean m_ready = false;
+    // ready since the last shot, so the next dip is a shot
+    private boolean m_armed = false;
+    private boolean m_spunUp = false;
+    private boolean m_inDip = false;
+    private int m_shotCount = 0;
+
+    // the measurements
+    private double m_startTime = Double.NaN;
+    private double m_lastShotTime = Double.NaN;
+    private double m_dipMinimum = 1.0;
+    private double m_spinupTime = Double.NaN;
+    private double m_shotInterval = Double.NaN;
+    private double m_dipDepth = Double.NaN;
+    private double m_recoveryTime = Double.NaN;
+    // the setpoints the velocity fraction is measured against
+    private double m_frontSetpoint = 0.0;
+    private double m_rearSetpoint = 0.0;
+
+    /**
+     * Forget the flywheel state, called when the flywheels are stopped. The shot count and the measurements are
+     * kept, but the time between shots is only measured between shots without a stop.
+     */
+    public void reset() {
+        m_ready = false;
+        m_armed = false;
+        m_spunUp = false;
+        m_inDip = false;
+        m_startTime = Double.NaN;
+        m_lastShotTime = Double.NaN;
+    }
+
+    /**
+     * Set the flywheel setpoints the velocity fraction is measured against, before each {@link #update}. If
+     * either setpoint has changed by more than {@link #SETPOINT_CHANGE} since the detection started, the detector
+     * is {@link #reset()} - a change in setpoint is a new spin-up, not a shot.
+     *
+     * @param frontSetpoint (double) The front flywheel setpoint.
+     * @param rearSetpoint  (double) The rear flywheel setpoint.
+     */
+    public void setSetpoints(double frontSetpoint, double rearSetpoint) {
+        if ((Math.abs(frontSetpoint - m_frontSetpoint) > Math.abs(frontSetpoint * SETPOINT_CHANGE)) ||
+                (Math.abs(rearSetpoint - m_rearSetpoint) > Math.abs(rearSetpoint * SETPOINT_CHANGE))) {
+            reset();
+            m_frontSetpoint = frontSetpoint;
+            m_rearSetpoint = rearSetpoint;
+        }
+    }
+
+    /**
+     * Update with a flywheel velocity sample.
+     *
+     * @param fraction (double) The flywheel velocity as a fraction of the setpoint.
+     * @param time     (double) The FPGA timestamp of the sample, in seconds.
+     * @return The event detected by this sample.
+     */
+    public Event update(double fraction, double time) {
+        if (Double.isNaN(m_startTime)) {
+            m_startTime = time;
+        }
+        m_ready = fraction >= READY_FRACTION;
+        if (m_inDip) {
+            m_dipMinimum = Math.min(m_dipMinimum, fraction);
+            if (m_ready) {
+                m_inDip = false;
+                m_armed = true;
+                m_dipDepth = 1.0 - m_dipMinimum;
+                m_recoveryTime = time - m_lastShotTime;
+                return Event.RECOVERED;
+            }
+        } else if (m_armed && (fraction < DIP_FRACTION)) {
+            m_inDip = true;
+            m_armed = false;
+            m_shotCount++;
+            m_dipMinimum = fraction;
+            m_shotInterval = time - m_lastShotTime;
+            m_lastShotTime = time;
+            return Event.SHOT;
+        } else if (m_ready) {
+            m_armed = true;
+            if (!m_spunUp) {
+                m_spunUp = true;
+                m_spinupTime = time - m_startTime;
+                return Event.SPUN_UP;
+            }
+        }
+        return Event.NONE;
+    }
+
+    /**
+     * @return {@code true} if the flywheels are within the ready fraction of the setpoint.
+     */
+    public boolean isReady() {
+        return m_ready;
+    }
+
+    /**
+     * @return {@code true} if a ball is passing through the flywheels, or they are recovering from it.
+     */
+    public boolean isInDip() {
+        return m_inDip;
+    }
+
+    /**
+     * @return The number of shots detected.
+     */
+    public int getShotCount() {
+        return m_shotCount;
+    }
+
+    /**
+     * @return The FPGA timestamp of the last shot detected since the flywheels were started, in seconds,
+     * {@link Double#NaN} if there has not been a shot.
+     */
+    public double getLastShotTime() {
+        return m_lastShotTime;
+    }
+
+    /**
+     * @return The time from the first sample after the flywheels were started to ready for the last spin-up, in
+     * seconds, {@link Double#NaN} if the flywheels have never been ready.
+     */
+    public double getSpinupTime() {
+        return m_spinupTime;
+    }
+
+    /**
+     * @return The time between the last two shots, in seconds, {@link Double#NaN} if the flywheels were
+     * started between them.
+     */
+    public double getShotInterval() {
+        return m_shotInterval;
+    }
+
+    /**
+     * @return The lowest velocity in the last recovered shot below the setpoint, as a fraction of the setpoint,
+     * {@link Double#NaN} if there has not been a recovered shot.
+     */
+    public double getDipDepth() {
+        return m_dipDepth;
+    }
+
+    /**
+     * @return The time from the start of the last recovered shot to ready, in seconds, {@link Double#NaN} if
+     * there has not been a recovered shot.
+     */
+    public double getRecoveryTime() {
+        return m_recoveryTime;
+    }
+}
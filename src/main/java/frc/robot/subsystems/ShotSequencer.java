@@ -0,0 +1,349 @@
+package frc.robot.subsystems;
+
+/**
+ * Runs a shot sequence - a table of {@link Step}s, each with the collector, feeder and shooter outputs while it
+ * runs and how it exits: after a time, or when a flywheel condition is met (see {@link Condition}). A sequence is
+ * a {@code Step[]}, the first step is the start, and the sequence ends when a step exits to {@link #DONE}, or when
+ * the whole sequence has run longer than its time limit. New shot patterns are new tables, and tuning a pattern is
+ * editing its table.
+ * <p>
+ * Times are in milliseconds from FPGA timestamps, not command cycles, so a late or skipped cycle does not stretch
+ * the sequence. Every step transition is recorded with its timestamp, and the total time spent in each step is
+ * accumulated, so where the time of a shot goes can be seen, see {@link #toString()}. The sequencer does not use
+ * the robot hardware - the shooting command reads the flywheels, calls {@link #update}, and sets the outputs of
+ * {@link #getStep()}.
+ */
+public class ShotSequencer {
+
+    /** The name of the step that ends the sequence. */
+    public static final String DONE = "DONE";
+
+    /** The maximum number of transitions recorded, later transitions are counted but not recorded. */
+    private static final int MAX_TRANSITIONS = 32;
+
+    /**
+     * The flywheel conditions a step can exit on, in addition to its time.
+     */
+    public enum Condition {
+        /** No condition, the step exits after its time. */
+        NONE,
+        /** The flywheels are up to speed, see {@link ShooterSubsystem#isReady()}. */
+        READY,
+        /** The number of shots since the sequence started is at least the step shots. */
+        SHOTS,
+        /** The number of shots since the sequence started is at least the step shots, and the flywheels have
+         * recovered from the last one. */
+        SHOTS_RECOVERED
+    }
+
+    /**
+     * A step of a shot sequence. Steps are immutable, so a table can be shared by any number of sequencers.
+     */
+    public static class Step {
+        private final String m_name;
+        private final double m_collectorPower;
+        private final double m_feederPower;
+        private final boolean m_spinShooter;
+        private final Condition m_condition;
+        private final int m_shots;
+        private final String m_next;
+        private final int m_timeMs;
+        private final String m_timeoutNext;
+
+        /**
+         * Instantiate a step that exits after a time.
+         *
+         * @param name           (String) The step name, unique in the sequence.
+         * @param collectorPower (double) The collector power during the step.
+         * @param feederPower    (double) The feeder power during the step.
+         * @param spinShooter    (boolean) {@code true} if the flywheels are spinning during the step.
+         * @param timeMs         (int) The time in the step, in milliseconds.
+         * @param next           (String) The name of the next step, or {@link #DONE}.
+         */
+        public Step(String name, double collectorPower, double feederPower, boolean spinShooter,
+                    int timeMs, String next) {
+            this(name, collectorPower, feederPower, spinShooter, Condition.NONE, 0, next, timeMs, next);
+        }
+
+        /**
+         * Instantiate a step that exits when a condition is met, or after a time if it is not.
+         *
+         * @param name           (String) The step name, unique in the sequence.
+         * @param collectorPower (double) The collector power during the step.
+         * @param feederPower    (double) The feeder power during the step.
+         * @param spinShooter    (boolean) {@code true} if the flywheels are spinning during the step.
+         * @param condition      (Condition) The condition that ends the step.
+         * @param shots          (int) The shots since the sequence started for {@link Condition#SHOTS} and
+         *                       {@link Condition#SHOTS_RECOVERED}, ignored for other conditions.
+         * @param next           (String) The name of the step after the condition is met, or {@link #DONE}.
+         * @param timeMs         (int) The maximum time in the step, in milliseconds.
+         * @param timeoutNext    (String) The name of the step after the maximum time, or {@link #DONE}.
+         */
+        public Step(String name, double collectorPower, double feederPower, boolean spinShooter,
+                    Condition condition, int shots, String next, int timeMs, String timeoutNext) {
+            m_name = name;
+            m_collectorPower = collectorPower;
+            m_feederPower = feederPower;
+            m_spinShooter = spinShooter;
+            m_condition = condition;
+            m_shots = shots;
+            m_next = next;
+            m_timeMs = timeMs;
+            m_timeoutNext = timeoutNext;
+        }
+
+        public String getName() {
+            return m_name;
+        }
+
+        public double getCollectorPower() {
+            return m_collectorPower;
+        }
+
+        public double getFeederPower() {
+            return m_feederPower;
+        }
+
+        public boolean getSpinShooter() {
+            return m_spinShooter;
+        }
+    }
+
+    private final Step[] m_steps;
+    // the index of the next step of each step for the condition and for the timeout, -1 is DONE
+    private final int[] m_next;
+    private final int[] m_timeoutNext;
+    private final double m_maxTime;
+
+    // the run state
+    private int m_current = 0;
+    private boolean m_done = true;
+    private double m_startTime = 0.0;
+    private double m_stepStartTime = 0.0;
+    private int m_startShotCount = 0;
+
+    // the transitions, preallocated: the step entered and the time it was entered (from the sequence start)
+    private final int[] m_transitionStep = new int[MAX_TRANSITIONS];
+    private final double[] m_transitionTime = new double[MAX_TRANSITIONS];
+    private int m_transitionCount = 0;
+    // the total time spent in each step, and the total time of the sequence, in seconds
+    private final double[] m_stepTime;
+    private double m_totalTime = 0.0;
+
+    /**
+     * Instantiate a sequencer for a shot sequence.
+     *
+     * @param steps     (Step[]) The shot sequence, the first step is the start.
+     * @param maxTimeMs (int) The maximum time of the whole sequence, in milliseconds.
+     * @throws IllegalArgumentException If the sequence is empty, or a step name is repeated or a next step
+     *                                  is not in the sequence.
+     */
+    public ShotSequencer(Step[] steps, int maxTimeMs) {
+        if (steps.length == 0) {
+            throw new IllegalArgumentException("A shot sequence needs at least 1 step.");
+        }
+        m_steps = steps;
+        m_next = new int[steps.length];
+        m_timeoutNext = new int[steps.length];
+        m_stepTime = new double[steps.length];
+        m_maxTime = maxTimeMs / 1000.0;
+        for (int i = 0; i < steps.length; i++) {
+            if (findStep(steps[i].m_name) != i) {
+                throw new IllegalArgumentException(String.format("Step '%s' is repeated.", steps[i].m_name));
+            }
+            m_next[i] = resolveNext(steps[i], steps[i].m_next);
+            m_timeoutNext[i] = resolveNext(steps[i], steps[i].m_timeoutNext);
+        }
+    }
+
+    private int findStep(String name) {
+        for (int i = 0; i < m_steps.length; i++) {
+            if (m_steps[i].m_name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int resolveNext(Step step, String next) {
+        if (DONE.equals(next)) {
+            return -1;
+        }
+        int index = findStep(next);
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Step '%s' goes to '%s', which is not in the sequence.", step.m_name, next));
+        }
+        return index;
+    }
+
+    /**
+     * Start the sequence at its first step.
+     *
+     * @param time      (double) The FPGA timestamp, in seconds.
+     * @param shotCount (int) The shooter shot count, see {@link ShooterSubsystem#getShotCount()}.
+     */
+    public void start(double time, int shotCount) {
+        m_current = 0;
+        m_done = false;
+        m_startTime = time;
+        m_stepStartTime = time;
+        m_startShotCount = shotCount;
+        m_transitionCount = 0;
+        m_totalTime = 0.0;
+        for (int i = 0; i < m_stepTime.length; i++) {
+            m_stepTime[i] = 0.0;
+        }
+        record(0, time);
+    }
+
+    /**
+     * Update the sequence, moving to the next step if the current step has exited. At most one step exits in an
+     * update, so the outputs of every step are set for at least one cycle.
+     *
+     * @param time           (double) The FPGA timestamp, in seconds.
+     * @param ready          (boolean) {@code true} if the flywheels are up to speed.
+     * @param shotCount      (int) The shooter shot count.
+     * @param shotInProgress (boolean) {@code true} if a ball is passing through the flywheels.
+     * @return {@code true} if the sequence is done.
+     */
+    public boolean update(double time, boolean ready, int shotCount, boolean shotInProgress) {
+        if (m_done) {
+            return true;
+        }
+        int next;
+        if (time - m_startTime >= m_maxTime) {
+            next = -1;
+        } else if (isConditionMet(m_steps[m_current], ready, shotCount - m_startShotCount, shotInProgress)) {
+            next = m_next[m_current];
+        } else if (time - m_stepStartTime >= m_steps[m_current].m_timeMs / 1000.0) {
+            next = m_timeoutNext[m_current];
+        } else {
+            return false;
+        }
+        m_stepTime[m_current] += time - m_stepStartTime;
+        m_totalTime = time - m_startTime;
+        if (next < 0) {
+            m_done = true;
+            return true;
+        }
+        m_current = next;
+        m_stepStartTime = time;
+        record(next, time);
+        return false;
+    }
+
+    private static boolean isConditionMet(Step step, boolean ready, int shots, boolean shotInProgress) {
+        switch (step.m_condition) {
+            case READY:
+                return ready;
+            case SHOTS:
+                return shots >= step.m_shots;
+            case SHOTS_RECOVERED:
+                return (shots >= step.m_shots) && !shotInProgress;
+            default:
+                return false;
+        }
+    }
+
+    private void record(int step, double time) {
+        if (m_transitionCount < MAX_TRANSITIONS) {
+            m_transitionStep[m_transitionCount] = step;
+            m_transitionTime[m_transitionCount] = time - m_startTime;
+        }
+        m_transitionCount++;
+    }
+
+    /**
+     * Stop the sequence before it is done, e.g. the command was interrupted. The time in the current step is
+     * accumulated.
+     *
+     * @param time (double) The FPGA timestamp, in seconds.
+     */
+    public void stop(double time) {
+        if (!m_done) {
+            m_stepTime[m_current] += time - m_stepStartTime;
+            m_totalTime = time - m_startTime;
+            m_done = true;
+        }
+    }
+
+    /**
+     * @return {@code true} if the sequence is done (or has not been started).
+     */
+    public boolean isDone() {
+        return m_done;
+    }
+
+    /**
+     * @return The current step, the last step if the sequence is done.
+     */
+    public Step getStep() {
+        return m_steps[m_current];
+    }
+
+    /**
+     * @return The number of step transitions, including the start. Only the first {@link #MAX_TRANSITIONS} are
+     * recorded.
+     */
+    public int getTransitionCount() {
+        return m_transitionCount;
+    }
+
+    /**
+     * @param transition (int) The transition, 0 is the start.
+     * @return The step entered.
+     */
+    public Step getTransitionStep(int transition) {
+        return m_steps[m_transitionStep[transition]];
+    }
+
+    /**
+     * @param transition (int) The transition, 0 is the start.
+     * @return The time the step was entered, in seconds from the start of the sequence.
+     */
+    public double getTransitionTime(int transition) {
+        return m_transitionTime[transition];
+    }
+
+    /**
+     * @param name (String) The step name.
+     * @return The total time spent in the step in the last run of the sequence, in seconds.
+     */
+    public double getStepTime(String name) {
+        int index = findStep(name);
+        return (index < 0) ? 0.0 : m_stepTime[index];
+    }
+
+    /**
+     * @return The total time of the last run of the sequence, in seconds.
+     */
+    public double getTotalTime() {
+        return m_totalTime;
+    }
+
+    /**
+     * @return The transitions of the last run of the sequence, with their times, and the time spent in each step,
+     * e.g. {@code "SPINUP 0.000 > SHOOT_1 0.420 > DONE 0.960 (SPINUP 0.420, SHOOT_1 0.540)"}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        int recorded = Math.min(m_transitionCount, MAX_TRANSITIONS);
+        for (int i = 0; i < recorded; i++) {
+            str.append(String.format("%s %.3f > ", getTransitionStep(i).m_name, m_transitionTime[i]));
+        }
+        if (m_transitionCount > MAX_TRANSITIONS) {
+            str.append("... > ");
+        }
+        str.append(String.format("%s %.3f (", m_done ? DONE : "RUNNING", m_totalTime));
+        String separator = "";
+        for (int i = 0; i < m_steps.length; i++) {
+            if (m_stepTime[i] > 0.0) {
+                str.append(String.format("%s%s %.3f", separator, m_steps[i].m_name, m_stepTime[i]));
+                separator = ", ";
+            }
+        }
+        return str.append(")").toString();
+    }
+}
@@ -0,0 +1,107 @@
+package frc.robot.subsystems;
+
+/**
+ * Solves for the shot while the robot is moving. A ball leaves the shooter with the velocity of the robot added
+ * to the velocity the flywheels give it, so while the robot moves it drifts by the robot velocity times the time
+ * of flight. The shooter calibration is for a robot that is stopped, so the solver finds the virtual target - the
+ * point the calibrated stationary shot must be aimed at so that the drift carries the ball to the hub - and the
+ * shot is made to the virtual target: the heading leads the hub by the bearing to the virtual target, and the
+ * shooter speeds are the calibration at the range of the virtual target.
+ * <p>
+ * The time of flight depends on the range, and the range to the virtual target depends on the time of flight, so
+ * the virtual target is found by fixed point iteration starting from the hub. It converges in a few iterations
+ * as long as the robot is much slower than the ball.
+ * <p>
+ * Directions are robot relative, in radians where 0.0 is the front of the robot and positive is clockwise; the
+ * chassis velocity is forward and strafe (to the right), as measured by the odometry.
+ */
+public class ShotSolver {
+
+    /** The most fixed point iterations to find the virtual target. */
+    private static final int MAX_ITERATIONS = 8;
+    /** The change in the range to the virtual target at which the iteration has converged, in meters. */
+    private static final double CONVERGED_RANGE = 0.001;
+
+    private final double m_timeOfFlightBase;
+    private final double m_timeOfFlightPerMeter;
+
+    // the solution
+    private double m_range = 0.0;
+    private double m_bearing = 0.0;
+    private double m_timeOfFlight = 0.0;
+    private double m_leadOffset = 0.0;
+
+    /**
+     * Instantiate a shot solver. The time of flight of a stationary shot is modeled as linear in the range,
+     * {@code timeOfFlightBase + (timeOfFlightPerMeter * range)}.
+     *
+     * @param timeOfFlightBase     (double) The time of flight at 0 range, in seconds.
+     * @param timeOfFlightPerMeter (double) The increase in time of flight with range, in seconds/meter.
+     */
+    public ShotSolver(double timeOfFlightBase, double timeOfFlightPerMeter) {
+        m_timeOfFlightBase = timeOfFlightBase;
+        m_timeOfFlightPerMeter = timeOfFlightPerMeter;
+    }
+
+    /**
+     * Solve for the virtual target.
+     *
+     * @param range           (double) The range to the hub, in meters.
+     * @param bearing         (double) The robot relative direction to the hub, in radians.
+     * @param forwardVelocity (double) The chassis forward velocity, in meters/sec.
+     * @param strafeVelocity  (double) The chassis strafe velocity, in meters/sec.
+     * @return {@code true} if the iteration converged, {@code false} if it did not (the robot is too fast for
+     * the shot), in which case the solution is the last iteration.
+     */
+    public boolean solve(double range, double bearing, double forwardVelocity, double strafeVelocity) {
+        double hubForward = range * Math.cos(bearing);
+        double hubStrafe = range * Math.sin(bearing);
+        double virtualRange = range;
+        double virtualForward = hubForward;
+        double virtualStrafe = hubStrafe;
+        double timeOfFlight = 0.0;
+        boolean converged = false;
+        for (int i = 0; (i < MAX_ITERATIONS) && !converged; i++) {
+            timeOfFlight = m_timeOfFlightBase + (m_timeOfFlightPerMeter * virtualRange);
+            virtualForward = hubForward - (forwardVelocity * timeOfFlight);
+            virtualStrafe = hubStrafe - (strafeVelocity * timeOfFlight);
+            double lastRange = virtualRange;
+            virtualRange = Math.sqrt((virtualForward * virtualForward) + (virtualStrafe * virtualStrafe));
+            converged = Math.abs(virtualRange - lastRange) < CONVERGED_RANGE;
+        }
+        m_range = virtualRange;
+        m_bearing = Math.atan2(virtualStrafe, virtualForward);
+        m_timeOfFlight = timeOfFlight;
+        m_leadOffset = Math.IEEEremainder(m_bearing - bearing, 2.0 * Math.PI);
+        return converged;
+    }
+
+    /**
+     * @return The range to the virtual target, which is the range the shooter speeds are for, in meters.
+     */
+    public double getRange() {
+        return m_range;
+    }
+
+    /**
+     * @return The robot relative direction to the virtual target, in radians.
+     */
+    public double getBearing() {
+        return m_bearing;
+    }
+
+    /**
+     * @return The time of flight of the shot, in seconds.
+     */
+    public double getTimeOfFlight() {
+        return m_timeOfFlight;
+    }
+
+    /**
+     * @return The direction to the virtual target relative to the direction to the hub, the heading lead, in
+     * radians.
+     */
+    public double getLeadOffset() {
+        return m_leadOffset;
+    }
+}
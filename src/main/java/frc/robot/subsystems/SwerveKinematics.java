@@ -0,0 +1,149 @@
+package frc.robot.subsystems;
+
+/**
+ * The swerve drive inverse kinematics for a 4 module drive with the modules at the corners of a
+ * {@code length} x {@code width} rectangle. This class does all of its math on primitive doubles and
+ * keeps its results in preallocated fields, so a call to {@link #solve(double, double, double)} allocates
+ * nothing - this is the code that runs every 20ms command cycle, and we do not want it creating garbage
+ * that shows up as garbage collection pauses (loop overruns) on the roboRIO.
+ * <p>
+ * Directions are in radians where 0.0 is towards the front of the robot, and positive is clockwise. Speeds
+ * are normalized to the range 0.0 to 1.0.
+ */
+public class SwerveKinematics {
+
+    /**
+     * The module indices used for {@link #getSpeed(int)}, {@link #getDirection(int)}, and
+     * {@link #setDirection(int, double)}. First letter is right or left, second is front or rear.
+     */
+    public static final int RF = 0, LF = 1, LR = 2, RR = 3;
+
+    /**
+     * The number of modules in the drive.
+     */
+    public static final int MODULE_COUNT = 4;
+
+    /**
+     * If a module speed is less than this the module is considered stopped, and the module keeps its
+     * last direction.
+     */
+    private static final double SMALL = 0.000001;
+
+    // the drive geometry
+    private final double m_lengthOverDiagonal;
+    private final double m_widthOverDiagonal;
+
+    // the module results of the last solve. Directions are kept when a module is stopped because its
+    // next motion will probably be very close to its last motion.
+    private final double[] m_speeds = new double[MODULE_COUNT];
+    private final double[] m_directions = new double[MODULE_COUNT];
+
+    // the chassis forward and strafe after normalization
+    private double m_forward = 0.0;
+    private double m_strafe = 0.0;
+
+    /**
+     * Instantiate the kinematics for a drive with the specified distances between the centers of the wheels.
+     *
+     * @param length (double) The front to rear distance between wheel centers, in meters.
+     * @param width  (double) The left to right distance between wheel centers, in meters.
+     */
+    public SwerveKinematics(double length, double width) {
+        double diagonal = Math.sqrt((length * length) + (width * width));
+        m_lengthOverDiagonal = length / diagonal;
+        m_widthOverDiagonal = width / diagonal;
+    }
+
+    /**
+     * Compute the module speeds and directions for the specified {@code  forward}, {@code strafe}, and
+     * {@code rotation} chassis relative components. If any module speed is greater than 1.0, all module
+     * speeds, and the chassis forward and strafe, are scaled so the fastest module runs at 1.0.
+     *
+     * @param forward  Drive forward. From -1 (full backwards) to 1 (full forwards.
+     * @param strafe   Strafe right. From -1 (full left)  to 1 (full right).
+     * @param rotation Clockwise rotation. From -1 (full counter-clockwise) to 1 (full clockwise).
+     */
+    public void solve(double forward, double strafe, double rotation) {
+        // calculate a, b, c and d variables
+        double a = strafe - (rotation * m_lengthOverDiagonal);
+        double b = strafe + (rotation * m_lengthOverDiagonal);
+        double c = forward - (rotation * m_widthOverDiagonal);
+        double d = forward + (rotation * m_widthOverDiagonal);
+
+        // calculate wheel speeds
+        double rfSpeed = Math.sqrt((b * b) + (c * c));
+        double lfSpeed = Math.sqrt((b * b) + (d * d));
+        double lrSpeed = Math.sqrt((a * a) + (d * d));
+        double rrSpeed = Math.sqrt((a * a) + (c * c));
+
+        // normalize speeds
+        double max = Math.max(Math.max(rfSpeed, lfSpeed), Math.max(lrSpeed, rrSpeed));
+        if (max > 1.0) {
+            rfSpeed /= max;
+            lfSpeed /= max;
+            lrSpeed /= max;
+            rrSpeed /= max;
+            forward /= max;
+            strafe /= max;
+        }
+
+        // if speed is small or 0, (i.e. essentially stopped), use the last angle
+        if (rfSpeed > SMALL) {m_directions[RF] = Math.atan2(b, c);}
+        if (lfSpeed > SMALL) {m_directions[LF] = Math.atan2(b, d);}
+        if (lrSpeed > SMALL) {m_directions[LR] = Math.atan2(a, d);}
+        if (rrSpeed > SMALL) {m_directions[RR] = Math.atan2(a, c);}
+
+        m_speeds[RF] = rfSpeed;
+        m_speeds[LF] = lfSpeed;
+        m_speeds[LR] = lrSpeed;
+        m_speeds[RR] = rrSpeed;
+        m_forward = forward;
+        m_strafe = strafe;
+    }
+
+    /**
+     * Get the normalized speed of a module from the last {@link #solve(double, double, double)}.
+     *
+     * @param module (int) The module index, one of {@link #RF}, {@link #LF}, {@link #LR}, or {@link #RR}.
+     * @return The module speed from 0.0 to 1.0.
+     */
+    public double getSpeed(int module) {
+        return m_speeds[module];
+    }
+
+    /**
+     * Get the direction of a module from the last {@link #solve(double, double, double)}, or the last
+     * {@link #setDirection(int, double)}.
+     *
+     * @param module (int) The module index, one of {@link #RF}, {@link #LF}, {@link #LR}, or {@link #RR}.
+     * @return The module direction in radians from -pi to pi.
+     */
+    public double getDirection(int module) {
+        return m_directions[module];
+    }
+
+    /**
+     * Set the direction of a module. This is used when something other than chassis motion (like rotating
+     * to a heading) sets the module directions, so the next solve with a stopped module keeps this direction.
+     *
+     * @param module  (int) The module index, one of {@link #RF}, {@link #LF}, {@link #LR}, or {@link #RR}.
+     * @param radians (double) The module direction in radians from -pi to pi.
+     */
+    public void setDirection(int module, double radians) {
+        m_directions[module] = radians;
+    }
+
+    /**
+     * @return The chassis forward component from the last solve, scaled if the module speeds were normalized.
+     */
+    public double getForward() {
+        return m_forward;
+    }
+
+    /**
+     * @return The chassis strafe component from the last solve, scaled if the module speeds were normalized.
+     */
+    public double getStrafe() {
+        return m_strafe;
+    }
+}
@@ -0,0 +1,228 @@
+package frc.robot.subsystems;
+
+/**
+ * Swerve drive odometry from the measured module motion. Each update, the change in each module drive
+ * distance and the module direction (read from the module encoders) are solved through the swerve forward
+ * kinematics into a chassis forward, strafe, and rotation change, which is then moved to field coordinates
+ * using the average of the last and current robot heading. Because this uses what the wheels actually did,
+ * rather than what they were commanded to do, the pose does not drift when wheels lag their setpoint,
+ * saturate, or are pushed.
+ * <p>
+ * All math is done on primitives in preallocated fields; an update allocates nothing. Module indices are
+ * the {@link SwerveKinematics} indices. Directions are in radians where 0.0 is towards the front of the
+ * robot, and positive is clockwise. Field heading conventions are the same as {@link DriveSubsystem}.
+ */
+public class SwerveOdometry {
+
+    // module positions relative to the center of the robot: strafe (right is positive) and forward
+    private final double[] m_moduleStrafe = new double[SwerveKinematics.MODULE_COUNT];
+    private final double[] m_moduleForward = new double[SwerveKinematics.MODULE_COUNT];
+    private final double m_moduleRadiusSquaredSum;
+
+    // the module readings for this update, and the drive distances at the last update
+    private final double[] m_distance = new double[SwerveKinematics.MODULE_COUNT];
+    private final double[] m_direction = new double[SwerveKinematics.MODULE_COUNT];
+    private final double[] m_lastDistance = new double[SwerveKinematics.MODULE_COUNT];
+
+    // the pose
+    private double m_fieldX = 0.0;
+    private double m_fieldY = 0.0;
+    private double m_fieldHeading = 0.0;
+    private double m_lastTime = 0.0;
+
+    // the measured chassis motion in the last update
+    private double m_forwardVelocity = 0.0;
+    private double m_strafeVelocity = 0.0;
+    private double m_rotationVelocity = 0.0;
+    private double m_deltaForward = 0.0;
+    private double m_deltaStrafe = 0.0;
+    private double m_deltaRotation = 0.0;
+
+    /**
+     * Instantiate the odometry for a drive with the specified distances between the centers of the wheels.
+     *
+     * @param length (double) The front to rear distance between wheel centers, in meters.
+     * @param width  (double) The left to right distance between wheel centers, in meters.
+     */
+    public SwerveOdometry(double length, double width) {
+        double halfLength = length * 0.5;
+        double halfWidth = width * 0.5;
+        setModulePosition(SwerveKinematics.RF, halfWidth, halfLength);
+        setModulePosition(SwerveKinematics.LF, -halfWidth, halfLength);
+        setModulePosition(SwerveKinematics.LR, -halfWidth, -halfLength);
+        setModulePosition(SwerveKinematics.RR, halfWidth, -halfLength);
+        m_moduleRadiusSquaredSum = SwerveKinematics.MODULE_COUNT * ((halfLength * halfLength) +
+                (halfWidth * halfWidth));
+    }
+
+    private void setModulePosition(int module, double strafe, double forward) {
+        m_moduleStrafe[module] = strafe;
+        m_moduleForward[module] = forward;
+    }
+
+    /**
+     * Set the module reading for the next {@link #update(double, double)} or
+     * {@link #reset(double, double, double, double)}.
+     *
+     * @param module           (int) The module index, one of {@link SwerveKinematics#RF}, {@link SwerveKinematics#LF},
+     *                         {@link SwerveKinematics#LR}, or {@link SwerveKinematics#RR}.
+     * @param distance         (double) The total distance the module drive has moved, in meters.
+     * @param directionRadians (double) The direction of the front of the module wheel, in radians.
+     */
+    public void setModule(int module, double distance, double directionRadians) {
+        m_distance[module] = distance;
+        m_direction[module] = directionRadians;
+    }
+
+    /**
+     * Reset the pose. The module readings last set with {@link #setModule(int, double, double)} become the
+     * reference for the next update.
+     *
+     * @param fieldX         (double) The X location of the robot on the field.
+     * @param fieldY         (double) The Y location of the robot on the field.
+     * @param headingRadians (double) The heading of the robot on the field.
+     * @param time           (double) A monotonic timestamp, in seconds.
+     */
+    public void reset(double fieldX, double fieldY, double headingRadians, double time) {
+        m_fieldX = fieldX;
+        m_fieldY = fieldY;
+        m_fieldHeading = headingRadians;
+        m_lastTime = time;
+        System.arraycopy(m_distance, 0, m_lastDistance, 0, SwerveKinematics.MODULE_COUNT);
+        m_forwardVelocity = 0.0;
+        m_strafeVelocity = 0.0;
+        m_rotationVelocity = 0.0;
+        m_deltaForward = 0.0;
+        m_deltaStrafe = 0.0;
+        m_deltaRotation = 0.0;
+    }
+
+    /**
+     * Update the pose from the module readings last set with {@link #setModule(int, double, double)}.
+     *
+     * @param headingRadians (double) The current heading of the robot on the field.
+     * @param time           (double) A monotonic timestamp, in seconds.
+     */
+    public void update(double headingRadians, double time) {
+        updateDeltas();
+        updatePose(headingRadians, time);
+    }
+
+    /**
+     * The first half of {@link #update(double, double)} - compute the chassis motion since the last update from
+     * the module readings last set with {@link #setModule(int, double, double)}. This is separate so the
+     * chassis rotation from the wheels ({@link #getDeltaRotation()}) is available to the heading computation
+     * before the pose is moved with {@link #updatePose(double, double)}.
+     */
+    public void updateDeltas() {
+        // the forward kinematics - chassis translation is the average of the module translations (the modules
+        // are symmetric about the center), and rotation is the least squares fit of the module motion
+        // perpendicular to the module radius.
+        double sumForward = 0.0;
+        double sumStrafe = 0.0;
+        double sumRotation = 0.0;
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            double delta = m_distance[module] - m_lastDistance[module];
+            double forward = delta * Math.cos(m_direction[module]);
+            double strafe = delta * Math.sin(m_direction[module]);
+            sumForward += forward;
+            sumStrafe += strafe;
+            sumRotation += (strafe * m_moduleForward[module]) - (forward * m_moduleStrafe[module]);
+            m_lastDistance[module] = m_distance[module];
+        }
+        m_deltaForward = sumForward / SwerveKinematics.MODULE_COUNT;
+        m_deltaStrafe = sumStrafe / SwerveKinematics.MODULE_COUNT;
+        m_deltaRotation = sumRotation / m_moduleRadiusSquaredSum;
+    }
+
+    /**
+     * The second half of {@link #update(double, double)} - move the pose by the chassis motion computed in
+     * the last {@link #updateDeltas()}.
+     *
+     * @param headingRadians (double) The current heading of the robot on the field.
+     * @param time           (double) A monotonic timestamp, in seconds.
+     */
+    public void updatePose(double headingRadians, double time) {
+        // assume the average of the last heading and current heading approximates the path of the robot
+        // during this interval, and move the chassis motion to the field.
+        double aveHeading = (m_fieldHeading + headingRadians) * 0.5;
+        double sinHeading = Math.sin(aveHeading);
+        double cosHeading = Math.cos(aveHeading);
+        m_fieldX += (m_deltaForward * sinHeading) + (m_deltaStrafe * cosHeading);
+        m_fieldY += (m_deltaForward * cosHeading) - (m_deltaStrafe * sinHeading);
+        m_fieldHeading = headingRadians;
+
+        double deltaTime = time - m_lastTime;
+        if (deltaTime > 0.0) {
+            m_forwardVelocity = m_deltaForward / deltaTime;
+            m_strafeVelocity = m_deltaStrafe / deltaTime;
+            m_rotationVelocity = m_deltaRotation / deltaTime;
+        }
+        m_lastTime = time;
+    }
+
+    public double getFieldX() {
+        return m_fieldX;
+    }
+
+    public double getFieldY() {
+        return m_fieldY;
+    }
+
+    /**
+     * @return The field heading in radians, as set in the last update.
+     */
+    public double getFieldHeading() {
+        return m_fieldHeading;
+    }
+
+    /**
+     * @return The timestamp of the last update or reset, in seconds.
+     */
+    public double getTime() {
+        return m_lastTime;
+    }
+
+    /**
+     * @return The measured chassis forward velocity in the last update, in meters/sec.
+     */
+    public double getForwardVelocity() {
+        return m_forwardVelocity;
+    }
+
+    /**
+     * @return The measured chassis strafe velocity in the last update, in meters/sec.
+     */
+    public double getStrafeVelocity() {
+        return m_strafeVelocity;
+    }
+
+    /**
+     * @return The chassis clockwise rotation velocity measured by the module encoders in the last update,
+     * in radians/sec.
+     */
+    public double getRotationVelocity() {
+        return m_rotationVelocity;
+    }
+
+    /**
+     * @return The chassis forward motion in the last update, in meters.
+     */
+    public double getDeltaForward() {
+        return m_deltaForward;
+    }
+
+    /**
+     * @return The chassis strafe motion in the last update, in meters.
+     */
+    public double getDeltaStrafe() {
+        return m_deltaStrafe;
+    }
+
+    /**
+     * @return The chassis clockwise rotation measured by the module encoders in the last update, in radians.
+     */
+    public double getDeltaRotation() {
+        return m_deltaRotation;
+    }
+}
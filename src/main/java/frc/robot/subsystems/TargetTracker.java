@@ -0,0 +1,160 @@
+package frc.robot.subsystems;
+
+/**
+ * A tracking filter over the limelight target {@code tx} (bearing) and {@code ty} (which is the range, see
+ * {@link LimelightSubsystem#distanceToTarget()}). The raw values jitter by a few tenths of a degree from frame to
+ * frame, and aiming straight from them makes the heading control and shooter speeds hunt. Each is tracked with
+ * an alpha-beta filter - a fixed gain Kalman filter for a value and its rate - updated with every frame at the
+ * time the frame was captured.
+ * <p>
+ * A measurement further from the prediction than the gate is rejected as an outlier (a reflection, or a partial
+ * target at the edge of the image). If {@link #MAX_OUTLIERS} measurements in a row are rejected, the target
+ * really has moved (or it is a different target) and the filter restarts from the next measurement. The filter
+ * also restarts if there has not been a measurement for {@link #RESET_TIME}, and the track is not used once it is
+ * that old, see {@link #isTracking(double)}.
+ * <p>
+ * Measurements that are not newer than the last are skipped. The time between measurements is at least
+ * {@link #MIN_DT} - frames whose capture times are bunched up by latency jitter would otherwise divide the rate
+ * update by almost nothing.
+ */
+public class TargetTracker {
+
+    /** The weight of the measurement in the value update. */
+    private static final double ALPHA = 0.5;
+    /** The weight of the measurement in the rate update. */
+    private static final double BETA = 0.1;
+    /** The largest {@code tx} innovation that is not an outlier, in degrees. */
+    private static final double TX_GATE = 4.0;
+    /** The largest {@code ty} innovation that is not an outlier, in degrees. */
+    private static final double TY_GATE = 2.0;
+    /** The number of outliers in a row after which the filter restarts. */
+    private static final int MAX_OUTLIERS = 3;
+    /** The time without a measurement after which the filter restarts, in seconds. */
+    static final double RESET_TIME = 0.25;
+    /** The smallest time between measurements, half the frame period at 90 frames/sec, in seconds. */
+    private static final double MIN_DT = 0.5 / 90.0;
+
+    private boolean m_tracking = false;
+    private double m_time = 0.0;
+    private double m_tx = 0.0;
+    private double m_txRate = 0.0;
+    private double m_ty = 0.0;
+    private double m_tyRate = 0.0;
+    private int m_outliers = 0;
+    private int m_rejectedCount = 0;
+
+    /**
+     * Update the filter with a measurement of the target.
+     *
+     * @param tx          (double) The measured {@code tx}, in degrees.
+     * @param ty          (double) The measured {@code ty}, in degrees.
+     * @param captureTime (double) The FPGA timestamp the frame was captured, in seconds.
+     * @return {@code true} if the measurement was used, {@code false} if it was rejected as an outlier or is
+     * not newer than the last measurement.
+     */
+    public boolean update(double tx, double ty, double captureTime) {
+        double dt = captureTime - m_time;
+        if (m_tracking && (dt <= 0.0)) {
+            return false;
+        }
+        if (!m_tracking || (dt > RESET_TIME)) {
+            restart(tx, ty, captureTime);
+            return true;
+        }
+        dt = Math.max(dt, MIN_DT);
+        double predictedTx = m_tx + (m_txRate * dt);
+        double predictedTy = m_ty + (m_tyRate * dt);
+        double txInnovation = tx - predictedTx;
+        double tyInnovation = ty - predictedTy;
+        if ((Math.abs(txInnovation) > TX_GATE) || (Math.abs(tyInnovation) > TY_GATE)) {
+            m_rejectedCount++;
+            if (++m_outliers >= MAX_OUTLIERS) {
+                m_tracking = false;
+            }
+            return false;
+        }
+        m_outliers = 0;
+        m_tx = predictedTx + (ALPHA * txInnovation);
+        m_txRate += (BETA / dt) * txInnovation;
+        m_ty = predictedTy + (ALPHA * tyInnovation);
+        m_tyRate += (BETA / dt) * tyInnovation;
+        m_time = captureTime;
+        return true;
+    }
+
+    /**
+     * Stop tracking, the target is not visible.
+     */
+    public void lost() {
+        m_tracking = false;
+    }
+
+    private void restart(double tx, double ty, double captureTime) {
+        m_tracking = true;
+        m_time = captureTime;
+        m_tx = tx;
+        m_txRate = 0.0;
+        m_ty = ty;
+        m_tyRate = 0.0;
+        m_outliers = 0;
+    }
+
+    /**
+     * @return {@code true} if a target is being tracked, {@code false} if the filter is waiting for a
+     * measurement to start from. This does not check the age of the track, see {@link #isTracking(double)}.
+     */
+    public boolean isTracking() {
+        return m_tracking;
+    }
+
+    /**
+     * @param time (double) The FPGA timestamp now, in seconds.
+     * @return {@code true} if a target is being tracked and the last measurement is not older than
+     * {@link #RESET_TIME}, {@code false} if the track should not be used.
+     */
+    public boolean isTracking(double time) {
+        return m_tracking && ((time - m_time) <= RESET_TIME);
+    }
+
+    /**
+     * @return The FPGA timestamp of the last measurement used, in seconds.
+     */
+    public double getTime() {
+        return m_time;
+    }
+
+    /**
+     * @return The filtered {@code tx} at the last measurement, in degrees.
+     */
+    public double getTx() {
+        return m_tx;
+    }
+
+    /**
+     * @return The filtered rate of change of {@code tx}, in degrees/sec.
+     */
+    public double getTxRate() {
+        return m_txRate;
+    }
+
+    /**
+     * @return The filtered {@code ty} at the last measurement, in degrees.
+     */
+    public double getTy() {
+        return m_ty;
+    }
+
+    /**
+     * @return The filtered rate of change of {@code ty}, in degrees/sec.
+     */
+    public double getTyRate() {
+        return m_tyRate;
+    }
+
+    /**
+     * @return The number of measurements rejected as outliers.
+     */
+    public int getRejectedCount() {
+        return m_rejectedCount;
+    }
+}
@@ -0,0 +1,66 @@
+package frc.robot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link GyroHealthMonitor} - that a stale or jumping NavX is detected, and that it must be
+ * healthy for a while before it is trusted again.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestGyroHealthMonitor {
+
+    private static final double PERIOD = 0.005;
+
+    @Test
+    @DisplayName("Test healthy")
+    void test_healthy() {
+        GyroHealthMonitor monitor = new GyroHealthMonitor();
+        for (int step = 0; step < 400; step++) {
+            assertTrue(monitor.update(step * PERIOD, step, true, 0.01, 0.012));
+        }
+        assertEquals(200.0, monitor.getUpdateRate(), 0.001);
+        assertEquals(0, monitor.getFallbackCount());
+    }
+
+    @Test
+    @DisplayName("Test stale and recovery")
+    void test_stale() {
+        GyroHealthMonitor monitor = new GyroHealthMonitor();
+        int step = 0;
+        for (; step < 100; step++) {
+            assertTrue(monitor.update(step * PERIOD, step, true, 0.0, 0.0));
+        }
+        // the update count stops - healthy until it has been stale for 0.1 sec
+        for (; step < 200; step++) {
+            monitor.update(step * PERIOD, 99, true, 0.0, 0.0);
+        }
+        assertFalse(monitor.isHealthy());
+        assertEquals(0.5, monitor.getSampleAge(), 0.000001);
+        assertEquals(1, monitor.getStaleCount());
+        // updates again, not trusted until healthy for 0.5 sec
+        for (int i = 0; i < 100; i++, step++) {
+            assertFalse(monitor.update(step * PERIOD, step, true, 0.0, 0.0));
+        }
+        assertTrue(monitor.update(step * PERIOD, step, true, 0.0, 0.0));
+        assertEquals(1, monitor.getFallbackCount());
+    }
+
+    @Test
+    @DisplayName("Test jump and disconnect")
+    void test_jump() {
+        GyroHealthMonitor monitor = new GyroHealthMonitor();
+        assertTrue(monitor.update(0.0, 0, true, 0.0, 0.0));
+        // the NavX reset and reported a half turn the wheels did not see
+        assertFalse(monitor.update(PERIOD, 1, true, Math.PI, 0.01));
+        assertEquals(1, monitor.getJumpCount());
+        assertFalse(monitor.update(2 * PERIOD, 2, true, 0.01, 0.01));
+        assertFalse(monitor.update(3 * PERIOD, 3, false, 0.01, 0.01));
+        assertEquals(1, monitor.getStaleCount());
+        assertEquals(1, monitor.getFallbackCount());
+    }
+}
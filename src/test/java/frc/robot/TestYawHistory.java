@@ -0,0 +1,66 @@
+package frc.robot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link YawHistory} - unwrapping through the NavX +-180 degree discontinuity, the yaw rate, and
+ * interpolation between samples.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestYawHistory {
+
+    private static final double PERIOD = 0.005;
+
+    /**
+     * Add samples for a robot spinning at a constant rate, starting at yaw 0, reported like the NavX in the
+     * range -180 to +180 degrees.
+     */
+    private void spin(YawHistory history, int count, double degreesPerSample) {
+        for (int i = 0; i < count; i++) {
+            double raw = Math.IEEEremainder(i * degreesPerSample, 360.0);
+            history.add(raw, i * PERIOD, 10.0 + (i * PERIOD));
+        }
+    }
+
+    @Test
+    @DisplayName("Test unwrap clockwise")
+    void test_unwrap_clockwise() {
+        YawHistory history = new YawHistory(64);
+        // 3 full turns clockwise
+        spin(history, 1081, 1.0);
+        assertEquals(Math.toRadians(1080.0), history.getNewestYaw(), 0.000001);
+        assertEquals(Math.toRadians(1.0) / PERIOD, history.getNewestRate(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test unwrap counter-clockwise")
+    void test_unwrap_counter_clockwise() {
+        YawHistory history = new YawHistory(64);
+        // 2 and a half turns counter-clockwise, with big steps that land right on the discontinuity
+        spin(history, 101, -9.0);
+        assertEquals(Math.toRadians(-900.0), history.getNewestYaw(), 0.000001);
+        assertEquals(Math.toRadians(-9.0) / PERIOD, history.getNewestRate(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test interpolation")
+    void test_interpolation() {
+        YawHistory history = new YawHistory(100);
+        assertEquals(128, history.getCapacity());
+        assertTrue(Double.isNaN(history.getYawAt(10.0)));
+        spin(history, 400, 2.0);
+        assertEquals(128, history.size());
+        double oldest = 10.0 + (272 * PERIOD);
+        assertTrue(Double.isNaN(history.getYawAt(oldest - 0.001)));
+        for (double time = oldest; time < 10.0 + (399 * PERIOD); time += 0.0013) {
+            assertEquals(Math.toRadians(2.0 * (time - 10.0) / PERIOD), history.getYawAt(time), 0.000001);
+        }
+        // newer than the newest is the newest
+        assertEquals(Math.toRadians(798.0), history.getYawAt(100.0), 0.000001);
+    }
+}
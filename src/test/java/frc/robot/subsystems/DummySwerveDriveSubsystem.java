@@ -40,10 +40,25 @@ public class DummySwerveDriveSubsystem extends SubsystemBase implements ISwerveD
         //       such as SpeedControllers, Encoders, DigitalInputs, etc.
     }
 
+    private double m_fieldX = 0.0;
+    private double m_fieldY = 0.0;
+
     @Override
     public void setFieldPosition(double fieldX, double fieldY, AngleD heading) {
         System.out.printf("setFieldPosition:                      %10.3f %10.3f %10.3f%n",
-                fieldX, fieldY, heading);
+                fieldX, fieldY, heading.getRadians());
+        m_fieldX = fieldX;
+        m_fieldY = fieldY;
+    }
+
+    @Override
+    public double getFieldX() {
+        return m_fieldX;
+    }
+
+    @Override
+    public double getFieldY() {
+        return m_fieldY;
     }
 
     @Override
@@ -58,6 +73,11 @@ public class DummySwerveDriveSubsystem extends SubsystemBase implements ISwerveD
                 forward, strafe, rotation);
     }
 
+    @Override
+    public boolean isAligned() {
+        return true;
+    }
+
     @Override
     public void swerveDrive(AngleConstantD chassisDirection, double speed, double rotation) {
         System.out.printf("swerveDrive:  %d %10.3f %10.3f %10.3f%n", System.currentTimeMillis(),
@@ -0,0 +1,75 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link FlywheelHistory} - the newest samples are copied oldest first, as many as fit, and the
+ * oldest samples are overwritten when the history is full.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestFlywheelHistory {
+
+    private static final double PERIOD = 0.005;
+
+    /**
+     * Add samples numbered from {@code first}, the values are the sample number so they can be checked.
+     */
+    private void addSamples(FlywheelHistory history, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            history.add(i * PERIOD, -i, i, -2 * i, 2 * i);
+        }
+    }
+
+    private void assertSamples(int first, int count, double[] time, double[] frontVelocity,
+                               double[] frontSetpoint, double[] rearVelocity, double[] rearSetpoint) {
+        for (int i = 0; i < count; i++) {
+            int sample = first + i;
+            assertEquals(sample * PERIOD, time[i]);
+            assertEquals(-sample, frontVelocity[i]);
+            assertEquals(sample, frontSetpoint[i]);
+            assertEquals(-2 * sample, rearVelocity[i]);
+            assertEquals(2 * sample, rearSetpoint[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Test copy")
+    void test_copy() {
+        FlywheelHistory history = new FlywheelHistory(10);
+        assertEquals(16, history.getCapacity());
+        double[] time = new double[16];
+        double[] frontVelocity = new double[16];
+        double[] frontSetpoint = new double[16];
+        double[] rearVelocity = new double[16];
+        double[] rearSetpoint = new double[16];
+        assertEquals(0, history.copy(time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint));
+        addSamples(history, 0, 5);
+        assertEquals(5, history.size());
+        assertEquals(5, history.copy(time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint));
+        assertSamples(0, 5, time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint);
+        // only as many as fit in the shortest array, the newest
+        double[] shortTime = new double[3];
+        assertEquals(3, history.copy(shortTime, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint));
+        assertSamples(2, 3, shortTime, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint);
+    }
+
+    @Test
+    @DisplayName("Test wrap")
+    void test_wrap() {
+        FlywheelHistory history = new FlywheelHistory(8);
+        double[] time = new double[8];
+        double[] frontVelocity = new double[8];
+        double[] frontSetpoint = new double[8];
+        double[] rearVelocity = new double[8];
+        double[] rearSetpoint = new double[8];
+        addSamples(history, 0, 21);
+        assertEquals(8, history.size());
+        assertEquals(8, history.copy(time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint));
+        assertSamples(13, 8, time, frontVelocity, frontSetpoint, rearVelocity, rearSetpoint);
+    }
+}
@@ -0,0 +1,83 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link FlywheelModel} fit - the settled speeds of a simulated voltage step sweep of a flywheel
+ * (with inertia) are fitted back to the model it was simulated with, and samples that cannot determine a model
+ * are rejected.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestFlywheelModel {
+
+    private static final double KS = 0.6;
+    private static final double KV = 0.00055;
+    // the flywheel inertia, in volts per unit of velocity per second, the model does not have it
+    private static final double KA = 0.00012;
+
+    /**
+     * Simulate a voltage step sweep, sampled every 20ms, keeping the samples after 1 second into each step as
+     * the characterization does.
+     */
+    private int simulate(double direction, double noise, double[] voltage, double[] velocity) {
+        Random random = new Random(4142);
+        double dt = 0.02;
+        double v = 0.0;
+        int n = 0;
+        for (int step = 1; step <= 5; step++) {
+            double applied = direction * 2.0 * step;
+            for (int i = 0; i < 100; i++) {
+                double a = (applied - (KS * Math.signum(v == 0.0 ? applied : v)) - (KV * v)) / KA;
+                if (i >= 50) {
+                    voltage[n] = applied;
+                    velocity[n] = v + (noise * random.nextGaussian());
+                    n++;
+                }
+                v += a * dt;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    @DisplayName("Test fit")
+    void test_fit() {
+        double[] voltage = new double[400];
+        double[] velocity = new double[400];
+        for (double direction : new double[] {1.0, -1.0}) {
+            int n = simulate(direction, 0.0, voltage, velocity);
+            FlywheelModel model = FlywheelModel.fit(voltage, velocity, n);
+            assertEquals(KS, model.getKS(), 0.05);
+            assertEquals(KV, model.getKV(), KV * 0.02);
+            assertEquals(direction * 9.0, model.getVoltage(direction * (9.0 - KS) / KV), 0.1);
+        }
+    }
+
+    @Test
+    @DisplayName("Test fit with noise")
+    void test_fit_noise() {
+        double[] voltage = new double[400];
+        double[] velocity = new double[400];
+        int n = simulate(1.0, 20.0, voltage, velocity);
+        FlywheelModel model = FlywheelModel.fit(voltage, velocity, n);
+        assertEquals(KV, model.getKV(), KV * 0.05);
+        assertEquals(KS, model.getKS(), 0.2);
+    }
+
+    @Test
+    @DisplayName("Test underdetermined")
+    void test_underdetermined() {
+        // all samples at one speed cannot separate kS from kV
+        double[] voltage = {6.0, 6.0, 6.0, 6.0};
+        double[] velocity = {10000.0, 10000.0, 10000.0, 10000.0};
+        assertThrows(IllegalArgumentException.class, () -> FlywheelModel.fit(voltage, velocity, 4));
+        assertThrows(IllegalArgumentException.class, () -> FlywheelModel.fit(voltage, velocity, 1));
+    }
+}
@@ -0,0 +1,47 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Histogram} - binning at the bin edges, values out of the range are counted in the end
+ * bins, and the mean.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestHistogram {
+
+    @Test
+    @DisplayName("Test bins")
+    void test_bins() {
+        Histogram histogram = new Histogram(0.0, 1.0, 4);
+        assertEquals(4, histogram.getBinCount());
+        assertEquals(0.5, histogram.getBinStart(2));
+        assertEquals(0, histogram.getCount());
+        assertTrue(Double.isNaN(histogram.getMean()));
+        histogram.add(0.0);
+        histogram.add(0.24);
+        histogram.add(0.25);
+        histogram.add(0.99);
+        histogram.add(Double.NaN);
+        assertArrayEquals(new double[] {2.0, 1.0, 0.0, 1.0}, histogram.getCounts());
+        assertEquals(4, histogram.getCount());
+        assertEquals(1.48 / 4.0, histogram.getMean(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test out of range")
+    void test_out_of_range() {
+        Histogram histogram = new Histogram(1.0, 2.0, 2);
+        histogram.add(-5.0);
+        histogram.add(2.0);
+        histogram.add(7.0);
+        assertArrayEquals(new double[] {1.0, 2.0}, histogram.getCounts());
+        assertEquals(4.0 / 3.0, histogram.getMean(), 0.000001);
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(0.0, 1.0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(1.0, 1.0, 4));
+    }
+}
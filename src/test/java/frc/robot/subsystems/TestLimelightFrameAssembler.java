@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link LimelightFrameAssembler} - a frame is queued when its {@code tl} arrives, so a partial
+ * update is never queued as a frame, and a frame with the same {@code tl} as the last is queued once it has
+ * settled.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestLimelightFrameAssembler {
+
+    @Test
+    @DisplayName("Test partial update")
+    void test_partial_update() {
+        LimelightFrameQueue queue = new LimelightFrameQueue(4);
+        LimelightFrameAssembler assembler = new LimelightFrameAssembler(queue, 11.0);
+        LimelightFrameQueue.Frame frame = new LimelightFrameQueue.Frame();
+
+        // a whole frame
+        assembler.setTv(1.0, 9.999);
+        assembler.setTx(2.0, 9.999);
+        assembler.setTy(-3.0, 9.999);
+        assertTrue(assembler.frameComplete(20.0, 10.0));
+        assertTrue(queue.poll(frame));
+        assertEquals(1.0, frame.getTv());
+        assertEquals(2.0, frame.getTx());
+        assertEquals(-3.0, frame.getTy());
+        assertEquals(20.0, frame.getTl());
+        assertEquals(10.0 - 0.031, frame.getCaptureTime(), 1.0e-9);
+
+        // only tx of the next frame has arrived, nothing is queued
+        assembler.setTx(4.0, 10.010);
+        assertFalse(queue.poll(frame));
+
+        // its tl arrives, the frame has the new tx and the previous values of the entries that did not change
+        assertTrue(assembler.frameComplete(25.0, 10.011));
+        assertTrue(queue.poll(frame));
+        assertEquals(1.0, frame.getTv());
+        assertEquals(4.0, frame.getTx());
+        assertEquals(-3.0, frame.getTy());
+        assertEquals(25.0, frame.getTl());
+        assertEquals(10.011 - 0.036, frame.getCaptureTime(), 1.0e-9);
+        assertFalse(queue.poll(frame));
+    }
+
+    @Test
+    @DisplayName("Test repeated tl")
+    void test_repeated_tl() {
+        LimelightFrameQueue queue = new LimelightFrameQueue(4);
+        LimelightFrameAssembler assembler = new LimelightFrameAssembler(queue, 11.0);
+        LimelightFrameQueue.Frame frame = new LimelightFrameQueue.Frame();
+        assembler.setTv(1.0, 9.999);
+        assembler.setTx(2.0, 9.999);
+        assembler.setTy(-3.0, 9.999);
+        assertTrue(assembler.frameComplete(20.0, 10.0));
+        assertTrue(queue.poll(frame));
+        // nothing changed, nothing is queued
+        assertFalse(assembler.flush(10.1));
+
+        // the target is lost, and the next frame has the same tl so there is no tl notification
+        assembler.setTv(0.0, 10.011);
+        assembler.setTx(0.0, 10.011);
+        // not settled, the rest of the frame may still be arriving
+        assertFalse(assembler.flush(10.012));
+        assertFalse(queue.poll(frame));
+        assertTrue(assembler.flush(10.02));
+        assertTrue(queue.poll(frame));
+        assertEquals(0.0, frame.getTv());
+        assertEquals(0.0, frame.getTx());
+        assertEquals(20.0, frame.getTl());
+        assertEquals(10.011 - 0.031, frame.getCaptureTime(), 1.0e-9);
+        // queued once
+        assertFalse(assembler.flush(10.04));
+        assertFalse(queue.poll(frame));
+    }
+}
@@ -0,0 +1,71 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link LimelightFrameQueue} - order, dropping when full, and a producer thread racing the
+ * consumer.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestLimelightFrameQueue {
+
+    @Test
+    @DisplayName("Test order and full")
+    void test_order_and_full() {
+        LimelightFrameQueue queue = new LimelightFrameQueue(3);
+        assertEquals(4, queue.getCapacity());
+        LimelightFrameQueue.Frame frame = new LimelightFrameQueue.Frame();
+        assertFalse(queue.poll(frame));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(1.0, i, -i, 20.0, i * 0.011));
+        }
+        assertFalse(queue.offer(1.0, 4, -4, 20.0, 4 * 0.011));
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(4, queue.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.poll(frame));
+            assertEquals(i, frame.getTx());
+            assertEquals(-i, frame.getTy());
+            assertEquals(i * 0.011, frame.getCaptureTime());
+        }
+        assertFalse(queue.poll(frame));
+        assertTrue(queue.offer(0.0, 5, -5, 20.0, 5 * 0.011));
+        assertTrue(queue.poll(frame));
+        assertEquals(0.0, frame.getTv());
+        assertEquals(5, frame.getTx());
+    }
+
+    @Test
+    @DisplayName("Test producer thread")
+    void test_producer_thread() throws InterruptedException {
+        LimelightFrameQueue queue = new LimelightFrameQueue(8);
+        final int frameCount = 200000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < frameCount; i++) {
+                while (!queue.offer(1.0, i, 2.0 * i, 3.0 * i, 4.0 * i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        LimelightFrameQueue.Frame frame = new LimelightFrameQueue.Frame();
+        int expected = 0;
+        while (expected < frameCount) {
+            if (queue.poll(frame)) {
+                // every frame arrives, in order, and is never a mix of two frames
+                assertEquals(expected, frame.getTx());
+                assertEquals(2.0 * expected, frame.getTy());
+                assertEquals(3.0 * expected, frame.getTl());
+                assertEquals(4.0 * expected, frame.getCaptureTime());
+                expected++;
+            }
+        }
+        producer.join();
+        assertEquals(0, queue.size());
+    }
+}
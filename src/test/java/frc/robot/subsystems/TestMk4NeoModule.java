@@ -263,29 +263,79 @@ public class TestMk4NeoModule {
     @Test
     @DisplayName("Test backwards forwards")
     void test_forward_backward() {
-        // Go forward 2 steps
+        // Go forward 2 steps - the second step is the same setpoint, so it should not be re-sent
         InitializedMk4NeoModule dm = new InitializedMk4NeoModule();
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS, 0.0), 1.0);
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS,0.0), 1.0);
-        verify(dm.spinPID, times(2)).setReference( 0.0, CANSparkMax.ControlType.kPosition);
-        verify(dm.drivePID, times(2)).setReference(1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
+        verify(dm.spinPID, times(1)).setReference( 0.0, CANSparkMax.ControlType.kPosition);
+        verify(dm.drivePID, times(1)).setReference(1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
                 CANSparkMax.ControlType.kVelocity);
         // Go backwards (180 degrees) 2 steps - should be no spin and negative speed
         reset(dm.spinPID,dm.drivePID);
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS,Math.PI), 1.0);
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS,Math.PI), 1.0);
-        verify(dm.spinPID, times(2)).setReference( 0.0, CANSparkMax.ControlType.kPosition);
-        verify(dm.drivePID, times(2)).setReference(-1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
+        verify(dm.spinPID, never()).setReference(ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.eq(CANSparkMax.ControlType.kPosition));
+        verify(dm.drivePID, times(1)).setReference(-1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
                 CANSparkMax.ControlType.kVelocity);
         // Go forwards again steps - should be no spin and positive speed
         reset(dm.spinPID,dm.drivePID);
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS,0.0), 1.0);
         dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.RADIANS,0.0), 1.0);
-        verify(dm.spinPID, times(2)).setReference( 0.0, CANSparkMax.ControlType.kPosition);
-        verify(dm.drivePID, times(2)).setReference(1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
+        verify(dm.spinPID, never()).setReference(ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.eq(CANSparkMax.ControlType.kPosition));
+        verify(dm.drivePID, times(1)).setReference(1.0 * Mk4NeoModule.MAX_DRIVE_RPM,
                 CANSparkMax.ControlType.kVelocity);
     }
 
+    /**
+     * Setpoints that are the same as the last setpoint sent are suppressed, but re-sent after
+     * {@link SetpointCache#DEFAULT_REFRESH_CYCLES} suppressed cycles in case the controller lost them.
+     */
+    @Test
+    @DisplayName("Test redundant setpoints suppressed and refreshed")
+    void test_setpoint_refresh() {
+        InitializedMk4NeoModule dm = new InitializedMk4NeoModule();
+        for (int i = 0; i <= SetpointCache.DEFAULT_REFRESH_CYCLES; i++) {
+            dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.DEGREES, 10.0), 0.5);
+        }
+        verify(dm.drivePID, times(1)).setReference(0.5 * Mk4NeoModule.MAX_DRIVE_RPM,
+                CANSparkMax.ControlType.kVelocity);
+        dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.DEGREES, 10.0), 0.5);
+        verify(dm.drivePID, times(2)).setReference(0.5 * Mk4NeoModule.MAX_DRIVE_RPM,
+                CANSparkMax.ControlType.kVelocity);
+    }
+
+
+    /**
+     * The direction error is read from the direction encoder relative to the last direction set, and when
+     * cosine speed scaling is on the drive speed is scaled by the cosine of that error.
+     */
+    @Test
+    @DisplayName("Test direction error and cosine speed scaling")
+    void test_direction_error_scaling() {
+        InitializedMk4NeoModule dm = new InitializedMk4NeoModule();
+        dm.driveModule.setCosineSpeedScaling(true);
+        // the wheel is still at 0.0, and has been told to go to 60 degrees
+        when(dm.spinEncoder.getPosition()).thenReturn(0.0);
+        dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.DEGREES, 60.0), 1.0);
+        assertEquals(Math.toRadians(-60.0), dm.driveModule.getDirectionError(), 0.00001);
+        assertFalse(dm.driveModule.isAtDirection(0.1));
+        verify(dm.drivePID, times(1)).setReference(
+                AdditionalMatchers.eq(0.5 * Mk4NeoModule.MAX_DRIVE_RPM, 0.01),
+                ArgumentMatchers.eq(CANSparkMax.ControlType.kVelocity));
+        // the wheel has turned to 60 degrees
+        when(dm.spinEncoder.getPosition()).thenReturn(Math.toRadians(60.0) * Mk4NeoModule.RADIANS_TO_SPIN_ENCODER);
+        assertTrue(dm.driveModule.isAtDirection(0.1));
+        dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.DEGREES, 60.0), 1.0);
+        verify(dm.drivePID, times(1)).setReference(
+                AdditionalMatchers.eq(Mk4NeoModule.MAX_DRIVE_RPM, 0.01),
+                ArgumentMatchers.eq(CANSparkMax.ControlType.kVelocity));
+        // more than 90 degrees off, don't drive at all
+        when(dm.spinEncoder.getPosition()).thenReturn(Math.toRadians(-40.0) * Mk4NeoModule.RADIANS_TO_SPIN_ENCODER);
+        dm.driveModule.setDirectionAndSpeed(new AngleD(AngleUnit.DEGREES, 60.0), 1.0);
+        verify(dm.drivePID, times(1)).setReference(0.0, CANSparkMax.ControlType.kVelocity);
+    }
 
     private void verifyDirectionAndDistance(InitializedMk4NeoModule dm, double radians, double deltaTics,
                                             double actualRadians) {
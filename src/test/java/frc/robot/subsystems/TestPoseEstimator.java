@@ -0,0 +1,138 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link PoseEstimator} - that odometry alone is followed, that hub observations pull a
+ * drifting estimate back to the truth (including late observations), and that outliers are rejected.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestPoseEstimator {
+
+    private static final double PERIOD = 0.005;
+    // the hub is at the origin, and the camera looks out the back of the robot
+    private static final double CAMERA_DIRECTION = Math.PI;
+
+    private double m_trueX;
+    private double m_trueY;
+    private double m_trueHeading;
+
+    private PoseEstimator newEstimator() {
+        return new PoseEstimator(512, 0.0, 0.0, CAMERA_DIRECTION);
+    }
+
+    /**
+     * Move the true robot, and predict the estimator with odometry that over-reports the motion by
+     * {@code odometryScale}.
+     */
+    private void drive(PoseEstimator estimator, int step, double forward, double strafe, double rotation,
+                       double odometryScale) {
+        double aveHeading = m_trueHeading + (rotation * 0.5);
+        m_trueX += (forward * Math.sin(aveHeading)) + (strafe * Math.cos(aveHeading));
+        m_trueY += (forward * Math.cos(aveHeading)) - (strafe * Math.sin(aveHeading));
+        m_trueHeading += rotation;
+        estimator.predict(forward * odometryScale, strafe * odometryScale, rotation, step * PERIOD);
+    }
+
+    private double trueRange(double x, double y) {
+        return Math.sqrt((x * x) + (y * y));
+    }
+
+    private double trueBearing(double x, double y, double heading) {
+        return Math.IEEEremainder(Math.atan2(-x, -y) - heading - CAMERA_DIRECTION, 2.0 * Math.PI);
+    }
+
+    @Test
+    @DisplayName("Test odometry only")
+    void test_odometry_only() {
+        PoseEstimator estimator = newEstimator();
+        m_trueX = 1.0;
+        m_trueY = -2.0;
+        m_trueHeading = 0.5;
+        estimator.reset(m_trueX, m_trueY, m_trueHeading, 0.01, 0.0);
+        for (int step = 1; step <= 200; step++) {
+            drive(estimator, step, 0.005, 0.002, 0.001, 1.0);
+        }
+        assertEquals(m_trueX, estimator.getFieldX(), 0.000001);
+        assertEquals(m_trueY, estimator.getFieldY(), 0.000001);
+        assertEquals(m_trueHeading, estimator.getFieldHeading(), 0.000001);
+        assertTrue(estimator.getPositionStdDev() > 0.01);
+    }
+
+    @Test
+    @DisplayName("Test vision corrects drift")
+    void test_vision_corrects_drift() {
+        PoseEstimator estimator = newEstimator();
+        m_trueX = 1.5;
+        m_trueY = -1.6;
+        m_trueHeading = 2.7;
+        // start with the estimate 0.3m off
+        estimator.reset(m_trueX + 0.3, m_trueY, m_trueHeading, 0.3, 0.0);
+        for (int step = 1; step <= 600; step++) {
+            // drive away from the hub with odometry that over-reports by 5%
+            drive(estimator, step, 0.004, 0.001, 0.0, 1.05);
+            if (step % 4 == 0) {
+                assertTrue(estimator.addHubObservation(trueRange(m_trueX, m_trueY),
+                        trueBearing(m_trueX, m_trueY, m_trueHeading), step * PERIOD));
+            }
+        }
+        // odometry alone would be off by the 0.3m start error plus 5% of the 2.5m driven
+        assertEquals(m_trueX, estimator.getFieldX(), 0.1);
+        assertEquals(m_trueY, estimator.getFieldY(), 0.1);
+        assertEquals(0, estimator.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Test late observation")
+    void test_late_observation() {
+        PoseEstimator estimator = newEstimator();
+        m_trueX = 0.0;
+        m_trueY = -3.0;
+        m_trueHeading = 0.0;
+        estimator.reset(0.2, -3.0, 0.0, 0.3, 0.0);
+        // the frame is captured at step 10, then the robot drives 0.4m sideways before we see it
+        double[] captured = new double[3];
+        for (int step = 1; step <= 90; step++) {
+            drive(estimator, step, 0.0, 0.005, 0.0, 1.0);
+            if (step == 10) {
+                captured[0] = trueRange(m_trueX, m_trueY);
+                captured[1] = trueBearing(m_trueX, m_trueY, m_trueHeading);
+                captured[2] = step * PERIOD;
+            }
+        }
+        double errorBefore = Math.abs(estimator.getFieldX() - m_trueX);
+        assertTrue(estimator.addHubObservation(captured[0], captured[1], captured[2]));
+        double errorAfter = Math.abs(estimator.getFieldX() - m_trueX);
+        assertTrue(errorAfter < errorBefore * 0.5, "before " + errorBefore + " after " + errorAfter);
+        // the odometry since the observation was replayed, so the estimate is still where the robot is now
+        assertEquals(m_trueY, estimator.getFieldY(), 0.05);
+    }
+
+    @Test
+    @DisplayName("Test outlier rejection")
+    void test_outlier() {
+        PoseEstimator estimator = newEstimator();
+        m_trueX = 1.0;
+        m_trueY = -2.0;
+        m_trueHeading = 2.5;
+        estimator.reset(m_trueX, m_trueY, m_trueHeading, 0.05, 0.0);
+        drive(estimator, 1, 0.0, 0.0, 0.0, 1.0);
+        // a reflection 2m further away than the hub
+        assertFalse(estimator.addHubObservation(trueRange(m_trueX, m_trueY) + 2.0,
+                trueBearing(m_trueX, m_trueY, m_trueHeading), PERIOD));
+        assertEquals(1, estimator.getRejectedCount());
+        assertEquals(m_trueX, estimator.getFieldX(), 0.000001);
+        assertEquals(m_trueY, estimator.getFieldY(), 0.000001);
+        // too old for the history
+        assertFalse(estimator.addHubObservation(trueRange(m_trueX, m_trueY),
+                trueBearing(m_trueX, m_trueY, m_trueHeading), -1.0));
+        // the real thing
+        assertTrue(estimator.addHubObservation(trueRange(m_trueX, m_trueY),
+                trueBearing(m_trueX, m_trueY, m_trueHeading), PERIOD));
+    }
+}
@@ -0,0 +1,79 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link PoseHistory} - interpolation between poses, the range of times that can be looked up,
+ * and that the oldest poses are overwritten when the history is full.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestPoseHistory {
+
+    private static final double PERIOD = 0.005;
+
+    /**
+     * Fill the history with a robot moving and turning at a constant rate, X = t, Y = 2t, heading = 3t.
+     */
+    private void addPoses(PoseHistory history, int count) {
+        for (int i = 0; i < count; i++) {
+            double time = i * PERIOD;
+            history.add(time, 2.0 * time, 3.0 * time, 1.0, 0.5, time);
+        }
+    }
+
+    @Test
+    @DisplayName("Test interpolation")
+    void test_interpolation() {
+        PoseHistory history = new PoseHistory(100);
+        assertEquals(128, history.getCapacity());
+        addPoses(history, 100);
+        PosePublisher.Pose pose = new PosePublisher.Pose();
+        for (double time = 0.0; time < 99 * PERIOD; time += 0.0013) {
+            assertTrue(history.getPoseAt(time, pose));
+            assertEquals(time, pose.getFieldX(), 0.000001);
+            assertEquals(2.0 * time, pose.getFieldY(), 0.000001);
+            assertEquals(3.0 * time, pose.getHeading(), 0.000001);
+            assertEquals(1.0, pose.getForwardVelocity(), 0.000001);
+            assertEquals(time, pose.getTime());
+        }
+    }
+
+    @Test
+    @DisplayName("Test out of range")
+    void test_out_of_range() {
+        PoseHistory history = new PoseHistory(16);
+        PosePublisher.Pose pose = new PosePublisher.Pose();
+        assertFalse(history.getPoseAt(0.0, pose));
+        addPoses(history, 10);
+        assertFalse(history.getPoseAt(-0.001, pose));
+        // newer than the newest is the newest
+        assertTrue(history.getPoseAt(1.0, pose));
+        assertEquals(9 * PERIOD, pose.getFieldX(), 0.000001);
+        assertEquals(9 * PERIOD, pose.getTime(), 0.000001);
+        // a pose that is not newer is ignored
+        history.add(100.0, 100.0, 100.0, 0.0, 0.0, 0.0);
+        assertEquals(10, history.size());
+        history.clear();
+        assertFalse(history.getPoseAt(1.0, pose));
+    }
+
+    @Test
+    @DisplayName("Test wrap around")
+    void test_wrap_around() {
+        PoseHistory history = new PoseHistory(16);
+        addPoses(history, 40);
+        assertEquals(16, history.size());
+        PosePublisher.Pose pose = new PosePublisher.Pose();
+        // the oldest 24 poses have been overwritten
+        assertFalse(history.getPoseAt(23 * PERIOD, pose));
+        assertTrue(history.getPoseAt(24 * PERIOD, pose));
+        assertEquals(24 * PERIOD, pose.getFieldX(), 0.000001);
+        assertTrue(history.getPoseAt(31.5 * PERIOD, pose));
+        assertEquals(2.0 * 31.5 * PERIOD, pose.getFieldY(), 0.000001);
+    }
+}
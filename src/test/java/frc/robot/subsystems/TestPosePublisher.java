@@ -0,0 +1,59 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link PosePublisher} - that a reader always sees all the values of a pose from the same
+ * publish, even while the writer is publishing as fast as it can on another thread.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestPosePublisher {
+
+    @Test
+    @DisplayName("Test read after publish")
+    void test_read() {
+        PosePublisher publisher = new PosePublisher();
+        publisher.publish(1.0, 2.0, 3.0, 4.0, 5.0, 6.0);
+        PosePublisher.Pose pose = publisher.read(new PosePublisher.Pose());
+        assertEquals(1.0, pose.getFieldX());
+        assertEquals(2.0, pose.getFieldY());
+        assertEquals(3.0, pose.getHeading());
+        assertEquals(4.0, pose.getForwardVelocity());
+        assertEquals(5.0, pose.getStrafeVelocity());
+        assertEquals(6.0, pose.getTime());
+        assertEquals(1.0, publisher.getFieldX());
+        assertEquals(3.0, publisher.getHeading());
+    }
+
+    @Test
+    @DisplayName("Test consistent read while publishing")
+    void test_consistent_read() throws InterruptedException {
+        PosePublisher publisher = new PosePublisher();
+        final int publishes = 1000000;
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= publishes; i++) {
+                publisher.publish(i, 2.0 * i, 3.0 * i, 4.0 * i, 5.0 * i, i);
+            }
+        });
+        writer.start();
+        PosePublisher.Pose pose = new PosePublisher.Pose();
+        int reads = 0;
+        while (writer.isAlive() || reads == 0) {
+            publisher.read(pose);
+            double i = pose.getTime();
+            assertEquals(i, pose.getFieldX());
+            assertEquals(2.0 * i, pose.getFieldY());
+            assertEquals(3.0 * i, pose.getHeading());
+            assertEquals(4.0 * i, pose.getForwardVelocity());
+            assertEquals(5.0 * i, pose.getStrafeVelocity());
+            reads++;
+        }
+        writer.join();
+        assertEquals(publishes, publisher.read(pose).getTime());
+    }
+}
@@ -0,0 +1,130 @@
+package frc.robot.subsystems;
+
+import frc.robot.Constants.LimelightCalibrationPoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ShooterCalibrationTable} - the fitted curves go through the calibration points, are
+ * monotone between them, and are linear for linear data; the ends of the calibration range; rejection of badly
+ * ordered points; and loading a calibration file.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestShooterCalibrationTable {
+
+    private static final double TOLERANCE = 0.0001;
+
+    private static final LimelightCalibrationPoint[] POINTS = {
+            new LimelightCalibrationPoint(2.0, 0.5, -0.5, 4.0),
+            new LimelightCalibrationPoint(0.0, 0.6, -0.6, 5.0),
+            new LimelightCalibrationPoint(-4.0, 0.8, -0.6, 3.0),
+            new LimelightCalibrationPoint(-5.0, 0.85, -0.65, 3.0),
+            new LimelightCalibrationPoint(-8.0, 0.9, -0.7, 4.0)
+    };
+
+    @Test
+    @DisplayName("Test through the points")
+    void test_points() {
+        ShooterCalibrationTable table = new ShooterCalibrationTable(POINTS);
+        ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+        assertEquals(5, table.getPointCount());
+        for (LimelightCalibrationPoint point : POINTS) {
+            assertTrue(table.lookup(point.ty, speeds));
+            assertEquals(point.ty, speeds.getTy());
+            assertEquals(point.frontSpeed, speeds.getFrontSpeed(), TOLERANCE);
+            assertEquals(point.rearSpeed, speeds.getRearSpeed(), TOLERANCE);
+            assertEquals(point.xOffset, speeds.getXOffset(), TOLERANCE);
+        }
+    }
+
+    @Test
+    @DisplayName("Test monotone")
+    void test_monotone() {
+        ShooterCalibrationTable table = new ShooterCalibrationTable(POINTS);
+        ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+        // moving away from the target the front speed only increases, the rear speed only decreases, and the
+        // x offset stays flat between the 2 points with the same offset
+        double lastFront = -Double.MAX_VALUE;
+        double lastRear = Double.MAX_VALUE;
+        for (double ty = 2.0; ty >= -8.0; ty -= 0.01) {
+            assertTrue(table.lookup(ty, speeds));
+            assertTrue(speeds.getFrontSpeed() >= lastFront - 1.0e-9);
+            assertTrue(speeds.getRearSpeed() <= lastRear + 1.0e-9);
+            assertTrue((speeds.getXOffset() >= 3.0 - 1.0e-9) && (speeds.getXOffset() <= 5.0 + 1.0e-9));
+            if ((ty < -4.0) && (ty > -5.0)) {
+                assertEquals(3.0, speeds.getXOffset(), TOLERANCE);
+            }
+            lastFront = speeds.getFrontSpeed();
+            lastRear = speeds.getRearSpeed();
+        }
+    }
+
+    @Test
+    @DisplayName("Test linear data")
+    void test_linear() {
+        ShooterCalibrationTable table = new ShooterCalibrationTable(new LimelightCalibrationPoint[]{
+                new LimelightCalibrationPoint(2.0, 0.5, -0.5, 4.0),
+                new LimelightCalibrationPoint(1.0, 0.6, -0.5, 4.0),
+                new LimelightCalibrationPoint(-2.0, 0.9, -0.5, 4.0)});
+        ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+        for (double ty = 2.0; ty >= -2.0; ty -= 0.037) {
+            assertTrue(table.lookup(ty, speeds));
+            assertEquals(0.7 - (0.1 * ty), speeds.getFrontSpeed(), TOLERANCE);
+            assertEquals(-0.5, speeds.getRearSpeed(), TOLERANCE);
+        }
+    }
+
+    @Test
+    @DisplayName("Test out of range")
+    void test_out_of_range() {
+        ShooterCalibrationTable table = new ShooterCalibrationTable(POINTS);
+        ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+        assertTrue(table.isTooClose(2.01));
+        assertFalse(table.lookup(2.01, speeds));
+        assertTrue(table.isTooFar(-8.01));
+        assertFalse(table.lookup(-8.01, speeds));
+        assertFalse(table.lookup(Double.NaN, speeds));
+        assertFalse(table.isTooClose(2.0));
+        assertFalse(table.isTooFar(-8.0));
+    }
+
+    @Test
+    @DisplayName("Test bad points")
+    void test_bad_points() {
+        assertThrows(IllegalArgumentException.class, () -> new ShooterCalibrationTable(
+                new LimelightCalibrationPoint[]{new LimelightCalibrationPoint(1.0, 0.5, -0.5, 4.0)}));
+        assertThrows(IllegalArgumentException.class, () -> new ShooterCalibrationTable(
+                new LimelightCalibrationPoint[]{new LimelightCalibrationPoint(1.0, 0.5, -0.5, 4.0),
+                        new LimelightCalibrationPoint(1.0, 0.6, -0.6, 4.0)}));
+    }
+
+    @Test
+    @DisplayName("Test load")
+    void test_load() throws Exception {
+        File file = File.createTempFile("shooter_calibration", ".json");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            // out of order, and with integer values
+            writer.write("{ \"points\": [\n" +
+                    "  { \"ty\": -8.0, \"frontSpeed\": 0.9, \"rearSpeed\": -0.7, \"xOffset\": 4 },\n" +
+                    "  { \"ty\": 2.0, \"frontSpeed\": 0.5, \"rearSpeed\": -0.5, \"xOffset\": 4 },\n" +
+                    "  { \"ty\": 0, \"frontSpeed\": 0.6, \"rearSpeed\": -0.6, \"xOffset\": 5 }\n" +
+                    "] }\n");
+        }
+        ShooterCalibrationTable table = ShooterCalibrationTable.load(file.getPath());
+        ShooterCalibrationTable.Speeds speeds = new ShooterCalibrationTable.Speeds();
+        assertEquals(3, table.getPointCount());
+        assertTrue(table.lookup(0.0, speeds));
+        assertEquals(0.6, speeds.getFrontSpeed(), TOLERANCE);
+        assertEquals(5.0, speeds.getXOffset(), TOLERANCE);
+        assertThrows(IOException.class, () -> ShooterCalibrationTable.load(file.getPath() + ".missing"));
+    }
+}
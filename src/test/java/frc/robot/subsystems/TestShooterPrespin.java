@@ -0,0 +1,96 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ShooterPrespin} decision - the cargo estimate, the edge of the shooting zone, and the
+ * battery voltage limits, and the hub distance before the field position is known.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestShooterPrespin {
+
+    @Test
+    @DisplayName("Test cargo estimate")
+    void test_cargo() {
+        ShooterPrespin prespin = new ShooterPrespin();
+        // starts holding the preload
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(false, 0, 3.0, 12.5, true));
+        // 1 shot, still holding 1
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(false, 1, 3.0, 12.5, true));
+        // 2 shots, empty
+        assertEquals(ShooterPrespin.Speed.OFF, prespin.update(false, 2, 3.0, 12.5, true));
+        assertFalse(prespin.isHoldingCargo());
+        // collecting, holding until 2 more shots
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(true, 2, 3.0, 12.5, true));
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(false, 3, 3.0, 12.5, true));
+        assertTrue(prespin.isHoldingCargo());
+        // 2 more shots while a shooting command had the shooter
+        prespin.start(4);
+        assertFalse(prespin.isHoldingCargo());
+    }
+
+    @Test
+    @DisplayName("Test shooting zone")
+    void test_zone() {
+        ShooterPrespin prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT,
+                prespin.update(false, 0, ShooterPrespin.ZONE_RADIUS, 12.5, true));
+        assertEquals(ShooterPrespin.Speed.OFF,
+                prespin.update(false, 0, ShooterPrespin.ZONE_RADIUS + 0.001, 12.5, true));
+        // in the zone but the limelight cannot shoot
+        assertEquals(ShooterPrespin.Speed.IDLE,
+                prespin.update(false, 0, ShooterPrespin.ZONE_RADIUS - 0.001, 12.5, false));
+    }
+
+    @Test
+    @DisplayName("Test field position not known")
+    void test_field_position_not_known() {
+        // the pose starts at the center of the hub, that is not in the zone until the field position is set
+        ShooterPrespin prespin = new ShooterPrespin();
+        double hubDistance = ShooterPrespin.hubDistance(false, 0.0, false, 0.0);
+        assertTrue(Double.isNaN(hubDistance));
+        assertEquals(ShooterPrespin.Speed.OFF, prespin.update(false, 0, hubDistance, 12.5, false));
+        // the limelight sees the target, its range is used
+        assertEquals(3.0, ShooterPrespin.hubDistance(false, 0.0, true, 3.0));
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT,
+                prespin.update(false, 0, ShooterPrespin.hubDistance(false, 0.0, true, 3.0), 12.5, true));
+        assertEquals(ShooterPrespin.Speed.OFF,
+                prespin.update(false, 0, ShooterPrespin.hubDistance(false, 0.0, true, 6.0), 12.5, false));
+        // the field position is known, it is used whatever the limelight sees
+        assertEquals(6.0, ShooterPrespin.hubDistance(true, 6.0, true, 3.0));
+        assertEquals(0.0, ShooterPrespin.hubDistance(true, 0.0, false, 0.0));
+    }
+
+    @Test
+    @DisplayName("Test battery voltage")
+    void test_voltage() {
+        // the first reading is used as is
+        ShooterPrespin prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT,
+                prespin.update(false, 0, 3.0, ShooterPrespin.FULL_VOLTAGE, true));
+        prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.IDLE,
+                prespin.update(false, 0, 3.0, ShooterPrespin.FULL_VOLTAGE - 0.001, true));
+        prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.IDLE, prespin.update(false, 0, 3.0, ShooterPrespin.MIN_VOLTAGE, true));
+        prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.OFF,
+                prespin.update(false, 0, 3.0, ShooterPrespin.MIN_VOLTAGE - 0.001, true));
+
+        // a brief sag does not stop the pre-spin, a sustained one does
+        prespin = new ShooterPrespin();
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(false, 0, 3.0, 12.5, true));
+        assertEquals(ShooterPrespin.Speed.LIMELIGHT, prespin.update(false, 0, 3.0, 9.0, true));
+        assertEquals(12.325, prespin.getVoltage(), 0.000001);
+        ShooterPrespin.Speed speed = ShooterPrespin.Speed.LIMELIGHT;
+        for (int i = 0; (i < 200) && (speed != ShooterPrespin.Speed.OFF); i++) {
+            speed = prespin.update(false, 0, 3.0, 9.0, true);
+        }
+        assertEquals(ShooterPrespin.Speed.OFF, speed);
+    }
+}
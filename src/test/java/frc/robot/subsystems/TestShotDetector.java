@@ -0,0 +1,95 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ShotDetector} - spin up, shots and recovery and their measurements, and a dip that is not
+ * a shot.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestShotDetector {
+
+    private static final double[] SPINUP = {0.0, 0.3, 0.6, 0.85, 0.95, 0.99, 1.0};
+    private static final double[] SHOT = {1.0, 0.9, 0.82, 0.88, 0.95, 0.985, 1.0};
+
+    @Test
+    @DisplayName("Test spinup and shots")
+    void test_shots() {
+        ShotDetector detector = new ShotDetector();
+        double time = 0.0;
+        for (double fraction : SPINUP) {
+            detector.update(fraction, time += 0.02);
+            assertEquals(fraction >= 0.98, detector.isReady());
+        }
+        assertTrue(detector.isReady());
+        assertEquals(0, detector.getShotCount());
+
+        for (int shot = 1; shot <= 2; shot++) {
+            for (int i = 0; i < SHOT.length; i++) {
+                detector.update(SHOT[i], time += 0.02);
+                if (i == 1) {
+                    assertEquals(shot, detector.getShotCount());
+                    assertEquals(time, detector.getLastShotTime());
+                    assertTrue(detector.isInDip());
+                }
+            }
+            assertTrue(detector.isReady());
+            assertFalse(detector.isInDip());
+            assertEquals(shot, detector.getShotCount());
+            assertEquals(0.18, detector.getDipDepth(), 0.000001);
+            assertEquals(0.08, detector.getRecoveryTime(), 0.000001);
+        }
+        // ready 5 samples after the first, and the shots are a shot length apart
+        assertEquals(0.1, detector.getSpinupTime(), 0.000001);
+        assertEquals(SHOT.length * 0.02, detector.getShotInterval(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test not a shot")
+    void test_not_shot() {
+        ShotDetector detector = new ShotDetector();
+        // spinning up through the dip fraction is not a shot
+        for (int i = 0; i < SPINUP.length; i++) {
+            detector.update(SPINUP[i], i * 0.02);
+        }
+        assertEquals(0, detector.getShotCount());
+        // after a reset (the flywheels were stopped) the slowdown is not a shot
+        detector.reset();
+        detector.update(0.5, 1.0);
+        assertEquals(0, detector.getShotCount());
+        assertFalse(detector.isReady());
+    }
+
+    @Test
+    @DisplayName("Test setpoint change")
+    void test_setpoint_change() {
+        ShotDetector detector = new ShotDetector();
+        detector.setSetpoints(10000.0, -10000.0);
+        for (int i = 0; i < SPINUP.length; i++) {
+            detector.update(SPINUP[i], i * 0.02);
+        }
+        assertTrue(detector.isReady());
+        // a small setpoint change keeps the detection, a dip is still a shot
+        detector.setSetpoints(10200.0, -10000.0);
+        assertTrue(detector.isReady());
+        // the speeds are raised 8% between shots - the flywheels are slow for the new setpoint, but it is not a
+        // shot
+        detector.setSetpoints(10800.0, -10800.0);
+        detector.update(1.0 / 1.08, 0.2);
+        assertEquals(0, detector.getShotCount());
+        assertFalse(detector.isInDip());
+        for (double fraction : new double[] {0.95, 0.99, 1.0}) {
+            detector.update(fraction, 0.22);
+        }
+        assertTrue(detector.isReady());
+        // then a dip at the new setpoint is a shot
+        detector.setSetpoints(10800.0, -10800.0);
+        detector.update(0.85, 0.3);
+        assertEquals(1, detector.getShotCount());
+    }
+}
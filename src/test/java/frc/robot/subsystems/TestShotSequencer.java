@@ -0,0 +1,110 @@
+package frc.robot.subsystems;
+
+import frc.robot.subsystems.ShotSequencer.Condition;
+import frc.robot.subsystems.ShotSequencer.Step;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ShotSequencer} - condition and time exits, the sequence time limit, the transition record,
+ * and sequences that do not resolve.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestShotSequencer {
+
+    private static final Step[] DOUBLE_SHOT = {
+            new Step("SPINUP", 0.8, 0.0, true, Condition.READY, 0, "SHOOT_1", 500, "SHOOT_1"),
+            new Step("SHOOT_1", 0.0, 0.5, true, Condition.SHOTS_RECOVERED, 1, "JERK", 1000, "JERK"),
+            new Step("JERK", 0.65, 0.5, true, 100, "SHOOT_2"),
+            new Step("SHOOT_2", 0.0, 0.5, true, Condition.SHOTS, 2, ShotSequencer.DONE, 1000, "JERK")
+    };
+
+    @Test
+    @DisplayName("Test condition exits")
+    void test_conditions() {
+        ShotSequencer sequencer = new ShotSequencer(DOUBLE_SHOT, 4000);
+        assertTrue(sequencer.isDone());
+        sequencer.start(10.0, 7);
+        assertFalse(sequencer.isDone());
+        assertEquals("SPINUP", sequencer.getStep().getName());
+        assertEquals(0.8, sequencer.getStep().getCollectorPower());
+
+        // ready before the spinup time
+        assertFalse(sequencer.update(10.02, false, 7, false));
+        assertEquals("SPINUP", sequencer.getStep().getName());
+        assertFalse(sequencer.update(10.30, true, 7, false));
+        assertEquals("SHOOT_1", sequencer.getStep().getName());
+        assertEquals(0.5, sequencer.getStep().getFeederPower());
+
+        // the first shot, the step waits for the recovery
+        assertFalse(sequencer.update(10.40, true, 8, true));
+        assertEquals("SHOOT_1", sequencer.getStep().getName());
+        assertFalse(sequencer.update(10.50, true, 8, false));
+        assertEquals("JERK", sequencer.getStep().getName());
+
+        // the jerk is timed
+        assertFalse(sequencer.update(10.58, true, 8, false));
+        assertEquals("JERK", sequencer.getStep().getName());
+        assertFalse(sequencer.update(10.625, true, 8, false));
+        assertEquals("SHOOT_2", sequencer.getStep().getName());
+
+        // the second shot ends the sequence
+        assertTrue(sequencer.update(10.80, false, 9, true));
+        assertTrue(sequencer.isDone());
+        assertTrue(sequencer.update(10.82, false, 9, true));
+
+        assertEquals(4, sequencer.getTransitionCount());
+        String[] steps = {"SPINUP", "SHOOT_1", "JERK", "SHOOT_2"};
+        double[] times = {0.0, 0.3, 0.5, 0.625};
+        for (int i = 0; i < steps.length; i++) {
+            assertEquals(steps[i], sequencer.getTransitionStep(i).getName());
+            assertEquals(times[i], sequencer.getTransitionTime(i), 1.0e-9);
+        }
+        assertEquals(0.3, sequencer.getStepTime("SPINUP"), 1.0e-9);
+        assertEquals(0.175, sequencer.getStepTime("SHOOT_2"), 1.0e-9);
+        assertEquals(0.8, sequencer.getTotalTime(), 1.0e-9);
+        assertEquals("SPINUP 0.000 > SHOOT_1 0.300 > JERK 0.500 > SHOOT_2 0.625 > DONE 0.800 " +
+                "(SPINUP 0.300, SHOOT_1 0.200, JERK 0.125, SHOOT_2 0.175)", sequencer.toString());
+    }
+
+    @Test
+    @DisplayName("Test time exits")
+    void test_times() {
+        ShotSequencer sequencer = new ShotSequencer(DOUBLE_SHOT, 4000);
+        sequencer.start(0.0, 0);
+        // never ready, never a shot - the times advance the sequence, and a missed second shot jerks again
+        double time = 0.0;
+        while (!sequencer.update(time += 0.02, false, 0, false)) {
+            assertTrue(time < 4.0 + 1.0e-9);
+        }
+        assertEquals(4.0, time, 0.02 + 1.0e-9);
+        assertEquals("SHOOT_1", sequencer.getTransitionStep(1).getName());
+        assertEquals(0.5, sequencer.getTransitionTime(1), 0.02 + 1.0e-9);
+        assertTrue(sequencer.getTransitionCount() > 5);
+        assertEquals("JERK", sequencer.getTransitionStep(4).getName());
+        assertEquals(4.0, sequencer.getTotalTime(), 0.02 + 1.0e-9);
+
+        // restarting clears the last run
+        sequencer.start(10.0, 0);
+        assertEquals(1, sequencer.getTransitionCount());
+        assertEquals(0.0, sequencer.getStepTime("JERK"));
+        sequencer.stop(10.1);
+        assertTrue(sequencer.isDone());
+        assertEquals(0.1, sequencer.getStepTime("SPINUP"), 1.0e-9);
+    }
+
+    @Test
+    @DisplayName("Test bad sequences")
+    void test_bad_sequences() {
+        assertThrows(IllegalArgumentException.class, () -> new ShotSequencer(new Step[0], 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ShotSequencer(new Step[] {
+                new Step("A", 0.0, 0.0, true, 100, "B")}, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ShotSequencer(new Step[] {
+                new Step("A", 0.0, 0.0, true, 100, "A"),
+                new Step("A", 0.0, 0.0, true, 100, ShotSequencer.DONE)}, 1000));
+    }
+}
@@ -0,0 +1,54 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ShotSolver} - a stationary robot shoots at the hub, and a ball shot at the virtual target
+ * from a moving robot lands on the hub.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestShotSolver {
+
+    private static final double TOF_BASE = 0.6;
+    private static final double TOF_PER_METER = 0.12;
+
+    @Test
+    @DisplayName("Test stationary")
+    void test_stationary() {
+        ShotSolver solver = new ShotSolver(TOF_BASE, TOF_PER_METER);
+        assertTrue(solver.solve(3.0, Math.toRadians(175.0), 0.0, 0.0));
+        assertEquals(3.0, solver.getRange(), 0.000001);
+        assertEquals(Math.toRadians(175.0), solver.getBearing(), 0.000001);
+        assertEquals(0.0, solver.getLeadOffset(), 0.000001);
+        assertEquals(TOF_BASE + (3.0 * TOF_PER_METER), solver.getTimeOfFlight(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test moving")
+    void test_moving() {
+        ShotSolver solver = new ShotSolver(TOF_BASE, TOF_PER_METER);
+        // the hub is behind the robot (the shooter end), the robot is strafing right and backing toward the hub
+        double range = 4.0;
+        double bearing = Math.PI;
+        double forwardVelocity = -0.5;
+        double strafeVelocity = 1.0;
+        assertTrue(solver.solve(range, bearing, forwardVelocity, strafeVelocity));
+        // the ball drifts right, so lead to the left (the hub is behind, so left of the hub is clockwise from
+        // it), and the ball carries the robot velocity toward the hub so the virtual target is closer
+        assertTrue(solver.getLeadOffset() > 0.0, "lead " + solver.getLeadOffset());
+        assertTrue(solver.getRange() < range, "range " + solver.getRange());
+
+        // a stationary shot at the virtual target, plus the drift, lands on the hub
+        double timeOfFlight = TOF_BASE + (TOF_PER_METER * solver.getRange());
+        assertEquals(timeOfFlight, solver.getTimeOfFlight(), 0.001);
+        double landForward = (solver.getRange() * Math.cos(solver.getBearing())) + (forwardVelocity * timeOfFlight);
+        double landStrafe = (solver.getRange() * Math.sin(solver.getBearing())) + (strafeVelocity * timeOfFlight);
+        assertEquals(range * Math.cos(bearing), landForward, 0.01);
+        assertEquals(range * Math.sin(bearing), landStrafe, 0.01);
+    }
+}
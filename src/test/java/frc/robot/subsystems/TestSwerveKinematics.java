@@ -0,0 +1,216 @@
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.sensors.CANCoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link SwerveKinematics} - that the module speeds and directions are correct, and that
+ * solving the kinematics and setting the modules every command cycle does not allocate.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestSwerveKinematics {
+
+    private static final double LENGTH = 0.5969;
+    private static final double WIDTH = 0.5969;
+
+    private void verifyModule(SwerveKinematics kinematics, int module, double radians, double speed) {
+        assertEquals(radians, kinematics.getDirection(module), 0.00001);
+        assertEquals(speed, kinematics.getSpeed(module), 0.00001);
+    }
+
+    @Test
+    @DisplayName("Test straight forward")
+    void test_forward() {
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(0.5, 0.0, 0.0);
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            verifyModule(kinematics, module, 0.0, 0.5);
+        }
+        assertEquals(0.5, kinematics.getForward());
+        assertEquals(0.0, kinematics.getStrafe());
+    }
+
+    @Test
+    @DisplayName("Test strafe right")
+    void test_strafe() {
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(0.0, 1.0, 0.0);
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            verifyModule(kinematics, module, Math.PI / 2.0, 1.0);
+        }
+    }
+
+    @Test
+    @DisplayName("Test rotate in place")
+    void test_rotate() {
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(0.0, 0.0, 1.0);
+        verifyModule(kinematics, SwerveKinematics.RF, Math.atan2(LENGTH, -WIDTH), 1.0);
+        verifyModule(kinematics, SwerveKinematics.LF, Math.atan2(LENGTH, WIDTH), 1.0);
+        verifyModule(kinematics, SwerveKinematics.LR, Math.atan2(-LENGTH, WIDTH), 1.0);
+        verifyModule(kinematics, SwerveKinematics.RR, Math.atan2(-LENGTH, -WIDTH), 1.0);
+    }
+
+    @Test
+    @DisplayName("Test normalization")
+    void test_normalize() {
+        // forward and rotation together push the outside modules past full speed, everything should be
+        // scaled so the fastest module is at full speed.
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(1.0, 0.0, 1.0);
+        double max = 0.0;
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            max = Math.max(max, kinematics.getSpeed(module));
+        }
+        assertEquals(1.0, max, 0.00001);
+        assertTrue(kinematics.getForward() < 1.0);
+    }
+
+    @Test
+    @DisplayName("Test stopped module keeps last direction")
+    void test_stopped_keeps_direction() {
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(0.5, 0.5, 0.0);
+        kinematics.solve(0.0, 0.0, 0.0);
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            verifyModule(kinematics, module, Math.PI / 4.0, 0.0);
+        }
+        kinematics.setDirection(SwerveKinematics.LR, 1.0);
+        kinematics.solve(0.0, 0.0, 0.0);
+        verifyModule(kinematics, SwerveKinematics.LR, 1.0, 0.0);
+    }
+
+    // the number of setReference calls made to the mocked spin (direction) and drive PID controllers
+    private long m_directionCalls = 0;
+    private long m_driveCalls = 0;
+
+    /**
+     * Mock a hardware class. The mock is stub-only so it does not record the calls made to it - recording would be
+     * measured as allocation that does not happen on the robot.
+     */
+    private static <T> T mockHardware(Class<T> hardwareClass) {
+        return mock(hardwareClass, withSettings().stubOnly());
+    }
+
+    /**
+     * @return An initialized module with mocked hardware, the same way {@code MockedModules} in the benchmarks
+     * builds them, and with the calls to its PID controllers counted.
+     */
+    private Mk4NeoModule mockedModule() {
+        CANCoder calibrationEncoder = mockHardware(CANCoder.class);
+        when(calibrationEncoder.getAbsolutePosition()).thenReturn(Math.PI / 2.0);
+        SparkMaxPIDController drivePID = mock(SparkMaxPIDController.class,
+                withSettings().stubOnly().defaultAnswer(invocation -> {
+                    m_driveCalls++;
+                    return RETURNS_DEFAULTS.answer(invocation);
+                }));
+        SparkMaxPIDController spinPID = mock(SparkMaxPIDController.class,
+                withSettings().stubOnly().defaultAnswer(invocation -> {
+                    m_directionCalls++;
+                    return RETURNS_DEFAULTS.answer(invocation);
+                }));
+        return new Mk4NeoModule(mockHardware(CANSparkMax.class), mockHardware(RelativeEncoder.class), drivePID,
+                mockHardware(CANSparkMax.class), mockHardware(RelativeEncoder.class), spinPID,
+                calibrationEncoder, -(Math.PI / 2.0));
+    }
+
+    /**
+     * Run the drive path for many command cycles of varying stick input - the field relative direction, the
+     * kinematics and the modules, as {@link DriveSubsystem#swerveDriveFieldRelative} does - and verify that no
+     * memory is allocated by the thread doing the driving. A mocked hardware call allocates (Mockito builds an
+     * invocation, with the stack trace of the call) where the robot's does not, so the same number of mocked
+     * calls are made from the same stack depth and their cost is subtracted.
+     */
+    @Test
+    @DisplayName("Test zero allocation per cycle")
+    void test_zero_allocation() {
+        java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(mxBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)mxBean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        Mk4NeoModule[] modules = new Mk4NeoModule[SwerveKinematics.MODULE_COUNT];
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            modules[module] = mockedModule();
+        }
+        SparkMaxPIDController pid = mockHardware(SparkMaxPIDController.class);
+        final int cycles = 100000;
+        // warm up, and measure what the measurement itself costs
+        runCycles(kinematics, modules, cycles);
+        callMock(pid, cycles, cycles);
+        long overheadStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overheadEnd = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = overheadEnd - overheadStart;
+
+        long directionCalls = m_directionCalls;
+        long driveCalls = m_driveCalls;
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        double sum = runCycles(kinematics, modules, cycles);
+        long end = threadMXBean.getThreadAllocatedBytes(threadId);
+        directionCalls = m_directionCalls - directionCalls;
+        driveCalls = m_driveCalls - driveCalls;
+
+        long mockStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        callMock(pid, directionCalls, driveCalls);
+        long mockEnd = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        // the total, not a per cycle average (which integer division would truncate to 0 for a small allocation
+        // every cycle) - a single 16 byte allocation per cycle would be 1.6MB
+        long allocated = (end - start - overhead) - (mockEnd - mockStart - overhead);
+        assertTrue(sum > 0.0);
+        assertTrue((directionCalls > 0L) && (driveCalls > 0L));
+        assertTrue(allocated < 1024L, "bytes allocated in " + cycles + " cycles: " + allocated);
+    }
+
+    private double runCycles(SwerveKinematics kinematics, Mk4NeoModule[] modules, int cycles) {
+        double sum = 0.0;
+        for (int i = 0; i < cycles; i++) {
+            double t = i * 0.02;
+            // field relative stick direction, speed and rotation, with the robot slowly turning
+            double chassisRadians = (Math.sin(t * 0.3) * Math.PI) - (t * 0.1);
+            double speed = Math.abs(Math.cos(t));
+            kinematics.solve(Math.cos(chassisRadians) * speed, Math.sin(chassisRadians) * speed,
+                    Math.sin(t * 0.5));
+            for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+                modules[module].setDirectionAndSpeed(kinematics.getDirection(module), kinematics.getSpeed(module));
+                sum += modules[module].getLastSpeed() + Math.abs(kinematics.getDirection(module));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Make mocked setReference calls from the stack depths the module makes them from. {@link #runCycles} and this
+     * are called from the test, the module sets the drive speed from
+     * {@link Mk4NeoModule#setDirectionAndSpeed(double, double)} (one call deeper), and the direction from
+     * {@link Mk4NeoModule#setDirection(double)} (two calls deeper). The module does not read the encoders in this
+     * path, there is no cosine speed scaling.
+     */
+    private void callMock(SparkMaxPIDController pid, long directionCalls, long driveCalls) {
+        for (long i = 0; i < driveCalls; i++) {
+            pid.setReference(i * 0.5, CANSparkMax.ControlType.kVelocity);
+        }
+        for (long i = 0; i < directionCalls; i++) {
+            setDirectionReference(pid, i * 0.5);
+        }
+    }
+
+    private static void setDirectionReference(SparkMaxPIDController pid, double value) {
+        pid.setReference(value, CANSparkMax.ControlType.kPosition);
+    }
+}
@@ -0,0 +1,88 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link SwerveOdometry} forward kinematics and field position integration.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestSwerveOdometry {
+
+    private static final double LENGTH = 0.5969;
+    private static final double WIDTH = 0.5969;
+
+    private void setAllModules(SwerveOdometry odometry, double distance, double directionRadians) {
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            odometry.setModule(module, distance, directionRadians);
+        }
+    }
+
+    @Test
+    @DisplayName("Test drive forward")
+    void test_forward() {
+        SwerveOdometry odometry = new SwerveOdometry(LENGTH, WIDTH);
+        setAllModules(odometry, 10.0, 0.0);
+        odometry.reset(1.0, 2.0, 0.0, 5.0);
+        // drive 1m forward in 0.5sec
+        setAllModules(odometry, 11.0, 0.0);
+        odometry.update(0.0, 5.5);
+        assertEquals(1.0, odometry.getFieldX(), 0.00001);
+        assertEquals(3.0, odometry.getFieldY(), 0.00001);
+        assertEquals(2.0, odometry.getForwardVelocity(), 0.00001);
+        assertEquals(0.0, odometry.getStrafeVelocity(), 0.00001);
+        assertEquals(0.0, odometry.getDeltaRotation(), 0.00001);
+    }
+
+    @Test
+    @DisplayName("Test strafe right with the robot facing right")
+    void test_strafe_heading() {
+        // the robot faces right (heading pi/2) and strafes right, which is down field (-Y)
+        SwerveOdometry odometry = new SwerveOdometry(LENGTH, WIDTH);
+        setAllModules(odometry, 0.0, Math.PI / 2.0);
+        odometry.reset(0.0, 0.0, Math.PI / 2.0, 0.0);
+        setAllModules(odometry, 0.5, Math.PI / 2.0);
+        odometry.update(Math.PI / 2.0, 0.02);
+        assertEquals(0.0, odometry.getFieldX(), 0.00001);
+        assertEquals(-0.5, odometry.getFieldY(), 0.00001);
+    }
+
+    @Test
+    @DisplayName("Test backwards wheel")
+    void test_backwards() {
+        // wheels pointing backwards and driving backwards is moving forwards
+        SwerveOdometry odometry = new SwerveOdometry(LENGTH, WIDTH);
+        setAllModules(odometry, 0.0, Math.PI);
+        odometry.reset(0.0, 0.0, 0.0, 0.0);
+        setAllModules(odometry, -0.25, Math.PI);
+        odometry.update(0.0, 0.02);
+        assertEquals(0.0, odometry.getFieldX(), 0.00001);
+        assertEquals(0.25, odometry.getFieldY(), 0.00001);
+    }
+
+    @Test
+    @DisplayName("Test rotate in place")
+    void test_rotate() {
+        SwerveKinematics kinematics = new SwerveKinematics(LENGTH, WIDTH);
+        kinematics.solve(0.0, 0.0, 1.0);
+        SwerveOdometry odometry = new SwerveOdometry(LENGTH, WIDTH);
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            odometry.setModule(module, 0.0, kinematics.getDirection(module));
+        }
+        odometry.reset(0.0, 0.0, 0.0, 0.0);
+        // each module moves 0.1m around the rotation circle, radius is half the diagonal
+        double radius = 0.5 * Math.sqrt((LENGTH * LENGTH) + (WIDTH * WIDTH));
+        for (int module = 0; module < SwerveKinematics.MODULE_COUNT; module++) {
+            odometry.setModule(module, 0.1, kinematics.getDirection(module));
+        }
+        odometry.update(0.1 / radius, 0.1);
+        assertEquals(0.0, odometry.getFieldX(), 0.00001);
+        assertEquals(0.0, odometry.getFieldY(), 0.00001);
+        assertEquals(0.1 / radius, odometry.getDeltaRotation(), 0.00001);
+        assertEquals(1.0 / radius, odometry.getRotationVelocity(), 0.00001);
+    }
+}
@@ -0,0 +1,105 @@
+package frc.robot.subsystems;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link TargetTracker} - jitter is smoothed, a steadily moving target is followed with its rate,
+ * outliers are rejected until there are too many in a row, bunched up and out of order frames, and the age of
+ * the track.
+ */
+@RunWith(JUnitPlatform.class)
+public class TestTargetTracker {
+
+    private static final double FRAME = 1.0 / 90.0;
+
+    @Test
+    @DisplayName("Test jitter")
+    void test_jitter() {
+        TargetTracker tracker = new TargetTracker();
+        Random random = new Random(6831);
+        double rawError = 0.0;
+        double filteredError = 0.0;
+        for (int frame = 0; frame < 400; frame++) {
+            double tx = 2.0 + (0.3 * random.nextGaussian());
+            double ty = -3.0 + (0.2 * random.nextGaussian());
+            assertTrue(tracker.update(tx, ty, frame * FRAME));
+            if (frame >= 100) {
+                rawError += Math.abs(tx - 2.0);
+                filteredError += Math.abs(tracker.getTx() - 2.0);
+            }
+        }
+        assertTrue(filteredError < rawError * 0.7, "raw " + rawError + " filtered " + filteredError);
+        assertEquals(-3.0, tracker.getTy(), 0.2);
+    }
+
+    @Test
+    @DisplayName("Test moving target")
+    void test_moving() {
+        TargetTracker tracker = new TargetTracker();
+        // the robot turning at 20 degrees/sec
+        for (int frame = 0; frame < 200; frame++) {
+            tracker.update(10.0 - (20.0 * frame * FRAME), 0.0, frame * FRAME);
+        }
+        assertEquals(10.0 - (20.0 * 199 * FRAME), tracker.getTx(), 0.01);
+        assertEquals(-20.0, tracker.getTxRate(), 0.1);
+        assertEquals(0.0, tracker.getTyRate(), 0.000001);
+    }
+
+    @Test
+    @DisplayName("Test outliers and restart")
+    void test_outliers() {
+        TargetTracker tracker = new TargetTracker();
+        int frame = 0;
+        for (; frame < 50; frame++) {
+            tracker.update(1.0, -2.0, frame * FRAME);
+        }
+        // a reflection for 2 frames is ignored
+        assertFalse(tracker.update(12.0, -2.0, frame++ * FRAME));
+        assertFalse(tracker.update(1.0, 4.0, frame++ * FRAME));
+        assertTrue(tracker.update(1.0, -2.0, frame++ * FRAME));
+        assertEquals(1.0, tracker.getTx(), 0.000001);
+        assertEquals(2, tracker.getRejectedCount());
+        // a new target that stays, the filter restarts on it
+        for (int i = 0; i < 3; i++) {
+            assertFalse(tracker.update(12.0, -2.0, frame++ * FRAME));
+        }
+        assertFalse(tracker.isTracking());
+        assertTrue(tracker.update(12.0, -2.0, frame++ * FRAME));
+        assertEquals(12.0, tracker.getTx());
+        // and restarts after the target has not been seen for a while
+        assertTrue(tracker.update(-5.0, -2.0, (frame + 30) * FRAME));
+        assertEquals(-5.0, tracker.getTx());
+        tracker.lost();
+        assertFalse(tracker.isTracking());
+    }
+
+    @Test
+    @DisplayName("Test frame timing and age")
+    void test_timing_and_age() {
+        TargetTracker tracker = new TargetTracker();
+        int frame = 0;
+        for (; frame < 50; frame++) {
+            tracker.update(1.0, -2.0, frame * FRAME);
+        }
+        double time = (frame - 1) * FRAME;
+        // a frame that is not newer is skipped
+        assertFalse(tracker.update(1.5, -2.0, time));
+        assertFalse(tracker.update(1.5, -2.0, time - FRAME));
+        assertEquals(1.0, tracker.getTx(), 0.000001);
+        // a frame right after the last does not blow up the rate
+        assertTrue(tracker.update(1.5, -2.0, time + 0.0001));
+        assertEquals(0.5 * 0.1 / (0.5 * FRAME), tracker.getTxRate(), 0.000001);
+        // the track is not used once it is old
+        time += 0.0001;
+        assertTrue(tracker.isTracking(time + 0.2));
+        assertFalse(tracker.isTracking(time + 0.3));
+        assertTrue(tracker.isTracking());
+    }
+}